@@ -0,0 +1,254 @@
+package asgn2Benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import asgn2Exceptions.CargoException;
+
+/**
+ * Measures the average time of the operation of a {@link Workload}, in the
+ * manner of JMH's average time mode.  Each measurement runs a number of
+ * warm-up iterations, which are thrown away, then a number of measured
+ * iterations, each running batches for a fixed time.  The score is the
+ * mean time per operation across the measured iterations, and the error
+ * is the half-width of its 99.9% confidence interval.
+ * <p>
+ * Results are saved as a JSON array laid out as JMH lays out its own, one
+ * result per line, so they can be compared with an earlier run by
+ * {@link #readScores(Path)} or loaded into tools that read JMH results.
+ *
+ * @author Leandro Rodrigues & Brendan Rothwell n8540683
+ * @version 1.0
+ */
+public class BenchmarkHarness {
+	// Student's t for a 99.9% two-sided interval, by degrees of freedom from 1 to 10, and beyond
+	private static final double[] T_999 = { 636.62, 31.60, 12.92, 8.61, 6.87, 5.96, 5.41, 5.04, 4.78, 4.59 };
+	private static final double T_999_LARGE = 3.29;
+	// Picks the name, parameters and score out of a line of saved results
+	private static final Pattern RESULT_LINE = Pattern.compile(
+			"\"benchmark\":\"([^\"]*)\".*\"params\":\\{([^}]*)\\}.*\"score\":([-0-9.Ee]+)");
+
+	private final int warmupIterations;
+	private final int measurementIterations;
+	private final long iterationNanos;
+
+	/**
+	 * Constructs a harness.
+	 *
+	 * @param warmupIterations the number of iterations run before measuring
+	 * @param measurementIterations the number of iterations measured, at least 2
+	 * @param iterationMillis how long each iteration runs for
+	 */
+	public BenchmarkHarness(int warmupIterations, int measurementIterations, long iterationMillis) {
+		if(measurementIterations < 2)
+			throw new IllegalArgumentException("At least 2 measured iterations are needed");
+		this.warmupIterations = warmupIterations;
+		this.measurementIterations = measurementIterations;
+		this.iterationNanos = iterationMillis * 1000000L;
+	}
+
+	/**
+	 * Measures a workload for one combination of parameters.
+	 *
+	 * @param workload the workload to measure
+	 * @param numStacks the number of stacks on the ship
+	 * @param maxHeight the maximum height of a stack
+	 * @param fillPercent the percentage of the ship's slots holding a container
+	 * @return the result
+	 * @throws CargoException if the workload fails
+	 */
+	public Result measure(Workload workload, int numStacks, int maxHeight, int fillPercent) throws CargoException {
+		workload.setUp(numStacks, maxHeight, fillPercent);
+		for (int i = 0; i < warmupIterations; i++)
+			iteration(workload);
+		double[] scores = new double[measurementIterations];
+		double sum = 0;
+		for (int i = 0; i < measurementIterations; i++) {
+			scores[i] = iteration(workload);
+			sum += scores[i];
+		}
+		double mean = sum / scores.length;
+		double squares = 0;
+		for (double score : scores)
+			squares += (score - mean) * (score - mean);
+		double deviation = Math.sqrt(squares / (scores.length - 1));
+		int freedom = scores.length - 1;
+		double t = freedom <= T_999.length ? T_999[freedom - 1] : T_999_LARGE;
+		Map<String, String> params = new LinkedHashMap<String, String>();
+		if(workload.isParameterized()) {
+			params.put("numStacks", Integer.toString(numStacks));
+			params.put("maxHeight", Integer.toString(maxHeight));
+			params.put("fill", Integer.toString(fillPercent));
+		}
+		return new Result(workload.getName(), params, mean, t * deviation / Math.sqrt(scores.length),
+				scores.length);
+	}
+
+	/*
+	 * Helper Function to run batches for the length of one iteration, returning the mean time per operation
+	 */
+	private double iteration(Workload workload) throws CargoException {
+		long timed = 0;
+		long operations = 0;
+		long end = System.nanoTime() + iterationNanos;
+		do {
+			workload.prepare();
+			long start = System.nanoTime();
+			operations += workload.run();
+			long finish = System.nanoTime();
+			timed += finish - start;
+			if(finish >= end)
+				break;
+		} while(true);
+		return (double) timed / operations;
+	}
+
+	/**
+	 * Writes results as JSON, in the layout JMH uses.
+	 *
+	 * @param results the results to write
+	 * @param out where to write them
+	 * @throws IOException if the results cannot be written
+	 */
+	public void writeJson(List<Result> results, Writer out) throws IOException {
+		out.write("[\n");
+		for (int i = 0; i < results.size(); i++) {
+			Result result = results.get(i);
+			out.write("{\"benchmark\":\"" + result.getBenchmark() + "\",\"mode\":\"avgt\",\"threads\":1,\"forks\":1");
+			out.write(",\"warmupIterations\":" + warmupIterations);
+			out.write(",\"warmupTime\":\"" + iterationNanos / 1000000 + " ms\"");
+			out.write(",\"measurementIterations\":" + measurementIterations);
+			out.write(",\"measurementTime\":\"" + iterationNanos / 1000000 + " ms\"");
+			out.write(",\"params\":{");
+			boolean first = true;
+			for (Map.Entry<String, String> param : result.getParams().entrySet()) {
+				out.write((first ? "" : ",") + "\"" + param.getKey() + "\":\"" + param.getValue() + "\"");
+				first = false;
+			}
+			out.write("},\"primaryMetric\":{");
+			out.write(String.format(Locale.ROOT, "\"score\":%.3f,\"scoreError\":%.3f,\"scoreUnit\":\"ns/op\"",
+					result.getScore(), result.getError()));
+			out.write("}}" + (i < results.size() - 1 ? "," : "") + "\n");
+		}
+		out.write("]\n");
+	}
+
+	/**
+	 * Reads the scores from results saved by {@link #writeJson(List, Writer)}.
+	 *
+	 * @param file the saved results
+	 * @return the score of each result, by {@link Result#getKey()}
+	 * @throws IOException if the file cannot be read
+	 */
+	public static Map<String, Double> readScores(Path file) throws IOException {
+		Map<String, Double> scores = new LinkedHashMap<String, Double>();
+		try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			while((line = in.readLine()) != null) {
+				Matcher matcher = RESULT_LINE.matcher(line);
+				if(matcher.find())
+					scores.put(matcher.group(1) + " {" + matcher.group(2) + "}", Double.valueOf(matcher.group(3)));
+			}
+		}
+		return scores;
+	}
+
+	/**
+	 * The measured time of one workload for one combination of parameters.
+	 */
+	public static final class Result {
+		private final String benchmark;
+		private final Map<String, String> params;
+		private final double score;
+		private final double error;
+		private final int samples;
+
+		/**
+		 * Constructs a result.
+		 *
+		 * @param benchmark the name of the workload
+		 * @param params the parameters, by name
+		 * @param score the mean time per operation in nanoseconds
+		 * @param error the half-width of the confidence interval of the score
+		 * @param samples the number of iterations measured
+		 */
+		public Result(String benchmark, Map<String, String> params, double score, double error, int samples) {
+			this.benchmark = benchmark;
+			this.params = params;
+			this.score = score;
+			this.error = error;
+			this.samples = samples;
+		}
+
+		/**
+		 * Returns the name of the workload.
+		 *
+		 * @return the name
+		 */
+		public String getBenchmark() {
+			return benchmark;
+		}
+
+		/**
+		 * Returns the parameters the workload was measured with.
+		 *
+		 * @return the parameters, by name
+		 */
+		public Map<String, String> getParams() {
+			return params;
+		}
+
+		/**
+		 * Returns the mean time per operation.
+		 *
+		 * @return the score in nanoseconds
+		 */
+		public double getScore() {
+			return score;
+		}
+
+		/**
+		 * Returns the half-width of the 99.9% confidence interval of the score.
+		 *
+		 * @return the error in nanoseconds
+		 */
+		public double getError() {
+			return error;
+		}
+
+		/**
+		 * Returns the number of iterations measured.
+		 *
+		 * @return the number of samples
+		 */
+		public int getSamples() {
+			return samples;
+		}
+
+		/**
+		 * Returns the name and parameters, as matched against earlier results.
+		 *
+		 * @return the key of this result
+		 */
+		public String getKey() {
+			StringBuilder key = new StringBuilder(benchmark).append(" {");
+			boolean first = true;
+			for (Map.Entry<String, String> param : params.entrySet()) {
+				key.append(first ? "" : ",").append('"').append(param.getKey()).append("\":\"")
+						.append(param.getValue()).append('"');
+				first = false;
+			}
+			return key.append('}').toString();
+		}
+	}
+}
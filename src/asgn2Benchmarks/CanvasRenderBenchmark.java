@@ -0,0 +1,222 @@
+package asgn2Benchmarks;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+import asgn2Codes.ContainerCode;
+import asgn2Containers.DangerousGoodsContainer;
+import asgn2Containers.FreightContainer;
+import asgn2Containers.GeneralGoodsContainer;
+import asgn2Containers.RefrigeratedContainer;
+import asgn2Exceptions.CargoException;
+import asgn2GUI.CargoCanvas;
+import asgn2Manifests.CargoManifest;
+
+/**
+ * Measures how fast {@link CargoCanvas} draws a full ship without a screen.
+ * The whole canvas is painted one window-sized view at a time into an
+ * off-screen image, first by the canvas with its ready-made container
+ * images and then by drawing every box from scratch, as a canvas without
+ * the images would.  It then compares repainting only the position of one
+ * changed container with repainting the whole view around it.  Finally
+ * it pans a view down the ship at several zooms, from full size to the
+ * zoomed-out stack bars, and reports the time per frame, which should stay
+ * under 16 ms.
+ * <p>
+ * Usage: <code>CanvasRenderBenchmark [numStacks] [maxHeight] [rounds]</code>
+ *
+ * @author Leandro Rodrigues & Brendan Rothwell n8540683
+ * @version 1.0
+ */
+public class CanvasRenderBenchmark {
+	private static final int WARMUP_ROUNDS = 5;
+	private static final int VIEW_WIDTH = 1280;
+	private static final int VIEW_HEIGHT = 720;
+	private static final Font CODE_FONT = new Font("Calibri", Font.BOLD, 14);
+	private static final double[] ZOOMS = { 1.0, 0.5, 0.25, 0.1, 0.01 };
+	private static final int FRAMES = 200;
+
+	/**
+	 * Runs the comparison and prints the time per container drawn.
+	 *
+	 * @param args optional number of stacks, maximum height and number of measured rounds
+	 * @throws CargoException if the manifest used for the benchmark cannot be filled
+	 */
+	public static void main(String[] args) throws CargoException {
+		System.setProperty("java.awt.headless", "true");
+		int numStacks = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int maxHeight = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+		CargoManifest cargo = createFullManifest(numStacks, maxHeight);
+		CargoCanvas canvas = new CargoCanvas(cargo);
+		Dimension size = canvas.getPreferredSize();
+		canvas.setSize(size);
+		BufferedImage view = new BufferedImage(VIEW_WIDTH, VIEW_HEIGHT, BufferedImage.TYPE_INT_RGB);
+		long checksum = 0;
+
+		// Lets the JIT compiler settle before measuring
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			checksum += paintAll(canvas, cargo, view, size, true);
+			checksum += paintAll(canvas, cargo, view, size, false);
+			checksum += paintChanges(canvas, view, numStacks, maxHeight, true);
+			checksum += paintChanges(canvas, view, numStacks, maxHeight, false);
+		}
+
+		long start = System.nanoTime();
+		for (int i = 0; i < rounds; i++)
+			checksum += paintAll(canvas, cargo, view, size, true);
+		long spriteNanos = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int i = 0; i < rounds; i++)
+			checksum += paintAll(canvas, cargo, view, size, false);
+		long directNanos = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int i = 0; i < rounds; i++)
+			checksum += paintChanges(canvas, view, numStacks, maxHeight, true);
+		long dirtyNanos = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int i = 0; i < rounds; i++)
+			checksum += paintChanges(canvas, view, numStacks, maxHeight, false);
+		long viewNanos = System.nanoTime() - start;
+
+		double containers = (double) rounds * numStacks * maxHeight;
+		double changes = (double) rounds * numStacks;
+		System.out.printf("%d stacks x %d high, %d rounds, %dx%d view%n", numStacks, maxHeight, rounds, VIEW_WIDTH, VIEW_HEIGHT);
+		System.out.printf("full paint, cached images : %10.1f ns/container%n", spriteNanos / containers);
+		System.out.printf("full paint, drawn boxes   : %10.1f ns/container%n", directNanos / containers);
+		System.out.printf("one change, dirty area    : %10.1f ns/change%n", dirtyNanos / changes);
+		System.out.printf("one change, whole view    : %10.1f ns/change%n", viewNanos / changes);
+
+		// Pans down the ship at each zoom, from the top to the bottom in even steps
+		for (double zoom : ZOOMS) {
+			canvas.setZoom(zoom);
+			canvas.setSize(canvas.getPreferredSize());
+			for (int i = 0; i < WARMUP_ROUNDS; i++)
+				checksum += paintFrames(canvas, view);
+			start = System.nanoTime();
+			checksum += paintFrames(canvas, view);
+			System.out.printf("pan at zoom %5.2f         : %10.3f ms/frame%n", zoom, (System.nanoTime() - start) / 1e6 / FRAMES);
+		}
+		// Printed so the work above cannot be optimised away
+		System.out.println("checksum " + checksum);
+	}
+
+	/*
+	 * Helper Function to fill every stack of a new manifest, the stacks taking turns between the three types
+	 */
+	private static CargoManifest createFullManifest(int numStacks, int maxHeight) throws CargoException {
+		CargoManifest cargo = new CargoManifest(numStacks, maxHeight, Integer.MAX_VALUE);
+		long key = new ContainerCode("INKU2633836").toKey();
+		for (int i = 0; i < numStacks; i++)
+			for (int j = 0; j < maxHeight; j++) {
+				ContainerCode code = ContainerCode.fromKey(key++);
+				FreightContainer container;
+				if (i % 3 == 0)
+					container = new GeneralGoodsContainer(code, 4);
+				else if (i % 3 == 1)
+					container = new RefrigeratedContainer(code, 4, -5);
+				else
+					container = new DangerousGoodsContainer(code, 4, 3);
+				cargo.loadContainer(container);
+			}
+		return cargo;
+	}
+
+	/*
+	 * Paints the whole canvas one view at a time, either through the canvas or by drawing every box directly
+	 */
+	private static long paintAll(CargoCanvas canvas, CargoManifest cargo, BufferedImage view, Dimension size,
+			boolean cached) throws CargoException {
+		for (int y = 0; y < size.height; y += VIEW_HEIGHT)
+			for (int x = 0; x < size.width; x += VIEW_WIDTH) {
+				Graphics2D g = view.createGraphics();
+				g.translate(-x, -y);
+				g.setClip(x, y, VIEW_WIDTH, VIEW_HEIGHT);
+				if (cached)
+					canvas.paint(g);
+				else
+					drawBoxes(g, cargo, new Rectangle(x, y, VIEW_WIDTH, VIEW_HEIGHT));
+				g.dispose();
+			}
+		return view.getRGB(VIEW_WIDTH / 2, VIEW_HEIGHT / 2);
+	}
+
+	/*
+	 * Repaints the canvas after a change to the top container of each stack, either only where the container is
+	 * or the whole view around it
+	 */
+	private static long paintChanges(CargoCanvas canvas, BufferedImage view, int numStacks, int maxHeight,
+			boolean dirtyOnly) {
+		for (int i = 0; i < numStacks; i++) {
+			Rectangle changed = CargoCanvas.containerBounds(i, maxHeight - 1);
+			Rectangle area = dirtyOnly ? changed
+					: new Rectangle(Math.max(0, changed.x + changed.width - VIEW_WIDTH), changed.y, VIEW_WIDTH, VIEW_HEIGHT);
+			Graphics2D g = view.createGraphics();
+			g.translate(-area.x, -area.y);
+			g.setClip(area);
+			canvas.paint(g);
+			g.dispose();
+		}
+		return view.getRGB(0, 0);
+	}
+
+	/*
+	 * Paints a view-sized frame at each of a number of positions from the top of the canvas to the bottom
+	 */
+	private static long paintFrames(CargoCanvas canvas, BufferedImage view) {
+		int range = Math.max(0, canvas.getHeight() - VIEW_HEIGHT);
+		for (int i = 0; i < FRAMES; i++) {
+			int y = (int) ((long) range * i / FRAMES);
+			Graphics2D g = view.createGraphics();
+			g.translate(0, -y);
+			g.setClip(0, y, VIEW_WIDTH, VIEW_HEIGHT);
+			canvas.paint(g);
+			g.dispose();
+		}
+		return view.getRGB(VIEW_WIDTH / 4, VIEW_HEIGHT / 2);
+	}
+
+	/*
+	 * Draws the containers in an area the way a canvas without ready-made images would, shape by shape
+	 */
+	private static void drawBoxes(Graphics2D g, CargoManifest cargo, Rectangle area) throws CargoException {
+		g.setColor(Color.WHITE);
+		g.fill(area);
+		g.setFont(CODE_FONT);
+		FontMetrics metrics = g.getFontMetrics();
+		// Visits only the stacks in the area, as the canvas does, so that only the drawing itself differs
+		int pitch = CargoCanvas.containerBounds(1, 0).y - CargoCanvas.containerBounds(0, 0).y;
+		int firstStack = Math.max(0, area.y / pitch - 1);
+		int lastStack = Math.min(cargo.getNumStacks() - 1, (area.y + area.height) / pitch);
+		for (int i = firstStack; i <= lastStack; i++)
+			for (int j = 0; j < cargo.getStackHeight(i); j++) {
+				Rectangle bounds = CargoCanvas.containerBounds(i, j);
+				if (!bounds.intersects(area))
+					continue;
+				FreightContainer container = cargo.getContainer(i, j);
+				Color colour = CargoCanvas.colourOf(container.getType());
+				g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+				g.setColor(colour);
+				g.fillRoundRect(bounds.x, bounds.y, bounds.width - 1, bounds.height - 1, 8, 8);
+				g.setColor(colour.darker());
+				g.setStroke(new BasicStroke(1));
+				g.drawRoundRect(bounds.x + 1, bounds.y + 1, bounds.width - 3, bounds.height - 3, 8, 8);
+				g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+				g.setColor(Color.BLACK);
+				String code = container.getCode().toString();
+				g.drawString(code, bounds.x + (bounds.width - metrics.stringWidth(code)) / 2,
+						bounds.y + (bounds.height + metrics.getAscent() - metrics.getDescent()) / 2);
+			}
+	}
+}
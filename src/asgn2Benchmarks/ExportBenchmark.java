@@ -0,0 +1,123 @@
+package asgn2Benchmarks;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import asgn2Codes.ContainerCode;
+import asgn2Containers.DangerousGoodsContainer;
+import asgn2Containers.FreightContainer;
+import asgn2Containers.GeneralGoodsContainer;
+import asgn2Containers.RefrigeratedContainer;
+import asgn2Exceptions.CargoException;
+import asgn2Manifests.CargoManifest;
+import asgn2Manifests.ManifestExporter;
+import asgn2Manifests.ManifestExporter.Format;
+
+/**
+ * Measures how fast a full manifest is exported by
+ * {@link ManifestExporter}, in megabytes per second, for each format.
+ * Each format is exported both to a stream which throws the bytes away,
+ * which measures the formatting alone, and to a file forced to disk.
+ * <code>CargoManifest.toString</code> is measured too, for comparison.
+ * <p>
+ * Usage: <code>ExportBenchmark [numStacks] [maxHeight] [rounds]</code>
+ *
+ * @author Leandro Rodrigues & Brendan Rothwell n8540683
+ * @version 1.0
+ */
+public class ExportBenchmark {
+	private static final int WARMUP_ROUNDS = 5;
+
+	/**
+	 * Runs the benchmark and prints the export rate of each format.
+	 *
+	 * @param args optional number of stacks, maximum height and number of measured rounds
+	 * @throws CargoException if the manifest used for the benchmark cannot be filled
+	 * @throws IOException if the export file cannot be written
+	 */
+	public static void main(String[] args) throws CargoException, IOException {
+		int numStacks = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int maxHeight = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+		CargoManifest cargo = createFullManifest(numStacks, maxHeight);
+		System.out.printf("%d stacks x %d high, %d containers, %d rounds%n", numStacks, maxHeight,
+				numStacks * maxHeight, rounds);
+		Path file = Files.createTempFile("manifest", ".export");
+		try {
+			for (Format format : Format.values()) {
+				// Lets the JIT compiler settle before measuring
+				for (int i = 0; i < WARMUP_ROUNDS; i++)
+					ManifestExporter.export(cargo, format, new DiscardStream());
+				long bytes = 0;
+				long start = System.nanoTime();
+				for (int i = 0; i < rounds; i++)
+					bytes += ManifestExporter.export(cargo, format, new DiscardStream());
+				report(format + " in memory", bytes, System.nanoTime() - start);
+
+				bytes = 0;
+				start = System.nanoTime();
+				for (int i = 0; i < rounds; i++)
+					try (FileOutputStream out = new FileOutputStream(file.toFile())) {
+						bytes += ManifestExporter.export(cargo, format, out);
+						out.getChannel().force(true);
+					}
+				report(format + " to file", bytes, System.nanoTime() - start);
+			}
+
+			for (int i = 0; i < WARMUP_ROUNDS; i++)
+				cargo.toString();
+			long chars = 0;
+			long start = System.nanoTime();
+			for (int i = 0; i < rounds; i++)
+				chars += cargo.toString().length();
+			report("toString", chars, System.nanoTime() - start);
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	/*
+	 * Helper Function to print the rate at which a number of bytes was written
+	 */
+	private static void report(String name, long bytes, long nanos) {
+		System.out.printf("%-16s: %8.1f MB/s%n", name, bytes / 1e6 / (nanos / 1e9));
+	}
+
+	/*
+	 * Helper Function to fill every stack of a new manifest, the stacks taking turns between the three types
+	 */
+	private static CargoManifest createFullManifest(int numStacks, int maxHeight) throws CargoException {
+		CargoManifest cargo = new CargoManifest(numStacks, maxHeight, Integer.MAX_VALUE);
+		long key = new ContainerCode("INKU2633836").toKey();
+		for (int i = 0; i < numStacks; i++)
+			for (int j = 0; j < maxHeight; j++) {
+				ContainerCode code = ContainerCode.fromKey(key++);
+				FreightContainer container;
+				if (i % 3 == 0)
+					container = new GeneralGoodsContainer(code, 4 + j);
+				else if (i % 3 == 1)
+					container = new RefrigeratedContainer(code, 4 + j, -5);
+				else
+					container = new DangerousGoodsContainer(code, 4 + j, 3);
+				cargo.loadContainer(container);
+			}
+		return cargo;
+	}
+
+	/*
+	 * A stream which throws away everything written to it
+	 */
+	private static class DiscardStream extends OutputStream {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	}
+}
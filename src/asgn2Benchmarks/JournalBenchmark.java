@@ -0,0 +1,90 @@
+package asgn2Benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import asgn2Codes.ContainerCode;
+import asgn2Containers.GeneralGoodsContainer;
+import asgn2Exceptions.CargoException;
+import asgn2Manifests.DurableManifest;
+
+/**
+ * Measures how many loads per second a {@link DurableManifest} can make
+ * durable, with several threads loading at once, first syncing every load
+ * on its own and then with group commit.  It also reports how many times
+ * the journal was forced to disk in each case.
+ * <p>
+ * Usage: <code>JournalBenchmark [threads] [loadsPerThread] [commitWindowMicros]</code>
+ *
+ * @author Leandro Rodrigues & Brendan Rothwell n8540683
+ * @version 1.0
+ */
+public class JournalBenchmark {
+	/**
+	 * Runs the benchmark and prints the loads per second and syncs for each
+	 * mode.
+	 *
+	 * @param args optional number of threads, loads made by each thread, and
+	 * group commit window
+	 * @throws Exception if the manifest cannot be opened or a load fails
+	 */
+	public static void main(String[] args) throws Exception {
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+		long window = args.length > 2 ? Long.parseLong(args[2]) : 0;
+
+		System.out.printf("%d threads x %d loads%n", threads, perThread);
+		run("sync per load", false, threads, perThread, 0);
+		run("group commit", true, threads, perThread, window);
+	}
+
+	/*
+	 * Helper Function to load containers from every thread into a new durable manifest, then print the results
+	 */
+	private static void run(String name, boolean groupCommit, int threads, final int perThread, long window)
+			throws Exception {
+		Path directory = Files.createTempDirectory("manifest");
+		// Room for every container, in stacks of the one type
+		final DurableManifest durable = DurableManifest.open(directory, threads * perThread, 1, Integer.MAX_VALUE,
+				groupCommit);
+		durable.getJournal().setCommitWindow(window);
+		final long firstKey = new ContainerCode("INKU2633836").toKey();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			long syncsBefore = durable.getJournal().getSyncCount();
+			List<Future<Void>> done = new ArrayList<Future<Void>>();
+			long start = System.nanoTime();
+			for (int t = 0; t < threads; t++) {
+				final long first = firstKey + (long) t * perThread;
+				done.add(pool.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws CargoException, IOException {
+						for (int i = 0; i < perThread; i++)
+							durable.loadContainer(new GeneralGoodsContainer(ContainerCode.fromKey(first + i), 4));
+						return null;
+					}
+				}));
+			}
+			for (Future<Void> future : done)
+				future.get();
+			long nanos = System.nanoTime() - start;
+			long syncs = durable.getJournal().getSyncCount() - syncsBefore;
+			int loads = threads * perThread;
+			System.out.printf("%-14s: %10.0f loads/s, %6d syncs, %6.1f loads per sync%n", name,
+					loads / (nanos / 1e9), syncs, (double) loads / syncs);
+		} finally {
+			pool.shutdown();
+			durable.close();
+			Files.deleteIfExists(directory.resolve(DurableManifest.JOURNAL_FILE));
+			Files.deleteIfExists(directory.resolve(DurableManifest.SNAPSHOT_FILE));
+			Files.deleteIfExists(directory);
+		}
+	}
+}
@@ -0,0 +1,400 @@
+package asgn2Benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import asgn2Codes.ContainerCode;
+import asgn2Containers.FreightContainer;
+import asgn2Containers.GeneralGoodsContainer;
+import asgn2Exceptions.CargoException;
+import asgn2Manifests.CargoManifest;
+
+/**
+ * The benchmark suite for the hot paths of {@link CargoManifest} and
+ * {@link ContainerCode}: loading, unloading, looking up which stack and how
+ * high a container is, copying a stack, printing the manifest and
+ * checking a code.  Every manifest operation is measured for each
+ * combination of the number of stacks, the maximum height and how full the
+ * ship is, in nanoseconds per operation, and the results are saved as JSON.
+ * Given the results of an earlier run, any result which has become slower
+ * by more than the threshold is reported as a regression, and the suite
+ * exits with status 1.  The manifest operations can also be measured with
+ * the manifest's metrics enabled, to show what keeping them costs.
+ * <p>
+ * Usage: <code>ManifestBenchmarks [options]</code>, the options being
+ * <ul>
+ * <li><code>-stacks 100,10000</code> the numbers of stacks</li>
+ * <li><code>-heights 5,20</code> the maximum heights</li>
+ * <li><code>-fills 10,50,90</code> how full the ship is, in percent (below 100)</li>
+ * <li><code>-only whichStack,howHigh</code> the benchmarks to run, all by default</li>
+ * <li><code>-metrics off|on|both</code> whether the manifest's metrics are enabled, off by default; with
+ * <code>both</code> each result is measured either way and the overhead printed</li>
+ * <li><code>-warmup 3 -iterations 5 -time 200</code> the iterations, and their length in milliseconds</li>
+ * <li><code>-out results.json</code> where to save the results</li>
+ * <li><code>-baseline earlier.json -threshold 10</code> the run to compare with, and the slowdown in percent
+ * reported as a regression</li>
+ * </ul>
+ *
+ * @author Leandro Rodrigues & Brendan Rothwell n8540683
+ * @version 1.0
+ */
+public class ManifestBenchmarks {
+	// Number of operations in a batch of a manifest operation, unless the ship has fewer containers or slots left
+	private static final int BATCH_SIZE = 256;
+	// First code used for the containers
+	private static final String FIRST_CODE = "INKU2633836";
+	private static final String PREFIX = ManifestBenchmarks.class.getName() + ".";
+
+	/**
+	 * Runs the suite and prints each result as it is measured.
+	 *
+	 * @param args the options described above
+	 * @throws Exception if a workload fails or the results cannot be saved
+	 */
+	public static void main(String[] args) throws Exception {
+		int[] stacks = { 100, 10000 };
+		int[] heights = { 5, 20 };
+		int[] fills = { 10, 50, 90 };
+		String only = null;
+		String metrics = "off";
+		int warmup = 3;
+		int iterations = 5;
+		long time = 200;
+		Path out = Paths.get("benchmark-results.json");
+		Path baseline = null;
+		double threshold = 10;
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			String value = args[i + 1];
+			if(args[i].equals("-stacks"))
+				stacks = parseList(value);
+			else if(args[i].equals("-heights"))
+				heights = parseList(value);
+			else if(args[i].equals("-fills"))
+				fills = parseList(value);
+			else if(args[i].equals("-only"))
+				only = "," + value + ",";
+			else if(args[i].equals("-metrics"))
+				metrics = value;
+			else if(args[i].equals("-warmup"))
+				warmup = Integer.parseInt(value);
+			else if(args[i].equals("-iterations"))
+				iterations = Integer.parseInt(value);
+			else if(args[i].equals("-time"))
+				time = Long.parseLong(value);
+			else if(args[i].equals("-out"))
+				out = Paths.get(value);
+			else if(args[i].equals("-baseline"))
+				baseline = Paths.get(value);
+			else if(args[i].equals("-threshold"))
+				threshold = Double.parseDouble(value);
+			else
+				throw new IllegalArgumentException("Unknown option " + args[i]);
+		}
+		for (int fill : fills)
+			if(fill <= 0 || fill >= 100)
+				throw new IllegalArgumentException("Fill levels must be between 1 and 99 percent");
+		if(!metrics.equals("off") && !metrics.equals("on") && !metrics.equals("both"))
+			throw new IllegalArgumentException("Metrics must be off, on or both");
+
+		Workload[] workloads = { new LoadWorkload(), new UnloadWorkload(), new LookupWorkload(false),
+				new LookupWorkload(true), new ToArrayWorkload(), new ToStringWorkload(), new CodeWorkload() };
+		BenchmarkHarness harness = new BenchmarkHarness(warmup, iterations, time);
+		List<BenchmarkHarness.Result> results = new ArrayList<BenchmarkHarness.Result>();
+		long sink = 0;
+		for (Workload workload : workloads) {
+			if(only != null && !only.contains("," + workload.getName().substring(PREFIX.length()) + ","))
+				continue;
+			if(!workload.isParameterized()) {
+				results.add(print(harness.measure(workload, 0, 0, 0)));
+				sink += workload.getSink();
+				continue;
+			}
+			ShipWorkload ship = (ShipWorkload) workload;
+			for (int numStacks : stacks)
+				for (int maxHeight : heights)
+					for (int fill : fills) {
+						BenchmarkHarness.Result without = null;
+						if(!metrics.equals("on")) {
+							ship.metricsEnabled = false;
+							without = harness.measure(workload, numStacks, maxHeight, fill);
+							// The parameter is only named when metrics are measured, so results compare with earlier runs
+							if(metrics.equals("both"))
+								without.getParams().put("metrics", "off");
+							results.add(print(without));
+						}
+						if(!metrics.equals("off")) {
+							ship.metricsEnabled = true;
+							BenchmarkHarness.Result with = harness.measure(workload, numStacks, maxHeight, fill);
+							with.getParams().put("metrics", "on");
+							results.add(print(with));
+							if(without != null)
+								System.out.printf("%-16s %-40s %+11.1f%% metrics overhead%n", "", "",
+										(with.getScore() - without.getScore()) / without.getScore() * 100);
+						}
+					}
+			sink += workload.getSink();
+		}
+		try (Writer writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+			harness.writeJson(results, writer);
+		}
+		System.out.println("Results saved to " + out);
+		// Printed so the work above cannot be optimised away
+		System.out.println("checksum " + sink);
+
+		if(baseline != null && compare(results, baseline, threshold) > 0)
+			System.exit(1);
+	}
+
+	/*
+	 * Helper Function to print a result as it is measured, then return it
+	 */
+	private static BenchmarkHarness.Result print(BenchmarkHarness.Result result) {
+		Map<String, String> params = result.getParams();
+		System.out.printf("%-16s %-40s %12.1f +- %8.1f ns/op%n", result.getBenchmark().substring(PREFIX.length()),
+				params.isEmpty() ? "" : params.toString(), result.getScore(), result.getError());
+		return result;
+	}
+
+	/*
+	 * Helper Function to compare results with those of an earlier run, printing and counting the regressions
+	 */
+	private static int compare(List<BenchmarkHarness.Result> results, Path baseline, double threshold)
+			throws IOException {
+		Map<String, Double> earlier = BenchmarkHarness.readScores(baseline);
+		int regressions = 0;
+		for (BenchmarkHarness.Result result : results) {
+			Double before = earlier.get(result.getKey());
+			if(before == null)
+				continue;
+			double change = (result.getScore() - before) / before * 100;
+			if(change > threshold) {
+				System.out.printf("REGRESSION %s: %.1f -> %.1f ns/op (%+.1f%%)%n", result.getKey(), before,
+						result.getScore(), change);
+				regressions++;
+			}
+		}
+		System.out.println(regressions + " regressions against " + baseline);
+		return regressions;
+	}
+
+	/*
+	 * Helper Function to read a list of numbers separated by commas
+	 */
+	private static int[] parseList(String value) {
+		String[] parts = value.split(",");
+		int[] numbers = new int[parts.length];
+		for (int i = 0; i < parts.length; i++)
+			numbers[i] = Integer.parseInt(parts[i].trim());
+		return numbers;
+	}
+
+	/*
+	 * Helper Function to create general goods containers with consecutive codes
+	 */
+	private static FreightContainer[] createContainers(long firstKey, int count) throws CargoException {
+		FreightContainer[] containers = new FreightContainer[count];
+		for (int i = 0; i < count; i++)
+			containers[i] = new GeneralGoodsContainer(ContainerCode.fromKey(firstKey + i), 4 + i % 27);
+		return containers;
+	}
+
+	/*
+	 * A ship filled to the given level, and containers which can be loaded onto the slots left
+	 */
+	private abstract static class ShipWorkload extends Workload {
+		protected CargoManifest cargo;
+		// The containers on board, in the order they were loaded, and those left over
+		protected FreightContainer[] onBoard;
+		protected FreightContainer[] spare;
+		protected int batch;
+		// Whether the next ship set up keeps metrics
+		boolean metricsEnabled;
+
+		ShipWorkload(String name) {
+			super(PREFIX + name, true);
+		}
+
+		@Override
+		public void setUp(int numStacks, int maxHeight, int fillPercent) throws CargoException {
+			int slots = numStacks * maxHeight;
+			int filled = (int) ((long) slots * fillPercent / 100);
+			long firstKey = new ContainerCode(FIRST_CODE).toKey();
+			cargo = new CargoManifest(numStacks, maxHeight, Integer.MAX_VALUE);
+			if(metricsEnabled)
+				cargo.enableMetrics();
+			onBoard = createContainers(firstKey, filled);
+			spare = createContainers(firstKey + filled, Math.min(BATCH_SIZE, slots - filled));
+			for (FreightContainer container : onBoard)
+				cargo.loadContainer(container);
+		}
+	}
+
+	/*
+	 * Loads a batch of containers, which the next preparation unloads again
+	 */
+	private static class LoadWorkload extends ShipWorkload {
+		private int loaded;
+
+		LoadWorkload() {
+			super("loadContainer");
+		}
+
+		@Override
+		public void setUp(int numStacks, int maxHeight, int fillPercent) throws CargoException {
+			super.setUp(numStacks, maxHeight, fillPercent);
+			loaded = 0;
+		}
+
+		@Override
+		public void prepare() throws CargoException {
+			// Each container loaded last is on top of its stack
+			for (int i = loaded - 1; i >= 0; i--)
+				cargo.unloadContainer(spare[i].getCode());
+			loaded = 0;
+		}
+
+		@Override
+		public int run() throws CargoException {
+			for (FreightContainer container : spare)
+				cargo.loadContainer(container);
+			loaded = spare.length;
+			return spare.length;
+		}
+	}
+
+	/*
+	 * Unloads a batch of the containers loaded last, which the next preparation loads again into the same places
+	 */
+	private static class UnloadWorkload extends ShipWorkload {
+		private int unloaded;
+
+		UnloadWorkload() {
+			super("unloadContainer");
+		}
+
+		@Override
+		public void setUp(int numStacks, int maxHeight, int fillPercent) throws CargoException {
+			super.setUp(numStacks, maxHeight, fillPercent);
+			unloaded = 0;
+			batch = Math.min(BATCH_SIZE, onBoard.length);
+		}
+
+		@Override
+		public void prepare() throws CargoException {
+			for (int i = onBoard.length - unloaded; i < onBoard.length; i++)
+				cargo.loadContainer(onBoard[i]);
+			unloaded = 0;
+		}
+
+		@Override
+		public int run() throws CargoException {
+			for (int i = onBoard.length - 1; i >= onBoard.length - batch; i--)
+				cargo.unloadContainer(onBoard[i].getCode());
+			unloaded = batch;
+			return batch;
+		}
+	}
+
+	/*
+	 * Looks up which stack, or how high, containers on board are, in a scattered order
+	 */
+	private static class LookupWorkload extends ShipWorkload {
+		private final boolean howHigh;
+		private ContainerCode[] codes;
+		private int next;
+
+		LookupWorkload(boolean howHigh) {
+			super(howHigh ? "howHigh" : "whichStack");
+			this.howHigh = howHigh;
+		}
+
+		@Override
+		public void setUp(int numStacks, int maxHeight, int fillPercent) throws CargoException {
+			super.setUp(numStacks, maxHeight, fillPercent);
+			// Visits every container once, jumping by a large prime so neighbours in memory are not looked up together
+			codes = new ContainerCode[onBoard.length];
+			for (int i = 0; i < codes.length; i++)
+				codes[i] = onBoard[(int) ((i * 1000003L) % codes.length)].getCode();
+			next = 0;
+		}
+
+		@Override
+		public int run() {
+			for (int i = 0; i < BATCH_SIZE; i++) {
+				ContainerCode code = codes[next];
+				next = next + 1 == codes.length ? 0 : next + 1;
+				sink += howHigh ? cargo.howHigh(code) : cargo.whichStack(code);
+			}
+			return BATCH_SIZE;
+		}
+	}
+
+	/*
+	 * Copies the stacks one after another
+	 */
+	private static class ToArrayWorkload extends ShipWorkload {
+		private int next;
+
+		ToArrayWorkload() {
+			super("toArray");
+		}
+
+		@Override
+		public int run() throws CargoException {
+			int numStacks = cargo.getNumStacks();
+			for (int i = 0; i < BATCH_SIZE; i++) {
+				sink += cargo.toArray(next).length;
+				next = next + 1 == numStacks ? 0 : next + 1;
+			}
+			return BATCH_SIZE;
+		}
+	}
+
+	/*
+	 * Prints the whole manifest
+	 */
+	private static class ToStringWorkload extends ShipWorkload {
+		ToStringWorkload() {
+			super("toString");
+		}
+
+		@Override
+		public int run() {
+			sink += cargo.toString().length();
+			return 1;
+		}
+	}
+
+	/*
+	 * Creates container codes from text, which does not depend on the ship
+	 */
+	private static class CodeWorkload extends Workload {
+		private String[] texts;
+
+		CodeWorkload() {
+			super(PREFIX + "newContainerCode", false);
+		}
+
+		@Override
+		public void setUp(int numStacks, int maxHeight, int fillPercent) throws CargoException {
+			long firstKey = new ContainerCode(FIRST_CODE).toKey();
+			texts = new String[BATCH_SIZE];
+			for (int i = 0; i < texts.length; i++)
+				texts[i] = ContainerCode.fromKey(firstKey + i * 7919L).toString();
+		}
+
+		@Override
+		public int run() throws CargoException {
+			for (String text : texts)
+				sink += new ContainerCode(text).toKey();
+			return texts.length;
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package asgn2Benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import asgn2Codes.ContainerCode;
+import asgn2Containers.DangerousGoodsContainer;
+import asgn2Containers.FreightContainer;
+import asgn2Containers.GeneralGoodsContainer;
+import asgn2Containers.RefrigeratedContainer;
+import asgn2Exceptions.CargoException;
+import asgn2Manifests.CargoManifest;
+import asgn2Manifests.ManifestSnapshot;
+import asgn2Manifests.MappedManifest;
+
+/**
+ * Measures how long it takes to save a full manifest to a
+ * {@link ManifestSnapshot} file and to restore it again.  The default ship
+ * holds 100,000 containers.  Each save includes forcing the file to disk.
+ * It then compares opening the same file as a {@link MappedManifest},
+ * reading one stack from it and making the first lookup of a code, which
+ * indexes every code in the file.
+ * <p>
+ * Usage: <code>SnapshotBenchmark [numStacks] [maxHeight] [rounds]</code>
+ *
+ * @author Leandro Rodrigues & Brendan Rothwell n8540683
+ * @version 1.0
+ */
+public class SnapshotBenchmark {
+	private static final int WARMUP_ROUNDS = 5;
+
+	/**
+	 * Runs the benchmark and prints the time per save and per restore.
+	 *
+	 * @param args optional number of stacks, maximum height and number of measured rounds
+	 * @throws CargoException if the manifest used for the benchmark cannot be filled or restored
+	 * @throws IOException if the snapshot file cannot be written or read
+	 */
+	public static void main(String[] args) throws CargoException, IOException {
+		int numStacks = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int maxHeight = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+		CargoManifest cargo = createFullManifest(numStacks, maxHeight);
+		Path file = Files.createTempFile("manifest", ".snapshot");
+		long checksum = 0;
+		try {
+			// Lets the JIT compiler settle before measuring
+			for (int i = 0; i < WARMUP_ROUNDS; i++) {
+				ManifestSnapshot.save(cargo, file);
+				checksum += ManifestSnapshot.load(file).getTotalWeight();
+			}
+
+			long start = System.nanoTime();
+			for (int i = 0; i < rounds; i++)
+				ManifestSnapshot.save(cargo, file);
+			long saveNanos = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int i = 0; i < rounds; i++)
+				checksum += ManifestSnapshot.load(file).getTotalWeight();
+			long loadNanos = System.nanoTime() - start;
+
+			// Opens the file mapped, reads the last stack and looks up its top container
+			long openNanos = 0;
+			long stackNanos = 0;
+			long lookupNanos = 0;
+			ContainerCode top = cargo.toArray(numStacks - 1)[maxHeight - 1].getCode();
+			for (int i = 0; i < rounds; i++) {
+				start = System.nanoTime();
+				MappedManifest mapped = MappedManifest.open(file);
+				long opened = System.nanoTime();
+				checksum += mapped.toArray(numStacks - 1).length;
+				long read = System.nanoTime();
+				checksum += mapped.howHigh(top);
+				lookupNanos += System.nanoTime() - read;
+				stackNanos += read - opened;
+				openNanos += opened - start;
+			}
+
+			System.out.printf("%d stacks x %d high, %d containers, %d bytes, %d rounds%n", numStacks, maxHeight,
+					numStacks * maxHeight, Files.size(file), rounds);
+			System.out.printf("save    : %8.2f ms%n", saveNanos / 1e6 / rounds);
+			System.out.printf("restore : %8.2f ms%n", loadNanos / 1e6 / rounds);
+			System.out.printf("mapped open         : %8.3f ms%n", openNanos / 1e6 / rounds);
+			System.out.printf("mapped stack read   : %8.3f ms%n", stackNanos / 1e6 / rounds);
+			System.out.printf("mapped first lookup : %8.3f ms%n", lookupNanos / 1e6 / rounds);
+			// Printed so the work above cannot be optimised away
+			System.out.println("checksum " + checksum);
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	/*
+	 * Helper Function to fill every stack of a new manifest, the stacks taking turns between the three types
+	 */
+	private static CargoManifest createFullManifest(int numStacks, int maxHeight) throws CargoException {
+		CargoManifest cargo = new CargoManifest(numStacks, maxHeight, Integer.MAX_VALUE);
+		long key = new ContainerCode("INKU2633836").toKey();
+		for (int i = 0; i < numStacks; i++)
+			for (int j = 0; j < maxHeight; j++) {
+				ContainerCode code = ContainerCode.fromKey(key++);
+				FreightContainer container;
+				if (i % 3 == 0)
+					container = new GeneralGoodsContainer(code, 4 + j);
+				else if (i % 3 == 1)
+					container = new RefrigeratedContainer(code, 4 + j, -5);
+				else
+					container = new DangerousGoodsContainer(code, 4 + j, 3);
+				cargo.loadContainer(container);
+			}
+		return cargo;
+	}
+}
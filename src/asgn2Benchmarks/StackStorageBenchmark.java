@@ -0,0 +1,120 @@
+package asgn2Benchmarks;
+
+import java.util.ArrayList;
+import java.util.Stack;
+
+import asgn2Codes.ContainerCode;
+import asgn2Containers.FreightContainer;
+import asgn2Containers.GeneralGoodsContainer;
+import asgn2Exceptions.CargoException;
+import asgn2Manifests.CargoManifest;
+
+/**
+ * Compares a {@link CargoManifest}, whose stacks are kept in arrays of
+ * fixed height, with the <code>ArrayList</code> of
+ * <code>java.util.Stack</code> that cargo manifests used to be built on.
+ * Each round fills every stack to its maximum height, reads every stack,
+ * and then empties the ship from the top of each stack, which is the
+ * access pattern of loading, displaying and unloading a full manifest.
+ * The manifest also checks the captain's rules and keeps its index of
+ * codes, so its time is an upper bound on the cost of its storage.
+ * <p>
+ * Usage: <code>StackStorageBenchmark [numStacks] [maxHeight] [rounds]</code>
+ * 
+ * @author Leandro Rodrigues & Brendan Rothwell n8540683
+ * @version 1.0
+ */
+public class StackStorageBenchmark {
+	private static final int WARMUP_ROUNDS = 20;
+
+	/**
+	 * Runs the comparison and prints the time per container for each storage.
+	 * 
+	 * @param args optional number of stacks, maximum height and number of measured rounds
+	 * @throws CargoException if the containers used for the benchmark cannot be created or loaded
+	 */
+	public static void main(String[] args) throws CargoException {
+		int numStacks = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int maxHeight = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+
+		FreightContainer[] containers = createContainers(numStacks * maxHeight);
+		long checksum = 0;
+
+		// Lets the JIT compiler settle before measuring
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			checksum += vectorRound(containers, numStacks, maxHeight);
+			checksum += manifestRound(containers, numStacks, maxHeight);
+		}
+
+		long start = System.nanoTime();
+		for (int i = 0; i < rounds; i++)
+			checksum += vectorRound(containers, numStacks, maxHeight);
+		long vectorNanos = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int i = 0; i < rounds; i++)
+			checksum += manifestRound(containers, numStacks, maxHeight);
+		long manifestNanos = System.nanoTime() - start;
+
+		double operations = (double) rounds * containers.length;
+		System.out.printf("%d stacks x %d high, %d rounds%n", numStacks, maxHeight, rounds);
+		System.out.printf("java.util.Stack : %8.2f ns/container%n", vectorNanos / operations);
+		System.out.printf("CargoManifest   : %8.2f ns/container%n", manifestNanos / operations);
+		// Printed so the work above cannot be optimised away
+		System.out.println("checksum " + checksum);
+	}
+
+	/*
+	 * Helper Function to create general containers with consecutive codes
+	 */
+	private static FreightContainer[] createContainers(int count) throws CargoException {
+		FreightContainer[] containers = new FreightContainer[count];
+		long firstKey = new ContainerCode("INKU2633836").toKey();
+		for (int i = 0; i < count; i++)
+			containers[i] = new GeneralGoodsContainer(ContainerCode.fromKey(firstKey + i), 4 + i % 27);
+		return containers;
+	}
+
+	/*
+	 * One round on the old storage, an ArrayList of java.util.Stack
+	 */
+	private static long vectorRound(FreightContainer[] containers, int numStacks, int maxHeight) {
+		ArrayList<Stack<FreightContainer>> stacks = new ArrayList<Stack<FreightContainer>>();
+		for (int i = 0; i < numStacks; i++)
+			stacks.add(new Stack<FreightContainer>());
+		long sum = 0;
+		for (int i = 0; i < containers.length; i++)
+			stacks.get(i / maxHeight).push(containers[i]);
+		for (int i = 0; i < numStacks; i++)
+			for (int j = 0; j < stacks.get(i).size(); j++)
+				sum += stacks.get(i).elementAt(j).getGrossWeight();
+		for (int i = 0; i < numStacks; i++)
+			while (!stacks.get(i).isEmpty())
+				sum += stacks.get(i).pop().getGrossWeight();
+		return sum;
+	}
+
+	/*
+	 * One round on a cargo manifest, whose stacks are arrays of fixed height
+	 */
+	private static long manifestRound(FreightContainer[] containers, int numStacks, int maxHeight)
+			throws CargoException {
+		CargoManifest cargo = new CargoManifest(numStacks, maxHeight, Integer.MAX_VALUE);
+		long sum = 0;
+		for (FreightContainer container : containers)
+			cargo.loadContainer(container);
+		FreightContainer[][] stacks = new FreightContainer[numStacks][];
+		for (int i = 0; i < numStacks; i++) {
+			stacks[i] = cargo.toArray(i);
+			for (FreightContainer container : stacks[i])
+				sum += container.getGrossWeight();
+		}
+		for (int i = 0; i < numStacks; i++)
+			for (int j = stacks[i].length - 1; j >= 0; j--) {
+				cargo.unloadContainer(stacks[i][j].getCode());
+				sum += stacks[i][j].getGrossWeight();
+			}
+		return sum;
+	}
+}
@@ -0,0 +1,91 @@
+package asgn2Benchmarks;
+
+import asgn2Exceptions.CargoException;
+
+/**
+ * One operation measured by a {@link BenchmarkHarness}.  The harness sets
+ * the workload up for each combination of parameters, then repeatedly
+ * prepares it, which is not timed, and runs a batch of the operation,
+ * which is.  A batch should be long enough for the clock to time it
+ * accurately, and prepare should undo whatever the last batch changed, so
+ * every batch starts from the same state.
+ *
+ * @author Leandro Rodrigues & Brendan Rothwell n8540683
+ * @version 1.0
+ */
+public abstract class Workload {
+	private final String name;
+	private final boolean parameterized;
+	/**
+	 * Workloads add the results of their operations here, so the work
+	 * cannot be optimised away
+	 */
+	protected long sink;
+
+	/**
+	 * Constructs a workload.
+	 *
+	 * @param name the name the results are reported under
+	 * @param parameterized whether the workload depends on the size and
+	 * fill level of the ship, or is measured once only
+	 */
+	protected Workload(String name, boolean parameterized) {
+		this.name = name;
+		this.parameterized = parameterized;
+		sink = 0;
+	}
+
+	/**
+	 * Returns the name the results are reported under.
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns whether the workload depends on the size and fill level of the
+	 * ship.
+	 *
+	 * @return true if it is measured for every combination of parameters
+	 */
+	public boolean isParameterized() {
+		return parameterized;
+	}
+
+	/**
+	 * Returns the sum of the results of every operation run so far.
+	 *
+	 * @return the sum
+	 */
+	public long getSink() {
+		return sink;
+	}
+
+	/**
+	 * Sets the workload up for a combination of parameters.
+	 *
+	 * @param numStacks the number of stacks on the ship
+	 * @param maxHeight the maximum height of a stack
+	 * @param fillPercent the percentage of the ship's slots holding a container
+	 * @throws CargoException if the ship cannot be set up
+	 */
+	public abstract void setUp(int numStacks, int maxHeight, int fillPercent) throws CargoException;
+
+	/**
+	 * Restores the state the next batch starts from.  This is not timed.
+	 *
+	 * @throws CargoException if the state cannot be restored
+	 */
+	public void prepare() throws CargoException {
+	}
+
+	/**
+	 * Runs a batch of the operation.  This is timed.
+	 *
+	 * @return the number of operations run
+	 * @throws CargoException if an operation fails
+	 */
+	public abstract int run() throws CargoException;
+}
@@ -73,13 +73,40 @@ import asgn2Exceptions.InvalidCodeException;
  * The check digit is then the least-sigificant digit in the number 91,
  * i.e., '<code>1</code>', thus confirming that container code 
  * <code>MSCU6639871</code> is valid.
+ * <p>
+ * <strong>Packed keys:</strong> since the category identifier is fixed and
+ * the check digit is derived, a code is fully determined by its owner code
+ * and serial number.  Each code therefore also has a packed
+ * <code>long</code> key, the owner code read as a base-26 number times one
+ * million plus the serial number.  Keys sort in the same order as the codes
+ * themselves and can be converted back with {@link #fromKey(long)}.
  * 
  * @author Leandro Rodrigues n9382909 
  * @version 1.0
  */ 
-public class ContainerCode {
+public class ContainerCode implements Comparable<ContainerCode> {
+
+	// Results of validating a code. Negative values give the index of the message describing what is wrong with it
+	private static final int WRONG_LENGTH = -1;
+	private static final int WRONG_OWNER_CODE = -2;
+	private static final int WRONG_CATEGORY = -3;
+	private static final int WRONG_SERIAL_NUMBER = -4;
+	private static final int WRONG_CHECK_DIGIT = -5;
+	private static final String[] MESSAGES = {
+		null,
+		"Code is not eleven characters long",
+		"Owner Code does not consist of three upper-case letters",
+		"Category Identifier is not 'U",
+		"Serial Number does not consist of six digits",
+		"Check Digit is incorrect"
+	};
+
+	// Number of different serial numbers, and number of different packed keys
+	private static final long SERIALS = 1000000L;
+	private static final long KEYS = 26L * 26L * 26L * SERIALS;
 
 	private String code;
+	private long key;
 	
 	/**
 	 * Constructs a new container code.
@@ -91,61 +118,139 @@ public class ContainerCode {
 	 * of six digits; or if the Check Digit is incorrect.
 	 */
 	public ContainerCode(String code) throws InvalidCodeException {
-		checkCode(code);
+		long key = pack(code);
+		if(key < 0)
+			throw new InvalidCodeException(MESSAGES[(int) -key]);
 		//If no exception is thrown and the program is still running, store the code into the object
 		this.code = code;
+		this.key = key;
+	}
+	
+	/*
+	 * Constructs a container code from a string which has already been validated, and its packed key
+	 */
+	private ContainerCode(String code, long key) {
+		this.code = code;
+		this.key = key;
+	}
+	
+	/**
+	 * Parses a container code without throwing an exception when it is
+	 * invalid.  Intended for bulk input, such as scanner feeds, in which
+	 * bad reads are routine.
+	 * 
+	 * @param code the container code as a sequence of characters
+	 * @return the container code, or <code>null</code> if the given
+	 * characters are not a valid container code
+	 */
+	public static ContainerCode tryParse(CharSequence code) {
+		long key = pack(code);
+		if(key < 0)
+			return null;
+		return new ContainerCode(code.toString(), key);
+	}
+	
+	/**
+	 * Rebuilds a container code from its packed key.
+	 * 
+	 * @param key a packed key, as returned by {@link #toKey()}
+	 * @return the container code with that key
+	 * @throws InvalidCodeException if the key is not the key of any container code
+	 */
+	public static ContainerCode fromKey(long key) throws InvalidCodeException {
+		if(key < 0 || key >= KEYS)
+			throw new InvalidCodeException("Key does not belong to any container code");
+		char[] chars = new char[11];
+		int owner = (int) (key / SERIALS);
+		int serial = (int) (key % SERIALS);
+		int sum = 'U' - 'A';
+		//Owner code letters, from the last one backwards
+		for (int i = 2; i >= 0; i--) {
+			chars[i] = (char) ('A' + owner % 26);
+			sum += owner % 26;
+			owner /= 26;
+		}
+		chars[3] = 'U';
+		//Serial number digits, from the last one backwards
+		for (int i = 9; i >= 4; i--) {
+			chars[i] = (char) ('0' + serial % 10);
+			sum += serial % 10;
+			serial /= 10;
+		}
+		chars[10] = (char) ('0' + sum % 10);
+		return new ContainerCode(new String(chars), key);
+	}
+	
+	/**
+	 * Checks whether a sequence of characters is a valid container code,
+	 * without creating any objects.
+	 * 
+	 * @param code the container code as a sequence of characters
+	 * @return true if the characters are a valid container code
+	 */
+	public static boolean isValid(CharSequence code) {
+		return pack(code) >= 0;
 	}
 	
 	/**
-	 * Check if a given container code is valid
+	 * Returns the packed key of a sequence of characters, without creating
+	 * any objects.
 	 * 
-	 * @param code the container code as a string to be checked
-	 * @return true if is a valid container code
-	 * @throws InvalidCodeException when is a invalid container code
+	 * @param code the container code as a sequence of characters
+	 * @return the packed key of the code, or -1 if the characters are not
+	 * a valid container code
+	 */
+	public static long keyOf(CharSequence code) {
+		long key = pack(code);
+		return key < 0 ? -1 : key;
+	}
+	
+	/*
+	 * Validates a container code in a single pass over its characters, adding up the value of each
+	 * character as it goes so the check digit can be verified at the end, and packing the owner code
+	 * and serial number into a key.
+	 * Returns the key, or the first problem found (negative), in the order owner code, category, serial number, check digit
 	 */
-	private void checkCode(String code) throws InvalidCodeException{
+	private static long pack(CharSequence code){
 		//Check if code length is different than 11
-		if(code.length() != 11)
-			throw new InvalidCodeException("Code is not eleven characters long");
-		//Check if owner code digits (First three digits) are upper-case letters
-		if(!(Character.isUpperCase(code.charAt(0)) && Character.isUpperCase(code.charAt(1)) && Character.isUpperCase(code.charAt(2))))
-			throw new InvalidCodeException("Owner Code does not consist of three upper-case letters");
+		if(code == null || code.length() != 11)
+			return WRONG_LENGTH;
+		int sum = 0;
+		long key = 0;
+		//Check if owner code digits (First three digits) are upper-case letters, 'A' to 'Z' count as 0 to 25
+		for (int i = 0; i < 3; i++) {
+			char c = code.charAt(i);
+			if(c < 'A' || c > 'Z')
+				return WRONG_OWNER_CODE;
+			sum += c - 'A';
+			key = key * 26 + (c - 'A');
+		}
 		//Check if category identifier is equal to U
 		if(code.charAt(3) != 'U')
-			throw new InvalidCodeException("Category Identifier is not 'U");
+			return WRONG_CATEGORY;
+		sum += 'U' - 'A';
 		//Check if serial number only contains numeric digits
-		if(!code.substring(4, 10).matches("[0-9]+"))
-			throw new InvalidCodeException("Serial Number does not consist of six digits");
-		//Check if check digit is valid
-		if(calculateCheckDigit(code) != Character.getNumericValue(code.charAt(10)))
-			throw new InvalidCodeException("Check Digit is incorrect");
+		for (int i = 4; i < 10; i++) {
+			char c = code.charAt(i);
+			if(c < '0' || c > '9')
+				return WRONG_SERIAL_NUMBER;
+			sum += c - '0';
+			key = key * 10 + (c - '0');
+		}
+		//Check if check digit is the least-significant digit of the sum
+		if(code.charAt(10) != '0' + sum % 10)
+			return WRONG_CHECK_DIGIT;
+		return key;
 	}
 	
 	/**
-	 * Calculate check digit for a given container code
+	 * Returns the packed key of this code.  Keys of different codes are
+	 * different, and compare in the same order as the codes.
 	 * 
-	 * @param code the container code as a string to calculate the check digit
-	 * @return int calculated check digit
+	 * @return the packed key
 	 */
-	private int calculateCheckDigit(String code){
-		int sum = 0;
-		//Iterates through the code, excluding the last digit
-		for (int i = 0; i < code.length()-1; i++) {
-			//Get char at actual position and convert to a string
-			String actualCharacter = code.charAt(i)+"";
-			//Check if string  is a number
-	        if (actualCharacter.matches("[0-9]"))
-	        	//If is a number convert to a integer and add it to sum variable
-	        	sum = sum + Integer.parseInt(actualCharacter);
-	        else{
-	        	//If is not a number, convert to lower case and get the letter numeric position within the alphabet
-	        	int charNumericValue = actualCharacter.toLowerCase().charAt(0) - 97;
-	        	//Add its numeric position to sum variable
-	        	sum = sum + charNumericValue;
-	        }
-	    }
-		//Return  least-significant digit in the number
-		return (sum % 10);
+	public long toKey() {
+		return this.key;
 	}
 	
 	/* (non-Javadoc)
@@ -167,11 +272,35 @@ public class ContainerCode {
 	 */
 	@Override
 	public boolean equals(Object obj) {
-		//Verify if object is an instance of Container code and if it has the same code
-		if (obj instanceof ContainerCode && this.code.equals(obj.toString()))
+		//Verify if object is an instance of Container code and if it has the same code, codes are equal when their keys are
+		if (obj instanceof ContainerCode && this.key == ((ContainerCode) obj).key)
 			return true;
 		else
 			return false;
 	}
+
+	/**
+	 * Returns a hash code for this container code, consistent with
+	 * <code>equals</code> so that codes can be used as keys in hash-based
+	 * collections.
+	 *
+	 * @return the hash code of the code's packed key
+	 */
+	@Override
+	public int hashCode() {
+		return (int) (this.key ^ (this.key >>> 32));
+	}
+
+	/**
+	 * Compares this code with another in the order of their string values.
+	 * 
+	 * @param other the code to compare with
+	 * @return a negative number, zero or a positive number as this code
+	 * comes before, is equal to or comes after the other code
+	 */
+	@Override
+	public int compareTo(ContainerCode other) {
+		return this.key < other.key ? -1 : (this.key == other.key ? 0 : 1);
+	}
 }
 
@@ -0,0 +1,24 @@
+package asgn2Containers;
+
+/**
+ * The types of freight container that can be carried on board.  Since
+ * stacks of containers must be homogeneous, the type of a container
+ * decides which stacks it may be loaded onto.
+ * 
+ * @author Leandro Rodrigues n9382909
+ * @version 1.0
+ */
+public enum ContainerType {
+	/**
+	 * A general-purpose, or "dry", container
+	 */
+	GENERAL,
+	/**
+	 * A refrigerated container for perishable goods
+	 */
+	REFRIGERATED,
+	/**
+	 * A tank container for dangerous goods
+	 */
+	DANGEROUS_GOODS
+}
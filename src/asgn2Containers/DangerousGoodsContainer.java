@@ -76,4 +76,14 @@ public class DangerousGoodsContainer extends FreightContainer {
 	public Integer getCategory() {
 		return this.category;
 	}
+
+	/**
+	 * Returns the container's type.
+	 * 
+	 * @return {@link ContainerType#DANGEROUS_GOODS}
+	 */
+	@Override
+	public ContainerType getType() {
+		return ContainerType.DANGEROUS_GOODS;
+	}
 }
@@ -14,6 +14,15 @@ import asgn2Exceptions.InvalidContainerException;
  * @version 1.0
  */
 public abstract class FreightContainer {
+	/**
+	 * The lightest a container can be (its tare weight), in tonnes
+	 */
+	public static final int MIN_GROSS_WEIGHT = 4;
+	/**
+	 * The heaviest a container can be, in tonnes
+	 */
+	public static final int MAX_GROSS_WEIGHT = 30;
+
 	private ContainerCode code;
 	private Integer grossWeight;
 	
@@ -32,7 +41,7 @@ public abstract class FreightContainer {
 	 */
 	public FreightContainer(ContainerCode code, Integer grossWeight)
 	throws InvalidContainerException {
-		if(grossWeight < 4 || grossWeight > 30)
+		if(grossWeight < MIN_GROSS_WEIGHT || grossWeight > MAX_GROSS_WEIGHT)
 			throw new InvalidContainerException("Gross Weight invalid. Must be between 4 and 30");
 		else{
 			this.code = code;
@@ -58,5 +67,13 @@ public abstract class FreightContainer {
 		return this.grossWeight;
 	}
 
+	/**
+	 * Returns the container's type, which determines the stacks it may
+	 * share with other containers.
+	 * 
+	 * @return the type
+	 */
+	public abstract ContainerType getType();
+
 
 }
@@ -27,4 +27,14 @@ public class GeneralGoodsContainer extends FreightContainer {
 		super(code, grossWeight);
 	}
 
+	/**
+	 * Returns the container's type.
+	 * 
+	 * @return {@link ContainerType#GENERAL}
+	 */
+	@Override
+	public ContainerType getType() {
+		return ContainerType.GENERAL;
+	}
+
 }
@@ -37,6 +37,16 @@ public class RefrigeratedContainer extends FreightContainer {
 		this.temperature = temperature;
 	}
 
+	/**
+	 * Returns the container's type.
+	 * 
+	 * @return {@link ContainerType#REFRIGERATED}
+	 */
+	@Override
+	public ContainerType getType() {
+		return ContainerType.REFRIGERATED;
+	}
+
 	/**
 	 * Returns the temperature currently set on the container's thermostat.
 	 * (Whether this matches the actual temperature inside the container
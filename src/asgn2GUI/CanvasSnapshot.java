@@ -0,0 +1,47 @@
+package asgn2GUI;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+
+import asgn2Containers.ContainerType;
+import asgn2Containers.FreightContainer;
+
+/**
+ * Everything needed to draw part of a {@link CargoCanvas}: copies of the stacks in that part, and
+ * the zoom and highlighting at the time it was taken. A snapshot never changes, so it can be drawn
+ * on any thread while the manifest itself goes on changing on the event dispatch thread.
+ *
+ * @author Leandro Rodrigues n9382909
+ */
+final class CanvasSnapshot {
+
+    final double zoom;
+    final Map<ContainerType, BufferedImage[]> sprites;
+    final Font font;
+    final Color background;
+    final int maxHeight;
+    // Position of the highlighted container, stack -1 if none
+    final int foundStack;
+    final int foundTier;
+    // Stacks from firstStack on, each from the bottom of the stack, and their weights
+    final int firstStack;
+    final FreightContainer[][] stacks;
+    final int[] weights;
+
+    CanvasSnapshot(double zoom, Map<ContainerType, BufferedImage[]> sprites, Font font, Color background,
+            int maxHeight, int foundStack, int foundTier, int firstStack, FreightContainer[][] stacks,
+            int[] weights) {
+        this.zoom = zoom;
+        this.sprites = sprites;
+        this.font = font;
+        this.background = background;
+        this.maxHeight = maxHeight;
+        this.foundStack = foundStack;
+        this.foundTier = foundTier;
+        this.firstStack = firstStack;
+        this.stacks = stacks;
+        this.weights = weights;
+    }
+}
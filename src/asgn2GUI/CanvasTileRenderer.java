@@ -0,0 +1,206 @@
+package asgn2GUI;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Draws a {@link CargoCanvas} in square tiles on a pool of background threads, so that the event
+ * dispatch thread only ever copies finished tiles to the screen.
+ * <p>
+ * When a tile is needed, the stacks it shows are copied into a {@link CanvasSnapshot} on the
+ * event dispatch thread and the snapshot is drawn into an image by a worker. Until the image is
+ * ready a plain placeholder is shown. When the manifest changes, the tiles showing the change are
+ * marked out of date: they keep showing their old image until the new one is ready, and only
+ * tiles which come into view are ever drawn. The most recently used tiles are kept, up to a limit.
+ * <p>
+ * Apart from the workers' drawing, everything here runs on the event dispatch thread.
+ *
+ * @author Leandro Rodrigues n9382909
+ */
+class CanvasTileRenderer {
+
+    static final int TILE_SIZE = 256;
+    // Tiles kept at most, 256 tiles of 256x256 take 64MB
+    private static final int MAX_TILES = 256;
+    private static final Color PLACEHOLDER_COLOUR = new Color(0xEE, 0xEE, 0xEE);
+
+    /*
+     * A tile's latest image, whether the manifest has changed since it was drawn, and whether a worker is
+     * drawing it
+     */
+    private static class Tile {
+        BufferedImage image;
+        boolean stale;
+        boolean pending;
+    }
+
+    private final CargoCanvas canvas;
+    private final ExecutorService workers;
+    // Tiles by row and column, least recently used first
+    private final Map<Long, Tile> tiles;
+    // Changes whenever every tile is discarded, so drawings started before then are thrown away
+    private int generation;
+    private long tilesRendered;
+
+    /**
+     * Constructs a renderer for a canvas, with one worker for each processor.
+     *
+     * @param canvas the canvas to draw
+     */
+    CanvasTileRenderer(CargoCanvas canvas) {
+        this.canvas = canvas;
+        this.workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable task) {
+                        Thread worker = new Thread(task, "Cargo tile renderer");
+                        worker.setDaemon(true);
+                        return worker;
+                    }
+                });
+        this.tiles = new LinkedHashMap<Long, Tile>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Tile> eldest) {
+                return size() > MAX_TILES;
+            }
+        };
+    }
+
+    /**
+     * Copies the tiles in an area of the canvas, or placeholders for tiles not drawn yet, and
+     * starts drawing any which are missing or out of date.
+     *
+     * @param g the Graphics context to draw on
+     * @param clip the area being painted
+     */
+    void paint(Graphics g, Rectangle clip) {
+        int firstRow = Math.max(0, clip.y / TILE_SIZE);
+        int lastRow = (clip.y + clip.height - 1) / TILE_SIZE;
+        int firstColumn = Math.max(0, clip.x / TILE_SIZE);
+        int lastColumn = (clip.x + clip.width - 1) / TILE_SIZE;
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                Long key = ((long) row << 32) | column;
+                Tile tile = tiles.get(key);
+                if (tile == null) {
+                    tile = new Tile();
+                    tiles.put(key, tile);
+                }
+                int x = column * TILE_SIZE;
+                int y = row * TILE_SIZE;
+                if (tile.image != null) {
+                    g.drawImage(tile.image, x, y, null);
+                } else {
+                    g.setColor(PLACEHOLDER_COLOUR);
+                    g.fillRect(x, y, TILE_SIZE, TILE_SIZE);
+                }
+                if ((tile.image == null || tile.stale) && !tile.pending) {
+                    render(tile, new Rectangle(x, y, TILE_SIZE, TILE_SIZE));
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks the tiles in an area out of date, to be drawn again when next painted.
+     *
+     * @param area the area of the canvas which has changed
+     */
+    void invalidate(Rectangle area) {
+        int firstRow = Math.max(0, area.y / TILE_SIZE);
+        int lastRow = (area.y + area.height - 1) / TILE_SIZE;
+        int firstColumn = Math.max(0, area.x / TILE_SIZE);
+        int lastColumn = (area.x + area.width - 1) / TILE_SIZE;
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                Tile tile = tiles.get(((long) row << 32) | column);
+                if (tile != null) {
+                    tile.stale = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks every tile out of date, keeping their images until they are drawn again.
+     */
+    void invalidateAll() {
+        for (Tile tile : tiles.values()) {
+            tile.stale = true;
+        }
+    }
+
+    /**
+     * Discards every tile, for when the layout of the canvas changes, such as on a zoom.
+     */
+    void reset() {
+        generation++;
+        tiles.clear();
+    }
+
+    /**
+     * Stops the workers and discards every tile.
+     */
+    void shutdown() {
+        reset();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Returns how many tiles have been drawn and copied to the canvas.
+     *
+     * @return the number of tiles drawn
+     */
+    long getTilesRendered() {
+        return tilesRendered;
+    }
+
+    /*
+     * Copies what a tile shows and has a worker draw it, then puts the image in place and repaints the tile
+     * back on the event dispatch thread
+     */
+    private void render(final Tile tile, final Rectangle area) {
+        tile.pending = true;
+        tile.stale = false;
+        final int started = generation;
+        final CanvasSnapshot snapshot = canvas.snapshot(area);
+        workers.execute(new Runnable() {
+            @Override
+            public void run() {
+                final BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = image.createGraphics();
+                g.setColor(snapshot.background);
+                g.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
+                g.translate(-area.x, -area.y);
+                g.setClip(area);
+                CargoCanvas.paintSnapshot(g, area, snapshot);
+                g.dispose();
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        tile.pending = false;
+                        // A drawing from before every tile was discarded is out of date
+                        if (started != generation) {
+                            return;
+                        }
+                        tile.image = image;
+                        tilesRendered++;
+                        canvas.repaint(area);
+                    }
+                });
+            }
+        });
+    }
+}
@@ -1,31 +1,105 @@
 package asgn2GUI;
 
+import java.awt.BasicStroke;
 import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
+import java.awt.image.BufferedImage;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.swing.JPanel;
+import javax.swing.JViewport;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 
 import asgn2Codes.ContainerCode;
-import asgn2Containers.DangerousGoodsContainer;
+import asgn2Containers.ContainerType;
 import asgn2Containers.FreightContainer;
-import asgn2Containers.RefrigeratedContainer;
+import asgn2Exceptions.ManifestException;
 import asgn2Manifests.CargoManifest;
+import asgn2Manifests.ManifestEvent;
+import asgn2Manifests.ManifestListener;
 
 /**
  * Creates a JPanel in which graphical components are laid out to represent the cargo manifest.
+ * <p>
+ * Each stack is drawn as a row, nearest the bridge at the top, with its containers from the
+ * bottom of the stack on the left. A container is drawn by copying a ready-made image of its
+ * type and highlighting, then writing its code on it. The canvas listens to the manifest and
+ * repaints only the positions of the containers which changed, receiving the changes through a
+ * {@link ViewUpdateScheduler} so that a burst of them is handled at most once a frame.
+ * <p>
+ * The canvas can be zoomed, with the mouse wheel while holding Control or through
+ * {@link #setZoom(double)}, and only the stacks within the area being painted are ever drawn.
+ * Below {@link #DETAIL_ZOOM} the codes would be too small to read, so each stack is drawn
+ * instead as a single bar in its type's colour, as long as the stack is high, with a dark strip
+ * along its foot showing how heavy it is.
+ * <p>
+ * With {@link #setBackgroundRendering(boolean)} turned on, the canvas is drawn in tiles by
+ * background threads (see {@link CanvasTileRenderer}), so heavy drawing never holds up the
+ * buttons. Either way the drawing works from a {@link CanvasSnapshot} of the stacks concerned,
+ * copied while holding the manifest's lock since a {@link ManifestWorker} may be changing it.
  *
  * @author CAB302.
  */
-public class CargoCanvas extends JPanel {
+@SuppressWarnings("serial")
+public class CargoCanvas extends JPanel implements ManifestListener, ManifestView, Scrollable {
+
+    /**
+     * The smallest zoom at which individual containers are drawn
+     */
+    public static final double DETAIL_ZOOM = 0.5;
+    /**
+     * The smallest zoom the canvas allows
+     */
+    public static final double MIN_ZOOM = 0.01;
+    /**
+     * The largest zoom the canvas allows
+     */
+    public static final double MAX_ZOOM = 2.0;
+    private static final double ZOOM_STEP = 1.25;
 
     private static final int WIDTH = 120;
     private static final int HEIGHT = 50;
     private static final int HSPACE = 10;
     private static final int VSPACE = 20;
 
+    private static final Font CODE_FONT = new Font("Calibri", Font.BOLD, 14);
+    private static final Color GENERAL_COLOUR = new Color(0x8F, 0x8F, 0x8F);
+    private static final Color REFRIGERATED_COLOUR = new Color(0x4F, 0x8F, 0xD8);
+    private static final Color DANGEROUS_GOODS_COLOUR = new Color(0xD8, 0x4F, 0x4F);
+    private static final Color FOUND_COLOUR = Color.YELLOW;
+    private static final Color WEIGHT_COLOUR = new Color(0x30, 0x30, 0x30);
+    // Images of each type of container, [0] as normally drawn and [1] highlighted. They never
+    // change once made, so they are shared by every canvas
+    private static final Map<ContainerType, BufferedImage[]> SPRITES = createSprites(1.0);
+
     private final CargoManifest cargo;
+    // Passes the manifest's changes on at most once a frame
+    private final ViewUpdateScheduler updates;
 
     private ContainerCode toFind;
+    // Position of the highlighted container, stack -1 if none
+    private int foundStack = -1;
+    private int foundTier = -1;
+
+    private double zoom = 1.0;
+    // Container images and font at the current zoom, remade only when the zoom changes
+    private Map<ContainerType, BufferedImage[]> zoomedSprites = SPRITES;
+    private Font zoomedFont = CODE_FONT;
+    // Draws the canvas in the background, null when it is drawn directly
+    private CanvasTileRenderer tiles;
 
     /**
      * Constructor
@@ -36,6 +110,260 @@ public class CargoCanvas extends JPanel {
     public CargoCanvas(CargoManifest cargo) {
         this.cargo = cargo;
         setName("Canvas");
+        setBackground(Color.WHITE);
+        this.updates = new ViewUpdateScheduler(this);
+        cargo.addManifestListener(updates);
+        addMouseWheelListener(new MouseWheelListener() {
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                if (e.isControlDown()) {
+                    zoomAround(e.getPoint(), Math.pow(ZOOM_STEP, -e.getWheelRotation()));
+                } else if (getParent() != null) {
+                    // Without Control the wheel scrolls as usual, so the event is passed on to the scroll pane
+                    getParent().dispatchEvent(SwingUtilities.convertMouseEvent(CargoCanvas.this, e, getParent()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the colour in which containers of a type are drawn.
+     *
+     * @param type the type of container
+     * @return the colour of the type
+     */
+    public static Color colourOf(ContainerType type) {
+        switch (type) {
+        case REFRIGERATED:
+            return REFRIGERATED_COLOUR;
+        case DANGEROUS_GOODS:
+            return DANGEROUS_GOODS_COLOUR;
+        default:
+            return GENERAL_COLOUR;
+        }
+    }
+
+    /*
+     * Draws the image of each type of container at a zoom, normally and highlighted
+     */
+    private static Map<ContainerType, BufferedImage[]> createSprites(double zoom) {
+        Map<ContainerType, BufferedImage[]> sprites =
+                new EnumMap<ContainerType, BufferedImage[]>(ContainerType.class);
+        for (ContainerType type : ContainerType.values()) {
+            sprites.put(type, new BufferedImage[] { createSprite(colourOf(type), false, zoom),
+                    createSprite(colourOf(type), true, zoom) });
+        }
+        return sprites;
+    }
+
+    /*
+     * Draws the image of a container: a box in its type's colour, filled yellow with a thick
+     * border in the type's colour when highlighted
+     */
+    private static BufferedImage createSprite(Color colour, boolean found, double zoom) {
+        BufferedImage sprite = new BufferedImage(scale(WIDTH, zoom), scale(HEIGHT, zoom),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = sprite.createGraphics();
+        g.scale(zoom, zoom);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setColor(found ? FOUND_COLOUR : colour);
+        g.fillRoundRect(0, 0, WIDTH - 1, HEIGHT - 1, 8, 8);
+        g.setColor(found ? colour : colour.darker());
+        g.setStroke(new BasicStroke(found ? 4 : 1));
+        g.drawRoundRect(1, 1, WIDTH - 3, HEIGHT - 3, 8, 8);
+        g.dispose();
+        return sprite;
+    }
+
+    /**
+     * Returns the area of the canvas taken by a container position.
+     *
+     * @param stackNo the number of the stack
+     * @param tier the position in the stack (0 is the bottom of the stack)
+     * @return the rectangle in which a container at that position is drawn
+     */
+    public static Rectangle containerBounds(int stackNo, int tier) {
+        return new Rectangle(HSPACE + tier * (WIDTH + HSPACE), VSPACE + stackNo * (HEIGHT + VSPACE),
+                WIDTH, HEIGHT);
+    }
+
+    /*
+     * Returns a length on the canvas at a zoom, at least one pixel
+     */
+    private static int scale(int length, double zoom) {
+        return Math.max(1, (int) Math.round(length * zoom));
+    }
+
+    /**
+     * Returns the area of the canvas taken by a container position at the current zoom.
+     *
+     * @param stackNo the number of the stack
+     * @param tier the position in the stack (0 is the bottom of the stack)
+     * @return the rectangle in which a container at that position is drawn
+     */
+    public Rectangle zoomedBounds(int stackNo, int tier) {
+        return zoomedBounds(stackNo, tier, zoom);
+    }
+
+    /*
+     * Returns the area taken by a container position at a zoom
+     */
+    private static Rectangle zoomedBounds(int stackNo, int tier, double zoom) {
+        Rectangle bounds = containerBounds(stackNo, tier);
+        return new Rectangle((int) Math.floor(bounds.x * zoom), (int) Math.floor(bounds.y * zoom),
+                scale(WIDTH, zoom), scale(HEIGHT, zoom));
+    }
+
+    /**
+     * Chooses whether the canvas is drawn in tiles by background threads, or directly while it is
+     * painted.
+     *
+     * @param background true to draw in the background
+     */
+    public void setBackgroundRendering(boolean background) {
+        if (background == (tiles != null)) {
+            return;
+        }
+        if (background) {
+            tiles = new CanvasTileRenderer(this);
+        } else {
+            tiles.shutdown();
+            tiles = null;
+        }
+        repaint();
+    }
+
+    /**
+     * Returns whether the canvas is drawn in tiles by background threads.
+     *
+     * @return true if it is drawn in the background
+     */
+    public boolean isBackgroundRendering() {
+        return tiles != null;
+    }
+
+    /**
+     * Returns the current zoom, 1 being full size.
+     *
+     * @return the zoom
+     */
+    public double getZoom() {
+        return zoom;
+    }
+
+    /**
+     * Changes the zoom, 1 being full size. Values outside {@link #MIN_ZOOM} to {@link #MAX_ZOOM}
+     * are brought within it.
+     *
+     * @param zoom the new zoom
+     */
+    public void setZoom(double zoom) {
+        double newZoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom));
+        if (newZoom == this.zoom) {
+            return;
+        }
+        this.zoom = newZoom;
+        // Containers are only drawn individually at detailed zooms, so only then are images needed
+        if (newZoom == 1.0) {
+            zoomedSprites = SPRITES;
+        } else if (newZoom >= DETAIL_ZOOM) {
+            zoomedSprites = createSprites(newZoom);
+        }
+        zoomedFont = CODE_FONT.deriveFont((float) (CODE_FONT.getSize2D() * newZoom));
+        // Every tile is now in a different place
+        if (tiles != null) {
+            tiles.reset();
+        }
+        revalidate();
+        repaint();
+    }
+
+    /*
+     * Zooms by a factor, keeping the point of the canvas under the given position where it is in the scroll pane
+     */
+    private void zoomAround(Point anchor, double factor) {
+        double oldZoom = zoom;
+        setZoom(zoom * factor);
+        if (!(getParent() instanceof JViewport) || zoom == oldZoom) {
+            return;
+        }
+        JViewport viewport = (JViewport) getParent();
+        Point position = viewport.getViewPosition();
+        double ratio = zoom / oldZoom;
+        // Resizes straight away, rather than on the next layout, so the new position is not cut short
+        setSize(getPreferredSize());
+        int x = (int) Math.round(anchor.x * ratio) - (anchor.x - position.x);
+        int y = (int) Math.round(anchor.y * ratio) - (anchor.y - position.y);
+        viewport.setViewPosition(new Point(Math.max(0, x), Math.max(0, y)));
+    }
+
+    /* (non-Javadoc)
+     * @see javax.swing.JComponent#getPreferredSize()
+     */
+    @Override
+    public Dimension getPreferredSize() {
+        // Room for every stack at its maximum height
+        return new Dimension((int) Math.ceil((HSPACE + cargo.getMaxHeight() * (WIDTH + HSPACE)) * zoom),
+                (int) Math.ceil((VSPACE + cargo.getNumStacks() * (HEIGHT + VSPACE)) * zoom));
+    }
+
+    /* (non-Javadoc)
+     * @see javax.swing.Scrollable#getPreferredScrollableViewportSize()
+     */
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    /* (non-Javadoc)
+     * @see javax.swing.Scrollable#getScrollableUnitIncrement(java.awt.Rectangle, int, int)
+     */
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        // Scrolls by one stack, or one tier across
+        if (orientation == SwingConstants.VERTICAL) {
+            return scale(HEIGHT + VSPACE, zoom);
+        }
+        return scale(WIDTH + HSPACE, zoom);
+    }
+
+    /* (non-Javadoc)
+     * @see javax.swing.Scrollable#getScrollableBlockIncrement(java.awt.Rectangle, int, int)
+     */
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+    }
+
+    /* (non-Javadoc)
+     * @see javax.swing.Scrollable#getScrollableTracksViewportWidth()
+     */
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    /* (non-Javadoc)
+     * @see javax.swing.Scrollable#getScrollableTracksViewportHeight()
+     */
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+
+    /*
+     * Repaints what shows a change at a container position: the container itself, or when zoomed out the
+     * whole bar of its stack
+     */
+    private void repaintPosition(int stackNo, int tier) {
+        Rectangle area = zoomedBounds(stackNo, tier);
+        if (zoom < DETAIL_ZOOM) {
+            area = new Rectangle(0, area.y, getWidth(), area.height);
+        }
+        if (tiles != null) {
+            tiles.invalidate(area);
+        }
+        repaint(area);
     }
 
     /**
@@ -43,8 +371,91 @@ public class CargoCanvas extends JPanel {
      *
      * @param code ContainerCode to highlight.
      */
+    @Override
     public void setToFind(ContainerCode code) {
-        //implementation here - don't forget to repaint
+        clearToFind();
+        Integer stackNo;
+        Integer tier;
+        long started = EdtWatchdog.start();
+        synchronized (cargo) {
+            stackNo = cargo.whichStack(code);
+            tier = cargo.howHigh(code);
+        }
+        EdtWatchdog.check("Finding " + code, started);
+        if (stackNo == null) {
+            return;
+        }
+        this.toFind = code;
+        this.foundStack = stackNo;
+        this.foundTier = tier;
+        // Only the highlighted container needs drawing again
+        repaintPosition(foundStack, foundTier);
+        scrollRectToVisible(zoomedBounds(foundStack, foundTier));
+    }
+
+    /**
+     * Turns off container highlighting, repainting only the highlighted container.
+     */
+    @Override
+    public void clearToFind() {
+        if (foundStack >= 0) {
+            repaintPosition(foundStack, foundTier);
+        }
+        this.toFind = null;
+        this.foundStack = -1;
+        this.foundTier = -1;
+    }
+
+    /**
+     * Redraws the whole manifest, without any container highlighted.
+     */
+    @Override
+    public void updateDisplay() {
+        clearToFind();
+        if (tiles != null) {
+            tiles.invalidateAll();
+        }
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Stops the canvas following changes to its manifest, once it is no longer displayed.
+     */
+    @Override
+    public void disconnect() {
+        cargo.removeManifestListener(updates);
+        updates.stop();
+        if (tiles != null) {
+            tiles.shutdown();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see asgn2GUI.ManifestView#getUpdateScheduler()
+     */
+    @Override
+    public ViewUpdateScheduler getUpdateScheduler() {
+        return updates;
+    }
+
+    /* (non-Javadoc)
+     * @see asgn2Manifests.ManifestListener#manifestChanged(java.util.List)
+     */
+    @Override
+    public void manifestChanged(List<ManifestEvent> events) {
+        for (ManifestEvent event : events) {
+            if (event.getType() == ManifestEvent.Type.CLEARED) {
+                updateDisplay();
+                return;
+            }
+            // A highlighted container which has been unloaded is no longer found
+            if (event.getStackNo() == foundStack && event.getTier() == foundTier) {
+                clearToFind();
+            }
+            // Only the position loaded into or unloaded from needs drawing again
+            repaintPosition(event.getStackNo(), event.getTier());
+        }
     }
 
     /**
@@ -54,22 +465,143 @@ public class CargoCanvas extends JPanel {
      */
     @Override
     public void paint(Graphics g) {
-    	//Implementation here 
+        super.paint(g);
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        if (tiles != null) {
+            tiles.paint(g, clip);
+        } else {
+            paintSnapshot(g, clip, snapshot(clip));
+        }
+    }
+
+    /*
+     * Returns the first stack with any part in an area, at a zoom
+     */
+    private static int firstStack(Rectangle area, double zoom) {
+        return Math.max(0, (int) Math.floor((area.y / zoom - VSPACE) / (HEIGHT + VSPACE)));
+    }
+
+    /*
+     * Returns the last stack with any part in an area, at a zoom, which may be past the last stack on the ship
+     */
+    private static int lastStack(Rectangle area, double zoom) {
+        return (int) Math.floor((area.y + area.height) / zoom / (HEIGHT + VSPACE));
+    }
+
+    /**
+     * Copies the stacks in an area of the canvas, with the current zoom and highlighting, so that
+     * the area can be drawn later on another thread.
+     *
+     * @param area the area of the canvas
+     * @return a snapshot of everything needed to draw the area
+     */
+    CanvasSnapshot snapshot(Rectangle area) {
+        int first = firstStack(area, zoom);
+        int last = Math.min(cargo.getNumStacks() - 1, lastStack(area, zoom));
+        int count = Math.max(0, last - first + 1);
+        FreightContainer[][] stacks = new FreightContainer[count][];
+        int[] weights = new int[count];
+        long started = EdtWatchdog.start();
+        try {
+            synchronized (cargo) {
+                for (int i = 0; i < count; i++) {
+                    stacks[i] = cargo.toArray(first + i);
+                    weights[i] = cargo.getStackWeight(first + i);
+                }
+            }
+        } catch (ManifestException e) {
+            // Only stacks on the ship are copied
+            throw new IllegalStateException(e);
+        }
+        EdtWatchdog.check("Copying stacks " + first + " to " + last, started);
+        return new CanvasSnapshot(zoom, zoomedSprites, zoomedFont, getBackground(), cargo.getMaxHeight(),
+                foundStack, foundTier, first, stacks, weights);
+    }
+
+    /**
+     * Draws the part of a snapshot which falls in an area. Safe to call on any thread.
+     *
+     * @param g the Graphics context to draw on
+     * @param clip the area to draw
+     * @param snapshot what to draw
+     */
+    static void paintSnapshot(Graphics g, Rectangle clip, CanvasSnapshot snapshot) {
+        double zoom = snapshot.zoom;
+        int first = Math.max(snapshot.firstStack, firstStack(clip, zoom));
+        int last = Math.min(snapshot.firstStack + snapshot.stacks.length - 1, lastStack(clip, zoom));
+        if (zoom < DETAIL_ZOOM) {
+            for (int i = first; i <= last; i++) {
+                drawStackBar(g, snapshot, i);
+            }
+            return;
+        }
+        // Only the tiers which fall in the area are drawn
+        int firstTier = Math.max(0, (int) Math.floor((clip.x / zoom - HSPACE) / (WIDTH + HSPACE)));
+        int lastTier = (int) Math.floor((clip.x + clip.width) / zoom / (WIDTH + HSPACE));
+        g.setFont(snapshot.font);
+        g.setColor(Color.BLACK);
+        for (int i = first; i <= last; i++) {
+            FreightContainer[] stack = snapshot.stacks[i - snapshot.firstStack];
+            int height = Math.min(stack.length, lastTier + 1);
+            for (int j = firstTier; j < height; j++) {
+                Rectangle bounds = zoomedBounds(i, j, zoom);
+                boolean found = i == snapshot.foundStack && j == snapshot.foundTier;
+                drawContainer(g, snapshot, stack[j], found, bounds.x, bounds.y);
+            }
+        }
+    }
+
+    /*
+     * Draws a whole stack as one bar in its type's colour, as long as the stack is high, with a strip along its
+     * foot as long as the stack is heavy compared with a full stack of the heaviest containers
+     */
+    private static void drawStackBar(Graphics g, CanvasSnapshot snapshot, int stackNo) {
+        FreightContainer[] stack = snapshot.stacks[stackNo - snapshot.firstStack];
+        if (stack.length == 0) {
+            return;
+        }
+        double zoom = snapshot.zoom;
+        Rectangle bottom = zoomedBounds(stackNo, 0, zoom);
+        Rectangle top = zoomedBounds(stackNo, stack.length - 1, zoom);
+        int length = top.x + top.width - bottom.x;
+        g.setColor(colourOf(stack[0].getType()));
+        g.fillRect(bottom.x, bottom.y, length, bottom.height);
+        // The strip is measured against the length of a full stack
+        int fullLength = zoomedBounds(stackNo, snapshot.maxHeight - 1, zoom).x + top.width - bottom.x;
+        long heaviest = (long) snapshot.maxHeight * FreightContainer.MAX_GROSS_WEIGHT;
+        int weightLength = (int) Math.max(1, fullLength * snapshot.weights[stackNo - snapshot.firstStack] / heaviest);
+        int weightHeight = Math.max(1, bottom.height / 4);
+        g.setColor(WEIGHT_COLOUR);
+        g.fillRect(bottom.x, bottom.y + bottom.height - weightHeight, weightLength, weightHeight);
+        // The highlighted container still shows, as a mark across the bar
+        if (stackNo == snapshot.foundStack) {
+            Rectangle found = zoomedBounds(snapshot.foundStack, snapshot.foundTier, zoom);
+            g.setColor(FOUND_COLOUR);
+            g.fillRect(found.x, found.y, found.width, found.height - weightHeight);
+        }
     }
 
     /**
      * Draws a container at the given location.
      *
      * @param g The Graphics context to draw on.
+     * @param snapshot The zoom, images and font to draw with.
      * @param container The container to draw - the type determines the colour and ContainerCode is
      *            used to identify the drawn Rectangle.
+     * @param found Whether the container is highlighted.
      * @param x The x location for the Rectangle.
      * @param y The y location for the Rectangle.
      */
-    private void drawContainer(Graphics g, FreightContainer container, int x, int y) {
-    	//Implementation here 
-    	//Feel free to use some other method structure here, but this is the basis for the demo. 
-    	//Obviously you need the graphics context and container as parameters. 
-    	//But you can also use images if you wish. 
+    private static void drawContainer(Graphics g, CanvasSnapshot snapshot, FreightContainer container,
+            boolean found, int x, int y) {
+        g.drawImage(snapshot.sprites.get(container.getType())[found ? 1 : 0], x, y, null);
+        // Writes the code in the middle of the container
+        String code = container.getCode().toString();
+        FontMetrics metrics = g.getFontMetrics();
+        g.drawString(code, x + (scale(WIDTH, snapshot.zoom) - metrics.stringWidth(code)) / 2,
+                y + (scale(HEIGHT, snapshot.zoom) + metrics.getAscent() - metrics.getDescent()) / 2);
     }
 }
@@ -4,19 +4,30 @@ import java.awt.BorderLayout;
 import java.awt.HeadlessException;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 
 import javax.swing.JButton;
 import javax.swing.JFrame;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JScrollPane;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 
+import asgn2Codes.ContainerCode;
+import asgn2Containers.FreightContainer;
+import asgn2Exceptions.ManifestException;
 import asgn2Manifests.CargoManifest;
 
 /**
- * The main window for the Cargo Manifest graphics application.
+ * The main window for the Cargo Manifest graphics application. Loading,
+ * unloading and finding run on the manifest in the background through a
+ * {@link ManifestWorker}, so the window stays responsive while they work.
  *
  * @author CAB302
  */
+@SuppressWarnings("serial")
 public class CargoFrame extends JFrame {
 
 	private static final int WIDTH = 600;
@@ -44,7 +55,6 @@ public class CargoFrame extends JFrame {
 	 */
 	public CargoFrame(String title) throws HeadlessException {
 		super(title);
-		createControlPanel();
 		constructorHelper();
 		disableButtons();
 		redraw();
@@ -60,12 +70,17 @@ public class CargoFrame extends JFrame {
 	 */
 	private void setCanvas(CargoManifest cargo) {
 		if (canvas != null) {
-			pnlDisplay.remove(canvas);
+			pnlDisplay.removeAll();
+			canvas.disconnect();
+			canvas = null;
 		}
 		if (cargo == null) {
 			disableButtons();
 		} else {
+			// Shows the canvas in a scrolling display area, large ships do not fit in the window
 			canvas = new CargoCanvas(cargo);
+			canvas.setBackgroundRendering(true);
+			pnlDisplay.add(new JScrollPane(canvas), BorderLayout.CENTER);
 			enableButtons();
 		}
 		redraw();
@@ -78,7 +93,6 @@ public class CargoFrame extends JFrame {
 		btnLoad.setEnabled(true);
 		btnUnload.setEnabled(true);
 		btnFind.setEnabled(true);
-		btnNewManifest.setEnabled(true);
 	}
 
 	/**
@@ -88,7 +102,6 @@ public class CargoFrame extends JFrame {
 		btnLoad.setEnabled(false);
 		btnUnload.setEnabled(false);
 		btnFind.setEnabled(false);
-		btnNewManifest.setEnabled(false);
 	}
 
 	/**
@@ -138,7 +151,6 @@ public class CargoFrame extends JFrame {
 				};
 				SwingUtilities.invokeLater(doRun);
 			}
-			// implementation here
 		});
 		btnNewManifest = createButton("New Manifest", new ActionListener() {
 			@Override
@@ -153,7 +165,9 @@ public class CargoFrame extends JFrame {
 				SwingUtilities.invokeLater(doRun);
 			}
 		});
-		// implementation here
+		pnlDisplay = new JPanel(new BorderLayout());
+		this.getContentPane().add(pnlDisplay, BorderLayout.CENTER);
+		this.getContentPane().add(createControlPanel(), BorderLayout.SOUTH);
 		repaint();
 	}
 
@@ -163,13 +177,12 @@ public class CargoFrame extends JFrame {
 	 * @return User control panel.
 	 */
 	private JPanel createControlPanel() {
-		JPanel panel = new JPanel(new BorderLayout());
-		panel.add(canvas, BorderLayout.NORTH);
-		panel.add(btnLoad, BorderLayout.SOUTH);
-		panel.add(btnUnload, BorderLayout.SOUTH);
-		panel.add(btnFind, BorderLayout.SOUTH);
-		panel.add(btnNewManifest, BorderLayout.SOUTH);
-		return panel;
+		pnlControls = new JPanel();
+		pnlControls.add(btnLoad);
+		pnlControls.add(btnUnload);
+		pnlControls.add(btnFind);
+		pnlControls.add(btnNewManifest);
+		return pnlControls;
 	}
 
 	/**
@@ -193,7 +206,11 @@ public class CargoFrame extends JFrame {
 	 * to work with.
 	 */
 	private void setNewManifest() {
-
+		CargoManifest aCargo = ManifestDialog.showDialog(this);
+		if (aCargo != null) {
+			this.cargo = aCargo;
+		}
+		setCanvas(cargo);
 	}
 
 	/**
@@ -201,27 +218,143 @@ public class CargoFrame extends JFrame {
 	 * initiated.
 	 */
 	private void resetCanvas() {
-		// implementation here
+		if (canvas != null) {
+			canvas.clearToFind();
+		}
 	}
 
 	/**
 	 * Initiates the Load Container dialog.
 	 */
 	private void doLoad() {
-		// implementation here
-		// don't forget to redraw
+		// Show a dialog and if it returns a container loads it into the ship in the background, showing why if it cannot
+		final FreightContainer con = LoadContainerDialog.showDialog(this);
+		if (con != null) {
+			runInBackground(new ManifestWorker<Void>(cargo) {
+				@Override
+				protected Void doInBackground() throws ManifestException {
+					synchronized (cargo) {
+						cargo.loadContainer(con);
+					}
+					return null;
+				}
+
+				@Override
+				protected void succeeded(Void result) {
+				}
+
+				@Override
+				protected void failed(Throwable cause) {
+					showError(cause);
+				}
+			}, "Loading " + con.getCode());
+		}
 	}
 
+	/**
+	 * Initiates the Unload Container dialog.
+	 */
 	private void doUnload() {
-		// implementation here
-		// don't forget to redraw
+		// Show a dialog and if it returns a code unloads that container in the background, showing why if it cannot
+		final ContainerCode code = ContainerCodeDialog.showDialog(this);
+		if (code != null) {
+			runInBackground(new ManifestWorker<Void>(cargo) {
+				@Override
+				protected Void doInBackground() throws ManifestException {
+					synchronized (cargo) {
+						cargo.unloadContainer(code);
+					}
+					return null;
+				}
+
+				@Override
+				protected void succeeded(Void result) {
+				}
+
+				@Override
+				protected void failed(Throwable cause) {
+					showError(cause);
+				}
+			}, "Unloading " + code);
+		}
 	}
 
+	/**
+	 * Initiates the Find Container dialog.
+	 */
 	private void doFind() {
-		// implementation here
+		// Show a dialog and if it returns a code looks for that container in the background, highlighting it if it is on board
+		final ContainerCode code = ContainerCodeDialog.showDialog(this);
+		if (code != null) {
+			runInBackground(new ManifestWorker<Boolean>(cargo) {
+				@Override
+				protected Boolean doInBackground() {
+					synchronized (cargo) {
+						return cargo.whichStack(code) != null;
+					}
+				}
+
+				@Override
+				protected void succeeded(Boolean onBoard) {
+					if (onBoard) {
+						canvas.setToFind(code);
+					}
+				}
+
+				@Override
+				protected void failed(Throwable cause) {
+					showError(cause);
+				}
+			}, "Finding " + code);
+		}
+	}
+
+	/**
+	 * Runs an operation on the manifest in the background, keeping the buttons
+	 * disabled until it has finished and then bringing the display up to date.
+	 *
+	 * @param worker
+	 *            The operation to run.
+	 * @param message
+	 *            A description of the operation, shown with its progress if it
+	 *            takes a while.
+	 */
+	private void runInBackground(ManifestWorker<?> worker, String message) {
+		disableButtons();
+		btnNewManifest.setEnabled(false);
+		worker.addPropertyChangeListener(new PropertyChangeListener() {
+			@Override
+			public void propertyChange(PropertyChangeEvent event) {
+				// The state changes to done on the EDT, after the worker has handed over its outcome
+				if ("state".equals(event.getPropertyName()) && event.getNewValue() == SwingWorker.StateValue.DONE) {
+					enableButtons();
+					btnNewManifest.setEnabled(true);
+					redraw();
+				}
+			}
+		});
+		worker.start(this, message);
+	}
+
+	/**
+	 * Shows why an operation on the manifest failed.
+	 *
+	 * @param cause
+	 *            The exception thrown by the operation.
+	 */
+	private void showError(Throwable cause) {
+		JOptionPane.showMessageDialog(this, cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
 	}
 
+	/**
+	 * Updates the display area. The canvas repaints the containers which change by
+	 * itself, so only its held back changes and the layout need refreshing.
+	 */
 	private void redraw() {
+		// Applies any held back changes at once, after an operation by the user
+		if (canvas != null) {
+			canvas.getUpdateScheduler().flush();
+		}
 		invalidate();
 		validate();
 		repaint();
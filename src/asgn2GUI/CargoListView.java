@@ -0,0 +1,102 @@
+package asgn2GUI;
+
+import java.awt.Font;
+
+import javax.swing.JList;
+import javax.swing.ListSelectionModel;
+
+import asgn2Codes.ContainerCode;
+import asgn2Manifests.CargoManifest;
+
+/**
+ * Creates a JList with one row per stack to represent very large cargo manifests. Unlike
+ * {@link CargoTextArea} it keeps no text of its own: every row has the same fixed size, so only
+ * the rows scrolled into view are ever produced, from the manifest itself. It is meant to be
+ * shown inside a <code>JScrollPane</code>.
+ *
+ * @author Leandro Rodrigues n9382909
+ */
+@SuppressWarnings("serial")
+public class CargoListView extends JList<String> implements ManifestView {
+
+    private final ManifestListModel model;
+
+    /**
+     * Constructor initializes the JList.
+     *
+     * @param cargo the <code>CargoManifest</code> on which the list is based
+     */
+    public CargoListView(CargoManifest cargo) {
+        this(new ManifestListModel(cargo), cargo);
+    }
+
+    private CargoListView(ManifestListModel model, CargoManifest cargo) {
+        super(model);
+        this.model = model;
+        setFont(new Font("Calibri", Font.PLAIN, 12));
+        setName("Cargo List View");
+        setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        // Sizes every row like a full stack, so the list never has to measure the rows themselves
+        setPrototypeCellValue(fullStackRow(cargo.getMaxHeight()));
+    }
+
+    /*
+     * Returns the text of a stack holding as many containers as a stack can
+     */
+    private static String fullStackRow(int maxHeight) {
+        StringBuilder row = new StringBuilder("|");
+        for (int i = 0; i < Math.max(maxHeight, 1); i++) {
+            row.append("| MMMU0000000 |");
+        }
+        return row.append("|").toString();
+    }
+
+    /* (non-Javadoc)
+     * @see asgn2GUI.ManifestView#setToFind(asgn2Codes.ContainerCode)
+     */
+    @Override
+    public void setToFind(ContainerCode code) {
+        int row = model.setToFind(code);
+        if (row < 0) {
+            clearSelection();
+        } else {
+            setSelectedIndex(row);
+            ensureIndexIsVisible(row);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see asgn2GUI.ManifestView#clearToFind()
+     */
+    @Override
+    public void clearToFind() {
+        model.setToFind(null);
+        clearSelection();
+    }
+
+    /* (non-Javadoc)
+     * @see asgn2GUI.ManifestView#updateDisplay()
+     */
+    @Override
+    public void updateDisplay() {
+        // The rows are always read from the manifest, so only the highlighting needs resetting
+        clearToFind();
+        repaint();
+    }
+
+    /* (non-Javadoc)
+     * @see asgn2GUI.ManifestView#disconnect()
+     */
+    @Override
+    public void disconnect() {
+        model.disconnect();
+    }
+
+    /* (non-Javadoc)
+     * @see asgn2GUI.ManifestView#getUpdateScheduler()
+     */
+    @Override
+    public ViewUpdateScheduler getUpdateScheduler() {
+        return model.getUpdateScheduler();
+    }
+}
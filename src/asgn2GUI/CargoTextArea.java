@@ -1,32 +1,58 @@
 package asgn2GUI;
 
+import java.awt.Color;
 import java.awt.Font;
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.List;
 
 import javax.swing.JTextArea;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Highlighter;
 
 import asgn2Codes.ContainerCode;
+import asgn2Exceptions.ManifestException;
 import asgn2Manifests.CargoManifest;
+import asgn2Manifests.ManifestEvent;
+import asgn2Manifests.ManifestListener;
 
 /**
  * Creates a JTextArea in which textual components are laid out to represent the cargo manifest.
+ * <p>
+ * The text holds one line per stack, in stack order. The text area listens to the manifest and
+ * rewrites only the lines of the stacks which changed, so loading or unloading a container costs
+ * the same however large the ship is. Changes arrive through a {@link ViewUpdateScheduler}, so a
+ * burst of them is applied at most once a frame. The manifest may be changed in the background
+ * by a {@link ManifestWorker}, so the text area takes the manifest's lock whenever it reads it.
  *
  * @author Leandro Rodrigues n9382909
  */
 @SuppressWarnings("serial")
-public class CargoTextArea extends JTextArea {
+public class CargoTextArea extends JTextArea implements ManifestListener, ManifestView {
 
     private static final int WIDTH = 120;
     private static final int HEIGHT = 50;
+    private static final Highlighter.HighlightPainter FOUND_PAINTER =
+            new DefaultHighlighter.DefaultHighlightPainter(Color.YELLOW);
 
     private final CargoManifest cargo;
+    // Passes the manifest's changes on at most once a frame
+    private final ViewUpdateScheduler updates;
 
     private ContainerCode toFind;
+    // Whether the text holds a line for every stack yet, it does from the first full display on
+    private boolean displayed;
+    // Stack holding the highlighted container (-1 if none) and the highlight itself
+    private int foundStack = -1;
+    private Object foundTag;
 
     /**
      * Constructor initializes the JTextArea.
      *
-     * @param cargo he <code>CargoManifest</code> on which the text area is based 
-     * 
+     * @param cargo he <code>CargoManifest</code> on which the text area is based
+     *
      */
     public CargoTextArea(CargoManifest cargo) {
         setFont(new Font("Calibri", Font.PLAIN, 12));
@@ -34,6 +60,25 @@ public class CargoTextArea extends JTextArea {
         setSize(WIDTH, HEIGHT);
         setEditable(false);
         this.cargo = cargo;
+        this.updates = new ViewUpdateScheduler(this);
+        cargo.addManifestListener(updates);
+    }
+
+    /**
+     * Stops the text area following changes to its manifest, once it is no longer displayed.
+     */
+    @Override
+    public void disconnect() {
+        cargo.removeManifestListener(updates);
+        updates.stop();
+    }
+
+    /* (non-Javadoc)
+     * @see asgn2GUI.ManifestView#getUpdateScheduler()
+     */
+    @Override
+    public ViewUpdateScheduler getUpdateScheduler() {
+        return updates;
     }
 
     /**
@@ -41,18 +86,139 @@ public class CargoTextArea extends JTextArea {
      *
      * @param code ContainerCode to highlight.
      */
+    @Override
     public void setToFind(ContainerCode code) {
-    	this.toFind = code;
-    	String highlightedCargoManf = this.cargo.toString(toFind);
-    	this.setText(highlightedCargoManf);
+        clearToFind();
+        Integer stackNo;
+        long started = EdtWatchdog.start();
+        synchronized (cargo) {
+            stackNo = cargo.whichStack(code);
+        }
+        EdtWatchdog.check("Finding " + code, started);
+        if (stackNo == null) {
+            return;
+        }
+        // Marks the container in its stack's line, then highlights it and scrolls it into view
+        this.toFind = code;
+        this.foundStack = stackNo;
+        rewriteStack(stackNo);
+        try {
+            int lineStart = getLineStartOffset(stackNo);
+            int start = lineStart + getLine(stackNo).indexOf(code.toString());
+            int end = start + code.toString().length();
+            foundTag = getHighlighter().addHighlight(start, end, FOUND_PAINTER);
+            Rectangle found = modelToView(start);
+            if (found != null) {
+                scrollRectToVisible(found);
+            }
+        } catch (BadLocationException e) {
+            // The line was just written, so the container is always there
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Turns off container highlighting, rewriting only the line of the highlighted container.
+     */
+    @Override
+    public void clearToFind() {
+        if (foundTag != null) {
+            getHighlighter().removeHighlight(foundTag);
+            foundTag = null;
+        }
+        int stackNo = foundStack;
+        this.toFind = null;
+        this.foundStack = -1;
+        if (stackNo >= 0) {
+            rewriteStack(stackNo);
+        }
     }
 
     /**
      * Outputs the container representation from the cargo manifest on the text area.
      *
      */
+    @Override
     public void updateDisplay() {
-    	String textualCargoManifest = this.cargo.toString();
-    	this.setText(textualCargoManifest);
+        if (foundTag != null) {
+            getHighlighter().removeHighlight(foundTag);
+            foundTag = null;
+        }
+        this.toFind = null;
+        this.foundStack = -1;
+        String textualCargoManifest;
+        long started = EdtWatchdog.start();
+        synchronized (cargo) {
+            textualCargoManifest = this.cargo.toString();
+        }
+        EdtWatchdog.check("Writing the manifest", started);
+        this.setText(textualCargoManifest);
+        this.displayed = true;
+    }
+
+    /* (non-Javadoc)
+     * @see asgn2Manifests.ManifestListener#manifestChanged(java.util.List)
+     */
+    @Override
+    public void manifestChanged(List<ManifestEvent> events) {
+        // Collects each changed stack once, a clearing changes every stack so the whole text is rebuilt
+        BitSet changed = new BitSet();
+        for (ManifestEvent event : events) {
+            if (event.getType() == ManifestEvent.Type.CLEARED) {
+                updateDisplay();
+                return;
+            }
+            changed.set(event.getStackNo());
+        }
+        // A highlighted container which has been unloaded is no longer found
+        if (toFind != null && !isOnBoard(toFind)) {
+            clearToFind();
+        }
+        for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+            rewriteStack(i);
+        }
+        // Rewriting the highlighted container's line drops its highlight, so it is highlighted again
+        if (toFind != null && changed.get(foundStack)) {
+            setToFind(toFind);
+        }
+    }
+
+    /*
+     * Returns whether a container is still on board
+     */
+    private boolean isOnBoard(ContainerCode code) {
+        synchronized (cargo) {
+            return cargo.whichStack(code) != null;
+        }
+    }
+
+    /*
+     * Returns the text of a stack's line, without the line break
+     */
+    private String getLine(int stackNo) throws BadLocationException {
+        int start = getLineStartOffset(stackNo);
+        return getText(start, getLineEndOffset(stackNo) - start - 1);
+    }
+
+    /*
+     * Replaces the line of a single stack with its current contents, leaving the rest of the text untouched
+     */
+    private void rewriteStack(int stackNo) {
+        // Before the first display there are no lines to replace
+        if (!displayed) {
+            return;
+        }
+        StringBuilder line = new StringBuilder();
+        try {
+            long started = EdtWatchdog.start();
+            synchronized (cargo) {
+                cargo.writeStackTo(line, stackNo, stackNo == foundStack ? toFind : null);
+            }
+            EdtWatchdog.check("Writing stack " + stackNo, started);
+            replaceRange(line.toString(), getLineStartOffset(stackNo), getLineEndOffset(stackNo));
+        } catch (BadLocationException | ManifestException | IOException e) {
+            // The stack exists and has a line, and a StringBuilder never fails
+            throw new IllegalStateException(e);
+        }
     }
 }
@@ -4,12 +4,16 @@ import java.awt.BorderLayout;
 import java.awt.HeadlessException;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JScrollPane;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 
 import asgn2Codes.ContainerCode;
 import asgn2Containers.FreightContainer;
@@ -18,6 +22,10 @@ import asgn2Manifests.CargoManifest;
 
 /**
  * The main window for the Cargo Manifest Text application.
+ * <p>
+ * Loading, unloading and finding run on the manifest in the background through a
+ * {@link ManifestWorker}, with the buttons disabled until they finish, so the window stays
+ * responsive and the display follows the changes as they are made.
  *
  * @author Leandro Rodrigues n9382909
  */
@@ -26,13 +34,15 @@ public class CargoTextFrame extends JFrame {
 
     private static final int WIDTH = 600;
     private static final int HEIGHT = 400;
+    // Ships with room for more containers than this are shown in a list which only produces the visible rows
+    private static final long LARGE_MANIFEST_SLOTS = 10000;
 
     private JButton btnLoad;
     private JButton btnUnload;
     private JButton btnFind;
     private JButton btnNewManifest;
 
-    private CargoTextArea canvas;
+    private ManifestView canvas;
 
     private JPanel pnlControls;
     private JPanel pnlDisplay;
@@ -58,17 +68,31 @@ public class CargoTextFrame extends JFrame {
      * @param cargo The <code>CargoManifest</code> instance containing necessary state for display.
      */
     private void setCanvas(CargoManifest cargo) {
+        if (pnlDisplay != null) {
+            this.getContentPane().remove(pnlDisplay);
+        }
     	pnlDisplay = new JPanel();
         if (canvas != null) {
-            pnlDisplay.remove(canvas);
+            canvas.disconnect();
+            canvas = null;
         }
         if (cargo == null) {
             disableButtons();
+        } else if ((long) cargo.getNumStacks() * cargo.getMaxHeight() > LARGE_MANIFEST_SLOTS) {
+            // A ship which can hold many containers is shown in a scrolling list, which only ever produces the rows
+            // in view, however full the ship later becomes
+            CargoListView list = new CargoListView(cargo);
+            canvas = list;
+            pnlDisplay.setLayout(new BorderLayout());
+            pnlDisplay.add(new JScrollPane(list), BorderLayout.CENTER);
+            this.getContentPane().add(pnlDisplay, BorderLayout.CENTER);
+            redraw();
         } else {
         	// If a cargo was instantiated properly (!= null) then creates, updates, shows, and adds a canvas with its textual representation
-            canvas = new CargoTextArea(cargo);
+            CargoTextArea textArea = new CargoTextArea(cargo);
+            canvas = textArea;
             canvas.updateDisplay();
-            pnlDisplay.add(canvas);
+            pnlDisplay.add(textArea);
             pnlDisplay.setVisible(true);
             this.getContentPane().add(pnlDisplay, BorderLayout.CENTER);
             redraw();
@@ -205,22 +229,34 @@ public class CargoTextFrame extends JFrame {
      */
     private void resetCanvas() {
     	if (canvas != null) 
-        	canvas.updateDisplay();
+        	canvas.clearToFind();
     }
 
     /**
      * Initiates the Load Container dialog.
      */
     private void doLoad() {
-    	// Show a dialog and check if it returns a notnull object if so tries to load the container into the ship. Also handles possible exceptions
-    	FreightContainer con = LoadContainerDialog.showDialog(this);
+    	// Show a dialog and check if it returns a notnull object if so loads the container into the ship in the background. Any problem is shown once it has finished
+    	final FreightContainer con = LoadContainerDialog.showDialog(this);
     	if(con != null){
-	    	try {
-				cargo.loadContainer(con);
-			} catch (ManifestException e) {
-				JOptionPane.showMessageDialog(this, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-			}
-	    	redraw();
+    		runInBackground(new ManifestWorker<Void>(cargo) {
+    			@Override
+    			protected Void doInBackground() throws ManifestException {
+    				synchronized (cargo) {
+    					cargo.loadContainer(con);
+    				}
+    				return null;
+    			}
+
+    			@Override
+    			protected void succeeded(Void result) {
+    			}
+
+    			@Override
+    			protected void failed(Throwable cause) {
+    				showError(cause);
+    			}
+    		}, "Loading " + con.getCode());
     	}
 
     }
@@ -229,16 +265,27 @@ public class CargoTextFrame extends JFrame {
      * Initiates the Unload Container dialog.
      */
     private void doUnload() {
-    	// Show a dialog and check if it returns a notnull object if so tries to unload the container. Also handles possible exceptions
-    	ContainerCode code = ContainerCodeDialog.showDialog(this);
+    	// Show a dialog and check if it returns a notnull object if so unloads the container in the background. Any problem is shown once it has finished
+    	final ContainerCode code = ContainerCodeDialog.showDialog(this);
     	if(code != null){
-			try {
-				
-				cargo.unloadContainer(code);
-			} catch (Exception e) {
-				JOptionPane.showMessageDialog(this, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-			}
-			redraw();
+    		runInBackground(new ManifestWorker<Void>(cargo) {
+    			@Override
+    			protected Void doInBackground() throws ManifestException {
+    				synchronized (cargo) {
+    					cargo.unloadContainer(code);
+    				}
+    				return null;
+    			}
+
+    			@Override
+    			protected void succeeded(Void result) {
+    			}
+
+    			@Override
+    			protected void failed(Throwable cause) {
+    				showError(cause);
+    			}
+    		}, "Unloading " + code);
     	}
     	
     }
@@ -247,25 +294,75 @@ public class CargoTextFrame extends JFrame {
      * Initiates the Find Container dialog.
      */
     private void doFind() {
-    	// Show a dialog and check if it returns a notnull object if so tries to find the container into the ship nad highLight it. Also handles possible exceptions
-    	ContainerCode con = ContainerCodeDialog.showDialog(this);
+    	// Show a dialog and check if it returns a notnull object if so looks for the container in the background, then highLights it if it is on board
+    	final ContainerCode con = ContainerCodeDialog.showDialog(this);
     	if(con != null){
-	    	try {
-				canvas.setToFind(con);
-			} catch (Exception e) {
-				JOptionPane.showMessageDialog(this, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-			}
+    		runInBackground(new ManifestWorker<Boolean>(cargo) {
+    			@Override
+    			protected Boolean doInBackground() {
+    				synchronized (cargo) {
+    					return cargo.whichStack(con) != null;
+    				}
+    			}
+
+    			@Override
+    			protected void succeeded(Boolean onBoard) {
+    				if (onBoard) {
+    					canvas.setToFind(con);
+    				}
+    			}
+
+    			@Override
+    			protected void failed(Throwable cause) {
+    				showError(cause);
+    			}
+    		}, "Finding " + con);
     	}
     	
     }
 
+    /**
+     * Runs an operation on the manifest in the background, keeping the buttons disabled until it
+     * has finished and then bringing the display up to date.
+     *
+     * @param worker The operation to run.
+     * @param message A description of the operation, shown with its progress if it takes a while.
+     */
+    private void runInBackground(ManifestWorker<?> worker, String message) {
+    	disableButtons();
+    	btnNewManifest.setEnabled(false);
+    	worker.addPropertyChangeListener(new PropertyChangeListener() {
+    		@Override
+    		public void propertyChange(PropertyChangeEvent event) {
+    			// The state changes to done on the EDT, after the worker has handed over its outcome
+    			if ("state".equals(event.getPropertyName()) && event.getNewValue() == SwingWorker.StateValue.DONE) {
+    				enableButtons();
+    				btnNewManifest.setEnabled(true);
+    				redraw();
+    			}
+    		}
+    	});
+    	worker.start(this, message);
+    }
+
+    /**
+     * Shows why an operation on the manifest failed.
+     *
+     * @param cause The exception thrown by the operation.
+     */
+    private void showError(Throwable cause) {
+    	JOptionPane.showMessageDialog(this, cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+    }
+
     /**
      * 
      * Updates the display area.
      *
      */
     private void redraw() {
-    	canvas.updateDisplay();
-    	canvas.revalidate();
+    	// The view already follows the manifest's changes stack by stack, so it only needs any held back
+    	// changes applying at once, after an operation by the user, and laying out again
+    	canvas.getUpdateScheduler().flush();
+    	pnlDisplay.revalidate();
     }
 }
@@ -0,0 +1,87 @@
+package asgn2GUI;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Logs manifest calls which hold up the event dispatch thread. A view times each of its visits to
+ * the manifest by taking the time with {@link #start()} before it and handing it to
+ * {@link #check(String, long)} after it. A visit which ran on the event dispatch thread for longer
+ * than the threshold is logged as a warning, since the window could not respond meanwhile. The
+ * time includes any wait for a background operation to let go of the manifest.
+ *
+ * @author Leandro Rodrigues n9382909
+ */
+public final class EdtWatchdog {
+
+    /**
+     * The default longest time, in milliseconds, a manifest call may run on the event dispatch
+     * thread without being logged, about three frames
+     */
+    public static final long DEFAULT_THRESHOLD = 50;
+
+    private static final Logger LOGGER = Logger.getLogger(EdtWatchdog.class.getName());
+
+    private static volatile long thresholdNanos = DEFAULT_THRESHOLD * 1000000L;
+    private static final AtomicLong slowCalls = new AtomicLong();
+
+    private EdtWatchdog() {
+    }
+
+    /**
+     * Sets the longest time a manifest call may run on the event dispatch thread without being
+     * logged.
+     *
+     * @param millis the threshold in milliseconds
+     */
+    public static void setThreshold(long millis) {
+        thresholdNanos = millis * 1000000L;
+    }
+
+    /**
+     * Returns the longest time a manifest call may run on the event dispatch thread without being
+     * logged.
+     *
+     * @return the threshold in milliseconds
+     */
+    public static long getThreshold() {
+        return thresholdNanos / 1000000L;
+    }
+
+    /**
+     * Returns the time at which a manifest call starts, to be handed to {@link #check(String, long)}.
+     *
+     * @return the current time in nanoseconds
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Logs a manifest call which has just finished if it ran on the event dispatch thread for
+     * longer than the threshold.
+     *
+     * @param operation a short description of the call, for the log
+     * @param started the time returned by {@link #start()} before the call
+     */
+    public static void check(String operation, long started) {
+        long elapsed = System.nanoTime() - started;
+        if (elapsed > thresholdNanos && SwingUtilities.isEventDispatchThread()) {
+            slowCalls.incrementAndGet();
+            LOGGER.log(Level.WARNING, "{0} held up the event dispatch thread for {1} ms",
+                    new Object[] {operation, elapsed / 1000000L});
+        }
+    }
+
+    /**
+     * Returns how many manifest calls have been logged for holding up the event dispatch thread.
+     *
+     * @return the number of slow calls
+     */
+    public static long getSlowCalls() {
+        return slowCalls.get();
+    }
+}
@@ -0,0 +1,148 @@
+package asgn2GUI;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.List;
+
+import javax.swing.AbstractListModel;
+
+import asgn2Codes.ContainerCode;
+import asgn2Exceptions.ManifestException;
+import asgn2Manifests.CargoManifest;
+import asgn2Manifests.ManifestEvent;
+import asgn2Manifests.ManifestListener;
+
+/**
+ * A list model with one row per stack of a cargo manifest, in the same text layout as
+ * <code>CargoManifest.toString</code>. Rows are read from the manifest only when asked for, so
+ * the model holds no text of its own and a list shows a ship of any size at the cost of its
+ * visible rows. The manifest may be changed in the background by a {@link ManifestWorker}, so the
+ * model takes the manifest's lock whenever it reads it.
+ *
+ * @author Leandro Rodrigues n9382909
+ */
+@SuppressWarnings("serial")
+public class ManifestListModel extends AbstractListModel<String> implements ManifestListener {
+
+    private final CargoManifest cargo;
+    // Passes the manifest's changes on at most once a frame
+    private final ViewUpdateScheduler updates;
+
+    private ContainerCode toFind;
+
+    /**
+     * Constructs a model of the given manifest, which follows its changes.
+     *
+     * @param cargo the <code>CargoManifest</code> on which the model is based
+     */
+    public ManifestListModel(CargoManifest cargo) {
+        this.cargo = cargo;
+        this.updates = new ViewUpdateScheduler(this);
+        cargo.addManifestListener(updates);
+    }
+
+    /**
+     * Stops the model following changes to its manifest.
+     */
+    public void disconnect() {
+        cargo.removeManifestListener(updates);
+        updates.stop();
+    }
+
+    /**
+     * Returns the scheduler through which the model receives the manifest's changes.
+     *
+     * @return the model's update scheduler
+     */
+    public ViewUpdateScheduler getUpdateScheduler() {
+        return updates;
+    }
+
+    /**
+     * Marks a container with asterisks in its stack's row, replacing any earlier mark.
+     *
+     * @param code the container to mark, or <code>null</code> for none
+     * @return the row of the marked container, or -1 if it is not on board
+     */
+    public int setToFind(ContainerCode code) {
+        Integer oldStack;
+        Integer newStack;
+        long started = EdtWatchdog.start();
+        synchronized (cargo) {
+            oldStack = toFind == null ? null : cargo.whichStack(toFind);
+            newStack = code == null ? null : cargo.whichStack(code);
+        }
+        EdtWatchdog.check("Finding " + code, started);
+        this.toFind = newStack == null ? null : code;
+        if (oldStack != null) {
+            fireContentsChanged(this, oldStack, oldStack);
+        }
+        if (newStack == null) {
+            return -1;
+        }
+        fireContentsChanged(this, newStack, newStack);
+        return newStack;
+    }
+
+    /* (non-Javadoc)
+     * @see javax.swing.ListModel#getSize()
+     */
+    @Override
+    public int getSize() {
+        return cargo.getNumStacks();
+    }
+
+    /* (non-Javadoc)
+     * @see javax.swing.ListModel#getElementAt(int)
+     */
+    @Override
+    public String getElementAt(int index) {
+        StringBuilder row = new StringBuilder();
+        try {
+            long started = EdtWatchdog.start();
+            synchronized (cargo) {
+                cargo.writeStackTo(row, index, toFind);
+            }
+            EdtWatchdog.check("Writing stack " + index, started);
+        } catch (IOException | ManifestException e) {
+            // Rows only exist for stacks, and a StringBuilder never fails
+            throw new IllegalStateException(e);
+        }
+        // Drops the line break, a row is a line already
+        row.setLength(row.length() - 1);
+        return row.toString();
+    }
+
+    /* (non-Javadoc)
+     * @see asgn2Manifests.ManifestListener#manifestChanged(java.util.List)
+     */
+    @Override
+    public void manifestChanged(List<ManifestEvent> events) {
+        // Collects each changed stack once, a clearing changes every row
+        BitSet changed = new BitSet();
+        for (ManifestEvent event : events) {
+            if (event.getType() == ManifestEvent.Type.CLEARED) {
+                toFind = null;
+                if (getSize() > 0) {
+                    fireContentsChanged(this, 0, getSize() - 1);
+                }
+                return;
+            }
+            changed.set(event.getStackNo());
+        }
+        // A marked container which has been unloaded is no longer found
+        if (toFind != null) {
+            synchronized (cargo) {
+                if (cargo.whichStack(toFind) == null) {
+                    toFind = null;
+                }
+            }
+        }
+        // Reports each run of neighbouring stacks as one change
+        for (int start = changed.nextSetBit(0); start >= 0; start = changed.nextSetBit(start)) {
+            int end = changed.nextClearBit(start);
+            fireContentsChanged(this, start, end - 1);
+            start = end;
+        }
+    }
+}
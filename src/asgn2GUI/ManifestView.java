@@ -0,0 +1,42 @@
+package asgn2GUI;
+
+import asgn2Codes.ContainerCode;
+
+/**
+ * A display of a cargo manifest which follows the manifest's changes by itself and can
+ * highlight a single container.
+ *
+ * @author Leandro Rodrigues n9382909
+ */
+public interface ManifestView {
+
+    /**
+     * Highlights a container.
+     *
+     * @param code ContainerCode to highlight.
+     */
+    void setToFind(ContainerCode code);
+
+    /**
+     * Turns off container highlighting.
+     */
+    void clearToFind();
+
+    /**
+     * Redisplays the whole manifest, without any container highlighted.
+     */
+    void updateDisplay();
+
+    /**
+     * Stops the view following changes to its manifest, once it is no longer displayed.
+     */
+    void disconnect();
+
+    /**
+     * Returns the scheduler through which the view receives the manifest's changes, to bring the
+     * view up to date at once or to read its frame counters.
+     *
+     * @return the view's update scheduler
+     */
+    ViewUpdateScheduler getUpdateScheduler();
+}
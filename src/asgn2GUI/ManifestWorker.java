@@ -0,0 +1,159 @@
+package asgn2GUI;
+
+import java.awt.Component;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingWorker;
+
+import asgn2Manifests.CargoManifest;
+
+/**
+ * Runs an operation on a cargo manifest in the background, so that the window stays responsive
+ * however long it takes, and hands its outcome back to the event dispatch thread.
+ * <p>
+ * All workers share a single background thread, so operations on a manifest run one at a time
+ * in the order they were started. While it works on the manifest a worker holds the manifest's
+ * lock, which the views take whenever they read it. A long operation should work in chunks,
+ * letting go of the lock between them so the views can keep drawing, and between chunks report
+ * its progress with {@link #reportProgress(int, int)} and stop if it has been cancelled.
+ * <p>
+ * Subclasses do the work in {@link #doInBackground()} and receive the outcome on the event
+ * dispatch thread in {@link #succeeded(Object)}, {@link #failed(Throwable)} or
+ * {@link #cancelled()}.
+ *
+ * @author Leandro Rodrigues n9382909
+ *
+ * @param <T> the type of the operation's result
+ */
+public abstract class ManifestWorker<T> extends SwingWorker<T, Void> {
+
+    private static final Logger LOGGER = Logger.getLogger(ManifestWorker.class.getName());
+
+    // The background thread, a daemon so that it never keeps the application running
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "Cargo manifest worker");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /**
+     * The manifest the operation works on, and the lock held while working on it
+     */
+    protected final CargoManifest cargo;
+
+    private ProgressMonitor monitor;
+
+    /**
+     * Constructs a worker for an operation on a manifest.
+     *
+     * @param cargo the manifest to work on
+     */
+    protected ManifestWorker(CargoManifest cargo) {
+        this.cargo = cargo;
+    }
+
+    /**
+     * Queues the operation to run in the background.
+     */
+    public void start() {
+        EXECUTOR.execute(this);
+    }
+
+    /**
+     * Queues the operation to run in the background, showing its progress in a monitor over a
+     * component if it takes more than a moment. Cancelling the monitor cancels the operation.
+     * Must be called on the event dispatch thread.
+     *
+     * @param parent the component over which to show the monitor
+     * @param message a description of the operation, for the monitor
+     */
+    public void start(Component parent, String message) {
+        monitor = new ProgressMonitor(parent, message, null, 0, 100);
+        addPropertyChangeListener(new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent event) {
+                // Progress is reported on the event dispatch thread, where the monitor lives
+                if ("progress".equals(event.getPropertyName()) && monitor != null) {
+                    monitor.setProgress((Integer) event.getNewValue());
+                    if (monitor.isCanceled()) {
+                        cancel(false);
+                    }
+                }
+            }
+        });
+        start();
+    }
+
+    /**
+     * Reports how much of a long operation is done. Called in the background between chunks.
+     *
+     * @param done how many items have been handled
+     * @param total how many items there are altogether
+     */
+    protected void reportProgress(int done, int total) {
+        setProgress(total == 0 ? 100 : (int) (100L * done / total));
+    }
+
+    /**
+     * Hands the outcome of the operation to {@link #succeeded(Object)}, {@link #failed(Throwable)}
+     * or {@link #cancelled()}, on the event dispatch thread.
+     */
+    @Override
+    protected final void done() {
+        if (monitor != null) {
+            monitor.close();
+            monitor = null;
+        }
+        T result;
+        try {
+            result = get();
+        } catch (CancellationException e) {
+            cancelled();
+            return;
+        } catch (ExecutionException e) {
+            failed(e.getCause());
+            return;
+        } catch (InterruptedException e) {
+            // The operation has finished, so getting its result never waits
+            Thread.currentThread().interrupt();
+            return;
+        }
+        succeeded(result);
+    }
+
+    /**
+     * Receives the result of an operation which completed, on the event dispatch thread.
+     *
+     * @param result the operation's result
+     */
+    protected abstract void succeeded(T result);
+
+    /**
+     * Receives the reason an operation failed, on the event dispatch thread. By default the
+     * failure is logged.
+     *
+     * @param cause the exception thrown by the operation
+     */
+    protected void failed(Throwable cause) {
+        LOGGER.log(Level.SEVERE, "Manifest operation failed", cause);
+    }
+
+    /**
+     * Called on the event dispatch thread when an operation has been cancelled. Does nothing by
+     * default.
+     */
+    protected void cancelled() {
+    }
+}
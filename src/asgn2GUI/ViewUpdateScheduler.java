@@ -0,0 +1,213 @@
+package asgn2GUI;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import asgn2Manifests.ManifestEvent;
+import asgn2Manifests.ManifestListener;
+
+/**
+ * Passes a manifest's changes on to a view at most once per frame interval. The first change
+ * after a quiet spell reaches the view straight away; changes arriving within the next interval
+ * are held back and delivered together, in order, when the interval ends. A burst of loads driven
+ * by a program therefore costs one view update per frame rather than one per container.
+ * <p>
+ * Each update delivered is counted as a rendered frame, and each notification merged into a
+ * later update instead of getting its own as a dropped frame.
+ * <p>
+ * Changes may be made to the manifest on any thread, such as by a {@link ManifestWorker}. Those
+ * notified on another thread are queued and handed over to the event dispatch thread together,
+ * so the view itself is only ever updated there. Otherwise, like the views it serves, the
+ * scheduler must only be used on the event dispatch thread.
+ *
+ * @author Leandro Rodrigues n9382909
+ */
+public class ViewUpdateScheduler implements ManifestListener {
+
+    /**
+     * The default time between view updates, in milliseconds, about 60 frames a second
+     */
+    public static final int DEFAULT_FRAME_INTERVAL = 16;
+
+    private final ManifestListener view;
+    private final int frameInterval;
+    private final Timer timer;
+    // Hands the changes notified on other threads over to the event dispatch thread
+    private final Runnable handOver = new Runnable() {
+        @Override
+        public void run() {
+            receive(takeQueued());
+        }
+    };
+
+    // Changes notified on other threads which the event dispatch thread has yet to take, and
+    // whether a hand over is already on its way; both guarded by the queue
+    private final List<ManifestEvent> queued = new ArrayList<ManifestEvent>();
+    private boolean handOverDue;
+    private volatile boolean stopped;
+
+    private List<ManifestEvent> pending = new ArrayList<ManifestEvent>();
+    private long lastFrame;
+    private long framesRendered;
+    private long framesDropped;
+
+    /**
+     * Constructs a scheduler for a view with the default frame interval.
+     *
+     * @param view the view to pass the changes on to
+     */
+    public ViewUpdateScheduler(ManifestListener view) {
+        this(view, DEFAULT_FRAME_INTERVAL);
+    }
+
+    /**
+     * Constructs a scheduler for a view.
+     *
+     * @param view the view to pass the changes on to
+     * @param frameInterval the least time between view updates, in milliseconds
+     */
+    public ViewUpdateScheduler(ManifestListener view, int frameInterval) {
+        this.view = view;
+        this.frameInterval = frameInterval;
+        this.timer = new Timer(frameInterval, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                flush();
+            }
+        });
+        this.timer.setRepeats(false);
+        // Allows the first change to go straight through
+        this.lastFrame = System.nanoTime() - frameInterval * 1000000L;
+    }
+
+    /* (non-Javadoc)
+     * @see asgn2Manifests.ManifestListener#manifestChanged(java.util.List)
+     */
+    @Override
+    public void manifestChanged(List<ManifestEvent> events) {
+        // A change notified on another thread just as the view was disconnected is of no use to it
+        if (stopped) {
+            return;
+        }
+        if (!SwingUtilities.isEventDispatchThread()) {
+            // Queues the changes, and hands them over unless a hand over is already due
+            synchronized (queued) {
+                queued.addAll(events);
+                if (handOverDue) {
+                    return;
+                }
+                handOverDue = true;
+            }
+            SwingUtilities.invokeLater(handOver);
+            return;
+        }
+        // Changes queued on other threads came first
+        hold(takeQueued());
+        receive(events);
+    }
+
+    /*
+     * Takes the changes queued on other threads, in order
+     */
+    private List<ManifestEvent> takeQueued() {
+        synchronized (queued) {
+            handOverDue = false;
+            if (queued.isEmpty()) {
+                return Collections.<ManifestEvent>emptyList();
+            }
+            List<ManifestEvent> events = new ArrayList<ManifestEvent>(queued);
+            queued.clear();
+            return events;
+        }
+    }
+
+    /*
+     * Holds back changes on the event dispatch thread, passing them on at once if the interval since the
+     * last update has already passed
+     */
+    private void receive(List<ManifestEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        hold(events);
+        if (timer.isRunning()) {
+            // An update is already due at the end of this interval
+            framesDropped++;
+            return;
+        }
+        long sinceLastFrame = (System.nanoTime() - lastFrame) / 1000000L;
+        if (sinceLastFrame >= frameInterval) {
+            flush();
+        } else {
+            timer.setInitialDelay((int) (frameInterval - sinceLastFrame));
+            timer.start();
+        }
+    }
+
+    /*
+     * Adds changes to those held back for the next update
+     */
+    private void hold(List<ManifestEvent> events) {
+        for (ManifestEvent event : events) {
+            // Nothing before a clearing matters any more
+            if (event.getType() == ManifestEvent.Type.CLEARED) {
+                pending.clear();
+            }
+            pending.add(event);
+        }
+    }
+
+    /**
+     * Delivers any held back changes to the view straight away, for when it must be up to date,
+     * such as after an operation started by the user.
+     */
+    public void flush() {
+        timer.stop();
+        // Includes the changes queued on other threads which have not been handed over yet
+        hold(takeQueued());
+        if (pending.isEmpty()) {
+            return;
+        }
+        // Hands the events over before calling the view, in case it changes the manifest itself
+        List<ManifestEvent> events = Collections.unmodifiableList(pending);
+        pending = new ArrayList<ManifestEvent>();
+        lastFrame = System.nanoTime();
+        framesRendered++;
+        view.manifestChanged(events);
+    }
+
+    /**
+     * Drops any held back changes and stops, once the view is no longer displayed.
+     */
+    public void stop() {
+        stopped = true;
+        timer.stop();
+        takeQueued();
+        pending.clear();
+    }
+
+    /**
+     * Returns how many updates have been delivered to the view.
+     *
+     * @return the number of rendered frames
+     */
+    public long getFramesRendered() {
+        return framesRendered;
+    }
+
+    /**
+     * Returns how many change notifications were merged into a later update instead of getting
+     * their own.
+     *
+     * @return the number of dropped frames
+     */
+    public long getFramesDropped() {
+        return framesDropped;
+    }
+}
@@ -1,11 +1,18 @@
 package asgn2Manifests;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Stack;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.TreeSet;
+
+import javax.management.JMException;
 
 import asgn2Codes.ContainerCode;
+import asgn2Containers.ContainerType;
 import asgn2Containers.FreightContainer;
 import asgn2Exceptions.ManifestException;
 
@@ -42,6 +49,14 @@ import asgn2Exceptions.ManifestException;
  * Furthermore, since the containers are moved by an overhead
  * crane, a container can be unloaded only if it is on top of
  * a stack.
+ * <p>
+ * Changes to the manifest can be followed by registering a
+ * {@link ManifestListener}.  Each single load or unload is reported as
+ * soon as it happens, while a bulk operation reports all of its changes
+ * together once it has finished.
+ * <p>
+ * Counts and timings of the operations can be kept by enabling
+ * {@link ManifestMetrics}, which can be published to JMX consoles.
  *  
  * @author Leandro Rodrigues & Brendan Rothwell n8540683
  * @version 1.0
@@ -50,8 +65,23 @@ public class CargoManifest {
 	private Integer numStacks;
 	private Integer maxHeight;
 	private Integer maxWeight;
-	private ArrayList<Stack<FreightContainer>> manifest;
-	Stack<FreightContainer> stack;
+	private ContainerStacks manifest;
+	// Index of every container on board. Key = packed container code. Value = its stack and tier
+	private CodeIndex locations;
+	// Running totals kept up to date on every load and unload, so they never need a rescan
+	private int totalWeight;
+	private int[] stackWeights;
+	// Free-slot index. Type of each stack (null when empty), the stacks of each type which still have room, and the empty stacks
+	private ContainerType[] stackTypes;
+	private EnumMap<ContainerType, TreeSet<Integer>> openStacks;
+	private TreeSet<Integer> emptyStacks;
+	// Registered listeners, and the events not yet delivered to them. Events are only recorded while someone is listening
+	private List<ManifestListener> listeners;
+	private List<ManifestEvent> pendingEvents;
+	// Number of bulk operations in progress, events are held back until it drops to zero
+	private int batchDepth;
+	// Counts and timings of the operations, null while they are not kept
+	private ManifestMetrics metrics;
 
 	/**
 	 * Constructs a new cargo manifest in preparation for a voyage.
@@ -68,26 +98,101 @@ public class CargoManifest {
 	 * @param maxWeight the maximum weight of containers allowed on board 
 	 * (in tonnes)
 	 * @throws ManifestException if negative numbers are given for any of the
-	 * parameters
+	 * parameters, or if the ship would have too many slots to keep track of
 	 */
 	public CargoManifest(Integer numStacks, Integer maxHeight, Integer maxWeight)
 	throws ManifestException {
 		// Verifies negative inputs
 		if(numStacks < 0 || maxHeight < 0 || maxWeight < 0)
 			throw new ManifestException("Inputs can't be negative");
+		if((long) numStacks * maxHeight > Integer.MAX_VALUE - 8)
+			throw new ManifestException("Too many container slots for one manifest");
 		// Set parameters
 		this.numStacks = numStacks;
 		this.maxHeight = maxHeight;
 		this.maxWeight = maxWeight;
-		// Creates a arrayList of stacks
-		manifest = new ArrayList<Stack<FreightContainer>>();
-		// Create empty stacks
-		for (int i = 0; i < this.numStacks; i++){
-			stack = new Stack <FreightContainer>();
-			manifest.add(stack);
-		}
+		// Creates empty stacks, each with room for maxHeight containers once it is used
+		manifest = new ContainerStacks(this.numStacks, this.maxHeight);
+		// Creates an empty index of containers on board
+		locations = new CodeIndex(0);
+		// Creates the counters, the ship starts empty
+		totalWeight = 0;
+		stackWeights = new int[this.numStacks];
+		// Creates the free-slot index, every stack starts empty (an empty stack has no room if maxHeight is zero)
+		stackTypes = new ContainerType[this.numStacks];
+		openStacks = new EnumMap<ContainerType, TreeSet<Integer>>(ContainerType.class);
+		for (ContainerType type : ContainerType.values())
+			openStacks.put(type, new TreeSet<Integer>());
+		emptyStacks = new TreeSet<Integer>();
+		if(this.maxHeight > 0)
+			for (int i = 0; i < this.numStacks; i++)
+				emptyStacks.add(i);
+		// Creates the listener list, nobody is listening yet
+		listeners = new ArrayList<ManifestListener>();
+		pendingEvents = new ArrayList<ManifestEvent>();
+		batchDepth = 0;
+		// Metrics are off until asked for
+		metrics = null;
+	}
+	
+	/**
+	 * Registers a listener to be told about every later change to the manifest.
+	 * 
+	 * @param listener the listener to add
+	 */
+	public void addManifestListener(ManifestListener listener) {
+		listeners.add(listener);
+	}
+	
+	/**
+	 * Stops a listener being told about changes to the manifest.
+	 * 
+	 * @param listener the listener to remove
+	 */
+	public void removeManifestListener(ManifestListener listener) {
+		listeners.remove(listener);
 	}
 
+	/**
+	 * Starts keeping counts and timings of the operations on this manifest,
+	 * if they are not kept already.
+	 * 
+	 * @return the metrics of this manifest
+	 */
+	public ManifestMetrics enableMetrics() {
+		if(metrics == null)
+			metrics = new ManifestMetrics(this);
+		return metrics;
+	}
+	
+	/**
+	 * Stops keeping counts and timings of the operations on this manifest,
+	 * and removes them from the platform MBean server if they were
+	 * registered.  Metrics already returned keep their counts, but no
+	 * longer change.
+	 */
+	public void disableMetrics() {
+		if(metrics == null)
+			return;
+		try {
+			metrics.unregister();
+		} catch (JMException e) {
+			// Only metrics this manifest registered are unregistered, which the platform server does not refuse
+			throw new IllegalStateException(e);
+		} finally {
+			metrics = null;
+		}
+	}
+	
+	/**
+	 * Returns the counts and timings of the operations on this manifest.
+	 * 
+	 * @return the metrics, or <code>null</code> if they are not kept
+	 */
+	public ManifestMetrics getMetrics() {
+		return metrics;
+	}
+	
 	/**
 	 * Loads a freight container onto the ship, provided that it can be
 	 * accommodated within the five rules set by the captain.
@@ -99,79 +204,249 @@ public class CargoManifest {
 	 * container
 	 */
 	public void loadContainer(FreightContainer newContainer) throws ManifestException {
+		ManifestResult result = tryLoadContainer(newContainer);
+		if(result != ManifestResult.OK)
+			throw new ManifestException(result.getMessage());
+	}
+	
+	/**
+	 * Loads a freight container onto the ship, provided that it can be
+	 * accommodated within the five rules set by the captain.  Unlike
+	 * {@link #loadContainer(FreightContainer)} a rejection is reported
+	 * through the returned value rather than an exception.
+	 * 
+	 * @param newContainer the new freight container to be loaded
+	 * @return {@link ManifestResult#OK} if the container was loaded;
+	 * {@link ManifestResult#DUPLICATE} if a container with the same code
+	 * is already on board; {@link ManifestResult#OVERWEIGHT} if adding this
+	 * container would exceed the ship's weight limit; or
+	 * {@link ManifestResult#NO_SPACE} if no suitable space can be found
+	 */
+	public ManifestResult tryLoadContainer(FreightContainer newContainer) {
+		ManifestResult result;
+		if(metrics == null)
+			result = placeContainer(newContainer);
+		else {
+			// Listeners are told after the clock stops, so only the placement itself is timed
+			long started = metrics.startTiming();
+			result = placeContainer(newContainer);
+			metrics.loadDone(result, started);
+		}
+		fireEvents();
+		return result;
+	}
+	
+	/*
+	 * Helper Function to load a container following the captain's rules, or return the rule it breaks. Listeners
+	 * are not told until the caller fires the events
+	 */
+	private ManifestResult placeContainer(FreightContainer newContainer) {
 		// First checks for a repeated code
-		if(whichStack(newContainer.getCode()) != null)
-			throw new ManifestException("Container with same code is aready on board");
+		if(locations.find(newContainer.getCode().toKey()) >= 0)
+			return ManifestResult.DUPLICATE;
 		// After checks for the ship weight limit
-		if(getActualWeight() + newContainer.getGrossWeight() > this.maxWeight)
-			throw new ManifestException("Adding this container would exceed the ship's weight limit");
+		if(totalWeight + newContainer.getGrossWeight() > this.maxWeight)
+			return ManifestResult.OVERWEIGHT;
 		
-		// Create a hashmap with a summary of every stack.  Key = stack index. Value = Its Height / Its Class type
-		HashMap<Integer, String> stackSpaceAndType = checkStacks();
+		// Finds the stack nearest the bridge which can take this container and adds the container into it
+		int stackNo = findStack(newContainer.getType());
+		if(stackNo < 0)
+			return ManifestResult.NO_SPACE;
+		pushContainer(stackNo, newContainer);
+		return ManifestResult.OK;
+	}
+	
+	/**
+	 * Loads a batch of freight containers onto the ship, either all of them
+	 * or none of them.  The containers are loaded in the order given, each
+	 * one according to the five rules set by the captain, so the result is
+	 * the same as loading them one at a time.  If any one of them cannot be
+	 * loaded the manifest is left as it was before the call.
+	 * 
+	 * @param batch the new freight containers to be loaded
+	 * @throws ManifestException if adding these containers would exceed
+	 * the ship's weight limit; if two containers in the batch have the same
+	 * code or a container with the same code is already on board; or if no
+	 * suitable space can be found for one of the containers
+	 */
+	public void loadContainers(Collection<FreightContainer> batch) throws ManifestException {
+		// First checks codes and the total weight of the batch in a single pass, before anything is loaded
+		CodeIndex batchCodes = new CodeIndex(batch.size());
+		int batchWeight = 0;
+		for (FreightContainer newContainer : batch) {
+			long key = newContainer.getCode().toKey();
+			if(locations.find(key) >= 0 || batchCodes.find(key) >= 0)
+				throw batchRefused(ManifestResult.DUPLICATE);
+			batchCodes.put(key, 0, 0);
+			batchWeight += newContainer.getGrossWeight();
+		}
+		if(totalWeight + batchWeight > this.maxWeight)
+			throw batchRefused(ManifestResult.OVERWEIGHT);
 		
-		// Controller to assert if was possible to load the container
-		int controller = 0 ;
-		// Iterates through all stacks
-		for(int i = 0; i < stackSpaceAndType.size(); i++){
-			// Gets stack's HashMap value
-			String classAndHeightString = stackSpaceAndType.get(i);
-			// Split stacks's HashMap value into an array. Index 0 is its height, index 1 is its class
-			String[] stackStringHeight = classAndHeightString.split("/");
-			// Check if newContainer is the same type of the actual stack and also if the there's an available space in the stack
-			if(stackStringHeight[1].equals(newContainer.getClass().toString()) && Integer.parseInt(stackStringHeight[0]) < this.maxHeight){
-				// If so controller gets 1, means it was possible to find a place for the container
-				controller = 1;
-				// Adds the container into the stack and breaks the loop
-				manifest.get(i).push(newContainer);
-				break;
+		// Then loads the containers, the only possible failure left is running out of space
+		int loaded = 0;
+		int firstEvent = pendingEvents.size();
+		batchDepth++;
+		try {
+			for (FreightContainer newContainer : batch) {
+				if(placeContainer(newContainer) != ManifestResult.OK)
+					break;
+				loaded++;
 			}
-			// Else checks if stack is empty, if so controller gets 1 (form the same reason that before) and adds container and breaks the loop
-			else if(stackStringHeight[1].equals("Empty")){
-				controller = 1;
-				manifest.get(i).push(newContainer);
-				break;
+			if(loaded < batch.size()){
+				// If some container did not fit, unloads the ones loaded so far, newest first, since each is on top of its stack
+				FreightContainer[] toUnload = batch.toArray(new FreightContainer[batch.size()]);
+				for (int i = loaded - 1; i >= 0; i--)
+					removeContainer(toUnload[i].getCode());
+				// Nothing has changed, so listeners are told nothing
+				pendingEvents.subList(firstEvent, pendingEvents.size()).clear();
 			}
+		} finally {
+			batchDepth--;
 		}
-		
-		// If it was not possible to find a place to this container (controller == 0) then throws an exception
-		if(controller == 0)
-			throw new ManifestException("No suitable space can be found for this container");
-		
-		
+		fireEvents();
+		if(loaded < batch.size())
+			throw batchRefused(ManifestResult.NO_SPACE);
+		if(metrics != null)
+			metrics.batchLoaded(loaded);
+	}
+	
+	/*
+	 * Helper Function to count a bulk load refused as a whole, returning the exception to throw
+	 */
+	private ManifestException batchRefused(ManifestResult result) {
+		if(metrics != null)
+			metrics.loadDone(result, 0);
+		return new ManifestException(result.getMessage());
+	}
+	
+	/**
+	 * Loads as many of a batch of freight containers as possible.  The
+	 * containers are loaded in the order given, each one according to the
+	 * five rules set by the captain, and a container which cannot be loaded
+	 * is simply skipped.
+	 * 
+	 * @param batch the new freight containers to be loaded
+	 * @return the outcome for each container, in the order of the batch
+	 * (see {@link #tryLoadContainer(FreightContainer)})
+	 */
+	public ManifestResult[] tryLoadContainers(Collection<FreightContainer> batch) {
+		ManifestResult[] results = new ManifestResult[batch.size()];
+		int i = 0;
+		batchDepth++;
+		try {
+			for (FreightContainer newContainer : batch)
+				results[i++] = tryLoadContainer(newContainer);
+		} finally {
+			batchDepth--;
+		}
+		fireEvents();
+		return results;
+	}
+	
+	/**
+	 * Unloads every container from the ship at once, regardless of the
+	 * order they are stacked in.  Listeners are sent a single cleared event.
+	 */
+	public void clear() {
+		// Empties the stacks and the index, and resets the counters
+		manifest.clear();
+		locations = new CodeIndex(0);
+		totalWeight = 0;
+		Arrays.fill(stackWeights, 0);
+		// Every stack is empty again
+		Arrays.fill(stackTypes, null);
+		for (TreeSet<Integer> sameType : openStacks.values())
+			sameType.clear();
+		emptyStacks.clear();
+		if(this.maxHeight > 0)
+			for (int i = 0; i < this.numStacks; i++)
+				emptyStacks.add(i);
+		if(metrics != null)
+			metrics.cleared();
+		// Earlier changes not yet delivered no longer matter, only the clearing does
+		pendingEvents.clear();
+		if(!listeners.isEmpty())
+			pendingEvents.add(new ManifestEvent(ManifestEvent.Type.CLEARED, null, -1, -1));
+		fireEvents();
 	}
 	
 	/*
-	 * Helper Function to get actual of the ship
-	 */
-	private Integer getActualWeight(){
-		Integer actualWeight = 0;
-		// Iterates through all the stacks adding all containers weight
-		for (int i = 0; i < manifest.size(); i++) {
-			for (int j = 0; j <  manifest.get(i).size(); j++)
-				actualWeight = actualWeight + manifest.get(i).elementAt(j).getGrossWeight();
+	 * Helper Function to deliver the pending events to the listeners, unless a bulk operation is still in progress
+	 */
+	private void fireEvents(){
+		if(batchDepth > 0 || pendingEvents.isEmpty())
+			return;
+		// Hands the events over before calling out, so listeners may change the manifest themselves
+		List<ManifestEvent> events = Collections.unmodifiableList(pendingEvents);
+		pendingEvents = new ArrayList<ManifestEvent>();
+		ManifestListener[] toNotify = listeners.toArray(new ManifestListener[listeners.size()]);
+		for (ManifestListener listener : toNotify)
+			listener.manifestChanged(events);
+	}
+	
+	/*
+	 * Helper Function to find the lowest numbered stack which is either of the given type with room left, or empty.
+	 * Returns -1 if there is no such stack
+	 */
+	private int findStack(ContainerType type){
+		TreeSet<Integer> sameType = openStacks.get(type);
+		int stackNo = -1;
+		if(!sameType.isEmpty())
+			stackNo = sameType.first();
+		if(!emptyStacks.isEmpty() && (stackNo < 0 || emptyStacks.first() < stackNo))
+			stackNo = emptyStacks.first();
+		return stackNo;
+	}
+	
+	/*
+	 * Helper Function to push a container onto a stack and record its location in the index
+	 */
+	private void pushContainer(int stackNo, FreightContainer newContainer){
+		int weight = newContainer.getGrossWeight();
+		int tier = manifest.push(stackNo, newContainer);
+		locations.put(newContainer.getCode().toKey(), stackNo, tier);
+		// Updates the counters
+		stackWeights[stackNo] += weight;
+		totalWeight += weight;
+		// Updates the free-slot index, the stack now has this container's type and may have become full
+		if(stackTypes[stackNo] == null){
+			stackTypes[stackNo] = newContainer.getType();
+			emptyStacks.remove(stackNo);
+			openStacks.get(stackTypes[stackNo]).add(stackNo);
 		}
-		
-		return actualWeight;
+		if(manifest.height(stackNo) >= maxHeight)
+			openStacks.get(stackTypes[stackNo]).remove(stackNo);
+		if(!listeners.isEmpty())
+			pendingEvents.add(new ManifestEvent(ManifestEvent.Type.LOADED, newContainer, stackNo, tier));
 	}
 	
 	/*
-	 * Helper Function to get information about height and class of each stack
+	 * Prepares an empty manifest to be restored, sizing the index for the given number of containers at once
+	 * rather than letting it grow as they arrive
 	 */
-	private HashMap<Integer, String> checkStacks(){
-		//Create a hashmap with a summary of every stack.  Key = stack index. Value = Its Height / Its Class type
-		HashMap<Integer, String> stackSpaceAndType = new HashMap<Integer, String>();
-		
-		// Iterates through all the stacks checking if its empty or what is its height/class type
-		for (int i = 0; i < manifest.size(); i++) 
-			if(manifest.get(i).size() > 0)
-				stackSpaceAndType.put(i, manifest.get(i).size()+"/"+manifest.get(i).peek().getClass().toString());
-			else
-				stackSpaceAndType.put(i, "Empty/Empty");
-		
-		return stackSpaceAndType;
+	void reserve(int expected) {
+		if(locations.size() == 0)
+			locations = new CodeIndex(expected);
+	}
+	
+	/*
+	 * Puts a container back on top of a given stack, as recorded in a snapshot, rather than where the captain's
+	 * rules would place it. The rules which do not concern placement are still enforced
+	 */
+	void restoreContainer(int stackNo, FreightContainer container) throws ManifestException {
+		if(stackNo < 0 || stackNo >= numStacks || manifest.height(stackNo) >= maxHeight)
+			throw new ManifestException(ManifestResult.NO_SPACE.getMessage());
+		if(stackTypes[stackNo] != null && stackTypes[stackNo] != container.getType())
+			throw new ManifestException("Stack " + stackNo + " holds containers of another type");
+		if(locations.find(container.getCode().toKey()) >= 0)
+			throw new ManifestException(ManifestResult.DUPLICATE.getMessage());
+		if(totalWeight + container.getGrossWeight() > this.maxWeight)
+			throw new ManifestException(ManifestResult.OVERWEIGHT.getMessage());
+		pushContainer(stackNo, container);
+		fireEvents();
 	}
 	
-
 	/**
 	 * Unloads a particular container from the ship, provided that
 	 * it is accessible (i.e., on top of a stack).
@@ -182,25 +457,220 @@ public class CargoManifest {
 	 * the ship at all)
 	 */
 	public void unloadContainer(ContainerCode containerId) throws ManifestException {
-		int controller = 0;
-		// Iterates through all stacks checking if the container at the top (peek) has the same code of the one the user is trying to unload. 
-		for (int i = 0; i < manifest.size(); i++) {
-			if(!manifest.get(i).isEmpty()){
-				if(manifest.get(i).peek().getCode().equals(containerId)){
-					// If exist a container on the top of the stack with the code, then remove it and assign 1 to the controller
-					manifest.get(i).pop();
-					controller = 1;
-				}
-			}
+		ManifestResult result = tryUnloadContainer(containerId);
+		if(result != ManifestResult.OK)
+			throw new ManifestException(result.getMessage());
+	}
+	
+	/**
+	 * Unloads a particular container from the ship, provided that
+	 * it is accessible (i.e., on top of a stack).  Unlike
+	 * {@link #unloadContainer(ContainerCode)} a rejection is reported
+	 * through the returned value rather than an exception.
+	 * 
+	 * @param containerId the code of the container to be unloaded
+	 * @return {@link ManifestResult#OK} if the container was unloaded; or
+	 * {@link ManifestResult#NOT_ACCESSIBLE} if it's not on the top of a stack
+	 * (including the case where it's not on board the ship at all)
+	 */
+	public ManifestResult tryUnloadContainer(ContainerCode containerId) {
+		ManifestResult result;
+		if(metrics == null)
+			result = removeContainer(containerId);
+		else {
+			// Listeners are told after the clock stops, so only the removal itself is timed
+			long started = metrics.startTiming();
+			result = removeContainer(containerId);
+			metrics.unloadDone(result, started);
 		}
+		fireEvents();
+		return result;
+	}
+	
+	/*
+	 * Helper Function to unload a container if it is on top of a stack. Listeners are not told until the caller
+	 * fires the events
+	 */
+	private ManifestResult removeContainer(ContainerCode containerId) {
+		// Looks up where the container is, it can only be unloaded if it is on board and at the top of its stack
+		int slot = findSlot(containerId);
+		if(slot < 0 || locations.tierAt(slot) != manifest.height(locations.stackAt(slot)) - 1)
+			return ManifestResult.NOT_ACCESSIBLE;
 		
-		// If it was not possible to find a container at the top of any stack (controller == 0) then throws an exception
-		if(controller == 0)
-			throw new ManifestException("Container Code not on the top of any container stack or is not on board");
-			
+		// Removes the container from its stack and from the index, then updates the counters
+		int stackNo = locations.stackAt(slot);
+		FreightContainer container = manifest.pop(stackNo);
+		int weight = container.getGrossWeight();
+		locations.removeAt(slot);
+		stackWeights[stackNo] -= weight;
+		totalWeight -= weight;
+		// Updates the free-slot index, the stack has room again or has become empty
+		TreeSet<Integer> sameType = openStacks.get(stackTypes[stackNo]);
+		if(manifest.height(stackNo) == 0){
+			sameType.remove(stackNo);
+			stackTypes[stackNo] = null;
+			emptyStacks.add(stackNo);
+		}
+		else
+			sameType.add(stackNo);
+		if(!listeners.isEmpty())
+			pendingEvents.add(new ManifestEvent(ManifestEvent.Type.UNLOADED, container, stackNo, manifest.height(stackNo)));
+		return ManifestResult.OK;
+	}
+
+	/**
+	 * Returns the number of stacks on deck.
+	 * 
+	 * @return the number of stacks
+	 */
+	public Integer getNumStacks() {
+		return numStacks;
 	}
 
 	
+	/**
+	 * Returns the maximum allowable height of any stack.
+	 * 
+	 * @return the maximum stack height
+	 */
+	public Integer getMaxHeight() {
+		return maxHeight;
+	}
+
+	
+	/**
+	 * Returns the maximum weight of containers allowed on board.
+	 * 
+	 * @return the weight limit (in tonnes)
+	 */
+	public Integer getMaxWeight() {
+		return maxWeight;
+	}
+
+	
+	/**
+	 * Returns the total weight of all containers currently on board.
+	 * 
+	 * @return the weight on board (in tonnes)
+	 */
+	public Integer getTotalWeight() {
+		return totalWeight;
+	}
+
+	
+	/**
+	 * Returns how much more weight can be loaded before the ship's weight
+	 * limit is reached.
+	 * 
+	 * @return the remaining weight capacity (in tonnes)
+	 */
+	public Integer getRemainingCapacity() {
+		return maxWeight - totalWeight;
+	}
+
+	
+	/**
+	 * Returns the total weight of the containers in a particular stack.
+	 * 
+	 * @param stackNo the number of the stack of interest
+	 * @return the weight of the stack (in tonnes)
+	 * @throws ManifestException if there is no such stack on the ship
+	 */
+	public Integer getStackWeight(Integer stackNo) throws ManifestException {
+		checkStackNo(stackNo);
+		return stackWeights[stackNo];
+	}
+
+	
+	/**
+	 * Returns the number of containers in a particular stack.
+	 * 
+	 * @param stackNo the number of the stack of interest
+	 * @return the height of the stack
+	 * @throws ManifestException if there is no such stack on the ship
+	 */
+	public Integer getStackHeight(Integer stackNo) throws ManifestException {
+		checkStackNo(stackNo);
+		return manifest.height(stackNo);
+	}
+
+	
+	/**
+	 * Returns the container at a particular position on board, without
+	 * copying the stack as {@link #toArray(Integer)} does.
+	 * 
+	 * @param stackNo the number of the stack of interest
+	 * @param tier the position in the stack (0 is the bottom of the stack)
+	 * @return the container at that position
+	 * @throws ManifestException if there is no such stack on the ship, or
+	 * no container at that position in the stack
+	 */
+	public FreightContainer getContainer(Integer stackNo, Integer tier) throws ManifestException {
+		checkStackNo(stackNo);
+		if(tier == null || tier < 0 || tier >= manifest.height(stackNo))
+			throw new ManifestException("There is no container at this position");
+		return manifest.get(stackNo, tier);
+	}
+
+	/*
+	 * Returns the container at a position known to be on board, without checking it or boxing the numbers, for
+	 * classes which walk every stack
+	 */
+	FreightContainer containerAt(int stackNo, int tier) {
+		return manifest.get(stackNo, tier);
+	}
+
+	/*
+	 * Returns the height of a stack known to be on the ship, without checking it or boxing the numbers
+	 */
+	int heightOf(int stackNo) {
+		return manifest.height(stackNo);
+	}
+
+	/*
+	 * Returns the number of containers on board
+	 */
+	int containerCount() {
+		return locations.size();
+	}
+
+	/*
+	 * Returns the number of stacks with no container in them
+	 */
+	int emptyStackCount() {
+		return maxHeight > 0 ? emptyStacks.size() : numStacks;
+	}
+
+	/*
+	 * Helper Function to verify that a stack number refers to a stack on the ship
+	 */
+	private void checkStackNo(Integer stackNo) throws ManifestException {
+		if(stackNo == null || stackNo < 0 || stackNo >= numStacks)
+			throw new ManifestException("There is no such stack on this ship");
+	}
+
+	/*
+	 * Helper Function to find a container's slot in the index for a query, counted and timed in the metrics.
+	 * Returns -1 if it is not on board
+	 */
+	private int lookUp(ContainerCode code){
+		if(metrics == null)
+			return findSlot(code);
+		long started = metrics.startTiming();
+		int slot = findSlot(code);
+		metrics.lookupDone(started);
+		return slot;
+	}
+
+	/*
+	 * Helper Function to find a container's slot in the index. Returns -1 if it is not on board
+	 */
+	private int findSlot(ContainerCode code){
+		if(code == null)
+			return -1;
+		return locations.find(code.toKey());
+	}
+
 	/**
 	 * Returns which stack holds a particular container, if any.  The
 	 * container of interest is identified by its unique
@@ -212,15 +682,11 @@ public class CargoManifest {
 	 * if the container is not on board
 	 */
 	public Integer whichStack(ContainerCode queryContainer) {
-		// Iterates through all stacks checking if exists a container in the stack with the same code, if so return its stack index
-		for (int i = 0; i < manifest.size(); i++) {
-			for (int j = 0; j <  manifest.get(i).size(); j++)
-				if(manifest.get(i).elementAt(j).getCode().equals(queryContainer))
-					return i;
-		}
-		
-		// If it was not possible to find the container then returns null
-		return null;
+		// Looks up the container in the index, if it is not on board then returns null
+		int slot = lookUp(queryContainer);
+		if(slot < 0)
+			return null;
+		return locations.stackAt(slot);
 	}
 
 	
@@ -237,15 +703,11 @@ public class CargoManifest {
 	 * if the container is not on board
 	 */
 	public Integer howHigh(ContainerCode queryContainer) {
-		// Iterates through all stacks checking if exists a container in the stack with the same code, if so returns its height
-		for (int i = 0; i < manifest.size(); i++) {
-			for (int j = 0; j <  manifest.get(i).size(); j++)
-				if(manifest.get(i).elementAt(j).getCode().equals(queryContainer))
-					return j;
-		}
-		
-		// If it was not possible to find the container then returns null
-		return null;
+		// Looks up the container in the index, if it is not on board then returns null
+		int slot = lookUp(queryContainer);
+		if(slot < 0)
+			return null;
+		return locations.tierAt(slot);
 	}
 
 
@@ -258,46 +720,74 @@ public class CargoManifest {
 	 * @throws ManifestException if there is no such stack on the ship
 	 */
 	public FreightContainer[] toArray(Integer stackNo) throws ManifestException {
-		// If exists a stack with the given index then convert it to an array and returns it
-		if(manifest.size() >= stackNo){
-			int size = manifest.get(stackNo).size();
-			FreightContainer[]convertedStack = new FreightContainer[size];
-			convertedStack = manifest.get(stackNo).toArray(convertedStack);
-
-			return convertedStack;
-		}
-		// If there's no such stack then throws an exception
-		else
-			throw new ManifestException("There is no such stack on this ship");
+		// If there's no such stack then throws an exception, else copies the stack into an array and returns it
+		checkStackNo(stackNo);
+		return manifest.toArray(stackNo);
 	}
 
 	
 	/* ***** toString methods added to support the GUI ***** */
 	
 	public String toString(ContainerCode toFind) {
-		//Some variables here are used and not declared. You can work it out 
-		String toReturn = "";
-		for (int i = 0; i < manifest.size(); ++i) {
-			ArrayList<FreightContainer> currentStack = null;
-			// Tries to convert an Array as an arraylist
-			try {
-				currentStack = new ArrayList<FreightContainer>(Arrays.asList(this.toArray(i)));
-			} catch (ManifestException e) {
-				e.printStackTrace();
-			}
-			toReturn += "|";
-			for (int j = 0; j < currentStack.size(); ++j) {
-				if (toFind != null && currentStack.get(j).getCode().equals(toFind))
-					toReturn += "|*" + currentStack.get(j).getCode().toString() + "*|";
-				else
-					toReturn += "| " + currentStack.get(j).getCode().toString() + " |";
-			}
-			if (currentStack.size() == 0)
-				toReturn +=  "|  ||\n";
+		// Sizes the buffer for every container line up front: "|| " + code + " ||" per container and "||  ||\n" per stack
+		long length = 15L * locations.size() + 6L * numStacks;
+		StringBuilder toReturn = new StringBuilder((int) Math.min(length, Integer.MAX_VALUE - 8));
+		try {
+			writeTo(toReturn, toFind);
+		} catch (IOException e) {
+			// A StringBuilder never throws IOException
+			throw new IllegalStateException(e);
+		}
+		return toReturn.toString();
+	}
+	
+	/**
+	 * Writes the contents of the ship in the same layout as
+	 * {@link #toString(ContainerCode)}, one line per stack from stack 0,
+	 * straight to the given destination without building the whole text
+	 * first.
+	 * 
+	 * @param out where the text is written, such as a <code>Writer</code> or <code>StringBuilder</code>
+	 * @param toFind the code of a container to mark with asterisks, or <code>null</code>
+	 * @throws IOException if writing to the destination fails
+	 */
+	public void writeTo(Appendable out, ContainerCode toFind) throws IOException {
+		for (int i = 0; i < numStacks; ++i)
+			writeStack(out, i, toFind);
+	}
+	
+	/**
+	 * Writes the line of a single stack in the same layout as
+	 * {@link #toString(ContainerCode)}, including the line break.
+	 * 
+	 * @param out where the text is written
+	 * @param stackNo the number of the stack
+	 * @param toFind the code of a container to mark with asterisks, or <code>null</code>
+	 * @throws IOException if writing to the destination fails
+	 * @throws ManifestException if there is no such stack on the ship
+	 */
+	public void writeStackTo(Appendable out, Integer stackNo, ContainerCode toFind) throws IOException, ManifestException {
+		checkStackNo(stackNo);
+		writeStack(out, stackNo, toFind);
+	}
+	
+	/*
+	 * Writes one stack's line, bottom container first, reading the stack storage directly
+	 */
+	private void writeStack(Appendable out, int stackNo, ContainerCode toFind) throws IOException {
+		int height = manifest.height(stackNo);
+		out.append('|');
+		for (int j = 0; j < height; ++j) {
+			ContainerCode code = manifest.get(stackNo, j).getCode();
+			if (toFind != null && code.equals(toFind))
+				out.append("|*").append(code.toString()).append("*|");
 			else
-				toReturn += "|\n";
+				out.append("| ").append(code.toString()).append(" |");
 		}
-		return toReturn;
+		if (height == 0)
+			out.append("|  ||\n");
+		else
+			out.append("|\n");
 	}
 
 	@Override
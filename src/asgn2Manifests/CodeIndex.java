@@ -0,0 +1,162 @@
+package asgn2Manifests;
+
+import java.util.Arrays;
+
+/**
+ * An index from the packed key of a container code to the container's
+ * position on board, i.e., its stack number and tier.  Keys and positions
+ * are held in parallel primitive arrays using open addressing, so lookups
+ * need neither boxing nor a wrapper object per container.
+ * <p>
+ * Packed keys are never negative, so an empty slot is marked with -1.
+ * Removal shifts later entries of the same probe sequence back, so no
+ * tombstones are left behind.
+ * 
+ * @author Leandro Rodrigues & Brendan Rothwell n8540683
+ * @version 1.0
+ */
+class CodeIndex {
+	private static final long EMPTY = -1L;
+	private static final int MINIMUM_CAPACITY = 16;
+
+	private long[] keys;
+	private int[] stacks;
+	private int[] tiers;
+	private int size;
+	private int mask;
+
+	/**
+	 * Constructs an empty index with room for the given number of
+	 * containers before it needs to grow.
+	 * 
+	 * @param expected the number of containers expected on board
+	 */
+	CodeIndex(int expected) {
+		int capacity = MINIMUM_CAPACITY;
+		// Keeps the table at most half full
+		while (capacity < expected * 2L && capacity < (1 << 30))
+			capacity <<= 1;
+		allocate(capacity);
+	}
+
+	/*
+	 * Helper Function to create empty tables of the given capacity (a power of two)
+	 */
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		stacks = new int[capacity];
+		tiers = new int[capacity];
+		mask = capacity - 1;
+		size = 0;
+	}
+
+	/*
+	 * Helper Function to get the first slot to probe for a key
+	 */
+	private int slotOf(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	/**
+	 * Returns the slot holding a key.
+	 * 
+	 * @param key the packed key of a container code
+	 * @return the slot, or -1 if the key is not in the index
+	 */
+	int find(long key) {
+		int slot = slotOf(key);
+		while (keys[slot] != EMPTY) {
+			if (keys[slot] == key)
+				return slot;
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the stack number stored in a slot.
+	 * 
+	 * @param slot a slot returned by {@link #find(long)}
+	 * @return the stack number
+	 */
+	int stackAt(int slot) {
+		return stacks[slot];
+	}
+
+	/**
+	 * Returns the tier stored in a slot.
+	 * 
+	 * @param slot a slot returned by {@link #find(long)}
+	 * @return the tier
+	 */
+	int tierAt(int slot) {
+		return tiers[slot];
+	}
+
+	/**
+	 * Records the position of a container which is not yet in the index.
+	 * 
+	 * @param key the packed key of the container's code
+	 * @param stack the container's stack number
+	 * @param tier the container's tier
+	 */
+	void put(long key, int stack, int tier) {
+		if ((size + 1) * 2 > keys.length)
+			grow();
+		int slot = slotOf(key);
+		while (keys[slot] != EMPTY)
+			slot = (slot + 1) & mask;
+		keys[slot] = key;
+		stacks[slot] = stack;
+		tiers[slot] = tier;
+		size++;
+	}
+
+	/**
+	 * Removes the entry in a slot, moving back any later entries which
+	 * would otherwise no longer be found.
+	 * 
+	 * @param slot a slot returned by {@link #find(long)}
+	 */
+	void removeAt(int slot) {
+		int hole = slot;
+		int next = (hole + 1) & mask;
+		while (keys[next] != EMPTY) {
+			int home = slotOf(keys[next]);
+			// Moves the entry back if the hole lies between its home slot and where it is now
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				keys[hole] = keys[next];
+				stacks[hole] = stacks[next];
+				tiers[hole] = tiers[next];
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+		keys[hole] = EMPTY;
+		size--;
+	}
+
+	/**
+	 * Returns the number of containers in the index.
+	 * 
+	 * @return the number of entries
+	 */
+	int size() {
+		return size;
+	}
+
+	/*
+	 * Helper Function to double the capacity of the tables, re-inserting every entry
+	 */
+	private void grow() {
+		long[] oldKeys = keys;
+		int[] oldStacks = stacks;
+		int[] oldTiers = tiers;
+		allocate(oldKeys.length * 2);
+		for (int i = 0; i < oldKeys.length; i++)
+			if (oldKeys[i] != EMPTY)
+				put(oldKeys[i], oldStacks[i], oldTiers[i]);
+	}
+}
@@ -0,0 +1,420 @@
+package asgn2Manifests;
+
+import java.util.EnumMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import asgn2Codes.ContainerCode;
+import asgn2Containers.ContainerType;
+import asgn2Containers.FreightContainer;
+import asgn2Exceptions.ManifestException;
+
+/**
+ * A cargo manifest which may be used by several threads at once, for
+ * instance by several cranes and gate clerks working on the same vessel.
+ * It follows the same five rules set by the captain as
+ * {@link CargoManifest}, but offers only its core operations: loading and
+ * unloading single containers (with or without an exception on refusal),
+ * {@link #whichStack(ContainerCode)}, {@link #howHigh(ContainerCode)},
+ * {@link #toArray(Integer)}, and the total weight, remaining capacity and
+ * the weight and height of each stack.  There are no bulk loads, no
+ * clearing, no listeners, no printed form and no getters for the ship's
+ * parameters.
+ * <p>
+ * Every load takes a single lock for the whole ship, so loads never run
+ * in parallel with each other.  That keeps the weight limit, the duplicate
+ * code rule and the choice of the stack nearest the bridge consistent
+ * across the whole ship; the chosen stack is then locked only for the
+ * moment the container is placed on it.  Only unloads and lookups run in
+ * parallel: each stack has its own lock, so unloads from different stacks
+ * proceed at the same time, alongside a load.
+ * <p>
+ * Lookups never block.  {@link #whichStack(ContainerCode)} and
+ * {@link #howHigh(ContainerCode)} read a concurrent index, and
+ * {@link #toArray(Integer)} copies a stack optimistically: every stack
+ * has a version number which is odd while the stack is being changed,
+ * and a copy is only returned if the version was even and unchanged
+ * throughout.  After a few failed attempts the copy is taken under the
+ * stack's lock instead.
+ * 
+ * @author Leandro Rodrigues & Brendan Rothwell n8540683
+ * @version 1.0
+ */
+public class ConcurrentCargoManifest {
+	// Number of optimistic attempts to copy a stack before taking its lock
+	private static final int OPTIMISTIC_ATTEMPTS = 4;
+
+	private final int numStacks;
+	private final int maxHeight;
+	private final int maxWeight;
+
+	// Containers of stack i are at slots i * maxHeight up to i * maxHeight + height(i) - 1
+	private final AtomicReferenceArray<FreightContainer> slots;
+	private final AtomicIntegerArray stackHeights;
+	private final AtomicIntegerArray stackWeights;
+	private final AtomicInteger totalWeight;
+	// Per-stack locks and version numbers (odd while the stack is being changed)
+	private final ReentrantLock[] stackLocks;
+	private final AtomicLongArray versions;
+	// Lock taken by every load, so that admission checks are made one load at a time
+	private final ReentrantLock admission;
+	// Index of every container on board. Key = packed container code. Value = stack and tier packed in a long
+	private final ConcurrentHashMap<Long, Long> locations;
+	// Free-slot index. Membership of a stack only changes while its lock is held
+	private final ContainerType[] stackTypes;
+	private final EnumMap<ContainerType, ConcurrentSkipListSet<Integer>> openStacks;
+	private final ConcurrentSkipListSet<Integer> emptyStacks;
+
+	/**
+	 * Constructs a new cargo manifest in preparation for a voyage.  See the
+	 * constructor of {@link CargoManifest} for the meaning of the parameters.
+	 * 
+	 * @param numStacks the number of stacks that can be accommodated on deck
+	 * @param maxHeight the maximum allowable height of any stack
+	 * @param maxWeight the maximum weight of containers allowed on board 
+	 * (in tonnes)
+	 * @throws ManifestException if negative numbers are given for any of the
+	 * parameters, or if the ship would have too many slots to keep track of
+	 */
+	public ConcurrentCargoManifest(Integer numStacks, Integer maxHeight, Integer maxWeight)
+	throws ManifestException {
+		// Verifies negative inputs
+		if(numStacks < 0 || maxHeight < 0 || maxWeight < 0)
+			throw new ManifestException("Inputs can't be negative");
+		if((long) numStacks * maxHeight > Integer.MAX_VALUE - 8)
+			throw new ManifestException("Too many container slots for one manifest");
+		// Set parameters
+		this.numStacks = numStacks;
+		this.maxHeight = maxHeight;
+		this.maxWeight = maxWeight;
+		// Creates empty stacks, counters and locks
+		slots = new AtomicReferenceArray<FreightContainer>(this.numStacks * this.maxHeight);
+		stackHeights = new AtomicIntegerArray(this.numStacks);
+		stackWeights = new AtomicIntegerArray(this.numStacks);
+		totalWeight = new AtomicInteger();
+		stackLocks = new ReentrantLock[this.numStacks];
+		for (int i = 0; i < this.numStacks; i++)
+			stackLocks[i] = new ReentrantLock();
+		versions = new AtomicLongArray(this.numStacks);
+		admission = new ReentrantLock();
+		locations = new ConcurrentHashMap<Long, Long>();
+		// Creates the free-slot index, every stack starts empty (an empty stack has no room if maxHeight is zero)
+		stackTypes = new ContainerType[this.numStacks];
+		openStacks = new EnumMap<ContainerType, ConcurrentSkipListSet<Integer>>(ContainerType.class);
+		for (ContainerType type : ContainerType.values())
+			openStacks.put(type, new ConcurrentSkipListSet<Integer>());
+		emptyStacks = new ConcurrentSkipListSet<Integer>();
+		if(this.maxHeight > 0)
+			for (int i = 0; i < this.numStacks; i++)
+				emptyStacks.add(i);
+	}
+
+	/**
+	 * Loads a freight container onto the ship, provided that it can be
+	 * accommodated within the five rules set by the captain.
+	 * 
+	 * @param newContainer the new freight container to be loaded
+	 * @throws ManifestException if adding this container would exceed
+	 * the ship's weight limit; if a container with the same code is
+	 * already on board; or if no suitable space can be found for this
+	 * container
+	 */
+	public void loadContainer(FreightContainer newContainer) throws ManifestException {
+		ManifestResult result = tryLoadContainer(newContainer);
+		if(result != ManifestResult.OK)
+			throw new ManifestException(result.getMessage());
+	}
+
+	/**
+	 * Loads a freight container onto the ship, reporting a rejection through
+	 * the returned value.  See {@link CargoManifest#tryLoadContainer(FreightContainer)}.
+	 * 
+	 * @param newContainer the new freight container to be loaded
+	 * @return {@link ManifestResult#OK}, {@link ManifestResult#DUPLICATE},
+	 * {@link ManifestResult#OVERWEIGHT} or {@link ManifestResult#NO_SPACE}
+	 */
+	public ManifestResult tryLoadContainer(FreightContainer newContainer) {
+		long key = newContainer.getCode().toKey();
+		int weight = newContainer.getGrossWeight();
+		ContainerType type = newContainer.getType();
+		admission.lock();
+		try {
+			// Unloads running meanwhile can only remove codes and weight, so neither check can become wrong
+			if(locations.containsKey(key))
+				return ManifestResult.DUPLICATE;
+			if(totalWeight.get() + weight > maxWeight)
+				return ManifestResult.OVERWEIGHT;
+			
+			// Unloads running meanwhile can only make room, so the chosen stack stays suitable; it is still checked under its lock
+			while (true) {
+				int stackNo = findStack(type);
+				if(stackNo < 0)
+					return ManifestResult.NO_SPACE;
+				ReentrantLock lock = stackLocks[stackNo];
+				lock.lock();
+				try {
+					if(stackHeights.get(stackNo) < maxHeight && (stackTypes[stackNo] == null || stackTypes[stackNo] == type)){
+						pushContainer(stackNo, key, newContainer);
+						return ManifestResult.OK;
+					}
+				} finally {
+					lock.unlock();
+				}
+			}
+		} finally {
+			admission.unlock();
+		}
+	}
+
+	/*
+	 * Helper Function to find the lowest numbered stack which is either of the given type with room left, or empty.
+	 * Returns -1 if there is no such stack
+	 */
+	private int findStack(ContainerType type) {
+		Integer sameType = openStacks.get(type).ceiling(0);
+		Integer empty = emptyStacks.ceiling(0);
+		if(sameType == null)
+			return empty == null ? -1 : empty;
+		if(empty == null || sameType < empty)
+			return sameType;
+		return empty;
+	}
+
+	/*
+	 * Helper Function to push a container onto a stack whose lock is held, keeping every index up to date
+	 */
+	private void pushContainer(int stackNo, long key, FreightContainer newContainer) {
+		int weight = newContainer.getGrossWeight();
+		int tier = stackHeights.get(stackNo);
+		// Changes the stack between two version increments, so optimistic readers can tell
+		versions.incrementAndGet(stackNo);
+		slots.set(stackNo * maxHeight + tier, newContainer);
+		stackHeights.set(stackNo, tier + 1);
+		stackWeights.addAndGet(stackNo, weight);
+		versions.incrementAndGet(stackNo);
+		locations.put(key, pack(stackNo, tier));
+		totalWeight.addAndGet(weight);
+		// Updates the free-slot index, adding the stack to its new set before removing it from the old one
+		if(stackTypes[stackNo] == null){
+			stackTypes[stackNo] = newContainer.getType();
+			openStacks.get(stackTypes[stackNo]).add(stackNo);
+			emptyStacks.remove(stackNo);
+		}
+		if(tier + 1 >= maxHeight)
+			openStacks.get(stackTypes[stackNo]).remove(stackNo);
+	}
+
+	/**
+	 * Unloads a particular container from the ship, provided that
+	 * it is accessible (i.e., on top of a stack).
+	 * 
+	 * @param containerId the code of the container to be unloaded
+	 * @throws ManifestException if the container is not accessible because
+	 * it's not on the top of a stack (including the case where it's not on board
+	 * the ship at all)
+	 */
+	public void unloadContainer(ContainerCode containerId) throws ManifestException {
+		ManifestResult result = tryUnloadContainer(containerId);
+		if(result != ManifestResult.OK)
+			throw new ManifestException(result.getMessage());
+	}
+
+	/**
+	 * Unloads a particular container from the ship, reporting a rejection
+	 * through the returned value.  See
+	 * {@link CargoManifest#tryUnloadContainer(ContainerCode)}.
+	 * 
+	 * @param containerId the code of the container to be unloaded
+	 * @return {@link ManifestResult#OK} or {@link ManifestResult#NOT_ACCESSIBLE}
+	 */
+	public ManifestResult tryUnloadContainer(ContainerCode containerId) {
+		if(containerId == null)
+			return ManifestResult.NOT_ACCESSIBLE;
+		Long key = containerId.toKey();
+		while (true) {
+			Long location = locations.get(key);
+			if(location == null)
+				return ManifestResult.NOT_ACCESSIBLE;
+			int stackNo = stackOf(location);
+			ReentrantLock lock = stackLocks[stackNo];
+			lock.lock();
+			try {
+				// The container may have been unloaded, and perhaps loaded elsewhere, before the lock was taken
+				if(!location.equals(locations.get(key)))
+					continue;
+				if(tierOf(location) != stackHeights.get(stackNo) - 1)
+					return ManifestResult.NOT_ACCESSIBLE;
+				popContainer(stackNo, key);
+				return ManifestResult.OK;
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/*
+	 * Helper Function to pop the top container of a stack whose lock is held, keeping every index up to date
+	 */
+	private void popContainer(int stackNo, Long key) {
+		int tier = stackHeights.get(stackNo) - 1;
+		// Changes the stack between two version increments, so optimistic readers can tell
+		versions.incrementAndGet(stackNo);
+		int weight = slots.get(stackNo * maxHeight + tier).getGrossWeight();
+		slots.set(stackNo * maxHeight + tier, null);
+		stackHeights.set(stackNo, tier);
+		stackWeights.addAndGet(stackNo, -weight);
+		versions.incrementAndGet(stackNo);
+		locations.remove(key);
+		// Updates the free-slot index, adding the stack to its new set before removing it from the old one
+		ConcurrentSkipListSet<Integer> sameType = openStacks.get(stackTypes[stackNo]);
+		if(tier == 0){
+			emptyStacks.add(stackNo);
+			sameType.remove(stackNo);
+			stackTypes[stackNo] = null;
+		}
+		else
+			sameType.add(stackNo);
+		// The weight is released last, once the slot is free
+		totalWeight.addAndGet(-weight);
+	}
+
+	/**
+	 * Returns which stack holds a particular container, if any.
+	 * 
+	 * @param queryContainer the container code for the container of interest
+	 * @return the number of the stack with the container in it, or <code>null</code>
+	 * if the container is not on board
+	 */
+	public Integer whichStack(ContainerCode queryContainer) {
+		Long location = queryContainer == null ? null : locations.get(queryContainer.toKey());
+		if(location == null)
+			return null;
+		return stackOf(location);
+	}
+
+	/**
+	 * Returns how high in its stack a particular container is, counting from
+	 * zero at the bottom of the stack.
+	 * 
+	 * @param queryContainer the container code for the container of interest
+	 * @return the container's height in the stack, or <code>null</code>
+	 * if the container is not on board
+	 */
+	public Integer howHigh(ContainerCode queryContainer) {
+		Long location = queryContainer == null ? null : locations.get(queryContainer.toKey());
+		if(location == null)
+			return null;
+		return tierOf(location);
+	}
+
+	/**
+	 * Returns the contents of a particular stack as an array,
+	 * starting with the bottommost container at position zero in the array.
+	 * The array is a consistent copy of the stack at one moment.
+	 * 
+	 * @param stackNo the number of the stack of interest
+	 * @return the stack's freight containers as an array
+	 * @throws ManifestException if there is no such stack on the ship
+	 */
+	public FreightContainer[] toArray(Integer stackNo) throws ManifestException {
+		checkStackNo(stackNo);
+		// Tries to copy the stack without locking, accepting the copy only if no change overlapped it
+		for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+			long version = versions.get(stackNo);
+			if((version & 1) == 0){
+				FreightContainer[] copy = copyStack(stackNo);
+				if(versions.get(stackNo) == version)
+					return copy;
+			}
+		}
+		// Too much contention, copies the stack under its lock
+		stackLocks[stackNo].lock();
+		try {
+			return copyStack(stackNo);
+		} finally {
+			stackLocks[stackNo].unlock();
+		}
+	}
+
+	/*
+	 * Helper Function to copy the current contents of a stack
+	 */
+	private FreightContainer[] copyStack(int stackNo) {
+		int height = Math.min(stackHeights.get(stackNo), maxHeight);
+		FreightContainer[] copy = new FreightContainer[height];
+		for (int i = 0; i < height; i++)
+			copy[i] = slots.get(stackNo * maxHeight + i);
+		return copy;
+	}
+
+	/**
+	 * Returns the total weight of all containers currently on board.
+	 * 
+	 * @return the weight on board (in tonnes)
+	 */
+	public Integer getTotalWeight() {
+		return totalWeight.get();
+	}
+
+	/**
+	 * Returns how much more weight can be loaded before the ship's weight
+	 * limit is reached.
+	 * 
+	 * @return the remaining weight capacity (in tonnes)
+	 */
+	public Integer getRemainingCapacity() {
+		return maxWeight - totalWeight.get();
+	}
+
+	/**
+	 * Returns the total weight of the containers in a particular stack.
+	 * 
+	 * @param stackNo the number of the stack of interest
+	 * @return the weight of the stack (in tonnes)
+	 * @throws ManifestException if there is no such stack on the ship
+	 */
+	public Integer getStackWeight(Integer stackNo) throws ManifestException {
+		checkStackNo(stackNo);
+		return stackWeights.get(stackNo);
+	}
+
+	/**
+	 * Returns the number of containers in a particular stack.
+	 * 
+	 * @param stackNo the number of the stack of interest
+	 * @return the height of the stack
+	 * @throws ManifestException if there is no such stack on the ship
+	 */
+	public Integer getStackHeight(Integer stackNo) throws ManifestException {
+		checkStackNo(stackNo);
+		return stackHeights.get(stackNo);
+	}
+
+	/*
+	 * Helper Function to verify that a stack number refers to a stack on the ship
+	 */
+	private void checkStackNo(Integer stackNo) throws ManifestException {
+		if(stackNo == null || stackNo < 0 || stackNo >= numStacks)
+			throw new ManifestException("There is no such stack on this ship");
+	}
+
+	/*
+	 * Helper Functions to pack a stack number and tier into one value of the index, and to unpack them
+	 */
+	private static Long pack(int stackNo, int tier) {
+		return ((long) stackNo << 32) | tier;
+	}
+
+	private static int stackOf(long location) {
+		return (int) (location >>> 32);
+	}
+
+	private static int tierOf(long location) {
+		return (int) location;
+	}
+}
@@ -0,0 +1,135 @@
+package asgn2Manifests;
+
+import java.util.Arrays;
+
+import asgn2Containers.FreightContainer;
+
+/**
+ * Storage for the stacks of containers on a ship.  Since the number of
+ * stacks and the maximum height of a stack are fixed when a manifest is
+ * constructed, every stack is an array of that height, allocated when the
+ * first container is placed on it, and the current height of each stack
+ * is kept alongside.  Unlike <code>java.util.Stack</code>, no access takes
+ * a lock and no stack ever grows.
+ * <p>
+ * This class does no checking of its own; callers are responsible for
+ * using valid stack numbers and tiers and for not pushing onto a full
+ * stack or popping an empty one.  It is not safe for use by several
+ * threads at once without external synchronisation.
+ * 
+ * @author Leandro Rodrigues & Brendan Rothwell n8540683
+ * @version 1.0
+ */
+final class ContainerStacks {
+	private final FreightContainer[][] slots;
+	private final int[] heights;
+	private final int maxHeight;
+
+	/**
+	 * Constructs empty storage for the given number of stacks, each able to
+	 * hold the given number of containers.
+	 * 
+	 * @param numStacks the number of stacks
+	 * @param maxHeight the maximum height of any stack
+	 */
+	ContainerStacks(int numStacks, int maxHeight) {
+		// Only the outer array is allocated, so a large ship costs nothing until it is loaded
+		slots = new FreightContainer[numStacks][];
+		heights = new int[numStacks];
+		this.maxHeight = maxHeight;
+	}
+
+	/**
+	 * Returns the number of stacks.
+	 * 
+	 * @return the number of stacks
+	 */
+	int numStacks() {
+		return heights.length;
+	}
+
+	/**
+	 * Returns the number of containers in a stack.
+	 * 
+	 * @param stackNo the number of the stack
+	 * @return the stack's height
+	 */
+	int height(int stackNo) {
+		return heights[stackNo];
+	}
+
+	/**
+	 * Returns the container at a given tier of a stack.
+	 * 
+	 * @param stackNo the number of the stack
+	 * @param tier the tier, counting from zero at the bottom of the stack
+	 * @return the container
+	 */
+	FreightContainer get(int stackNo, int tier) {
+		return slots[stackNo][tier];
+	}
+
+	/**
+	 * Returns the container on top of a stack.
+	 * 
+	 * @param stackNo the number of a stack which is not empty
+	 * @return the top container
+	 */
+	FreightContainer peek(int stackNo) {
+		return slots[stackNo][heights[stackNo] - 1];
+	}
+
+	/**
+	 * Places a container on top of a stack.
+	 * 
+	 * @param stackNo the number of a stack which is not full
+	 * @param container the container to place
+	 * @return the tier the container was placed at
+	 */
+	int push(int stackNo, FreightContainer container) {
+		int tier = heights[stackNo]++;
+		if(slots[stackNo] == null)
+			slots[stackNo] = new FreightContainer[maxHeight];
+		slots[stackNo][tier] = container;
+		return tier;
+	}
+
+	/**
+	 * Removes the container on top of a stack.
+	 * 
+	 * @param stackNo the number of a stack which is not empty
+	 * @return the container removed
+	 */
+	FreightContainer pop(int stackNo) {
+		int tier = --heights[stackNo];
+		FreightContainer container = slots[stackNo][tier];
+		// Clears the slot so the container can be garbage collected
+		slots[stackNo][tier] = null;
+		return container;
+	}
+
+	/**
+	 * Removes every container from every stack.
+	 */
+	void clear() {
+		for (int i = 0; i < heights.length; i++) {
+			// Clears the used slots so the containers can be garbage collected
+			if(slots[i] != null)
+				Arrays.fill(slots[i], 0, heights[i], null);
+			heights[i] = 0;
+		}
+	}
+
+	/**
+	 * Returns a copy of a stack, starting with the bottommost container at
+	 * position zero in the array.
+	 * 
+	 * @param stackNo the number of the stack
+	 * @return the stack's containers as a new array
+	 */
+	FreightContainer[] toArray(int stackNo) {
+		if(slots[stackNo] == null)
+			return new FreightContainer[0];
+		return Arrays.copyOf(slots[stackNo], heights[stackNo]);
+	}
+}
@@ -0,0 +1,267 @@
+package asgn2Manifests;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+
+import asgn2Codes.ContainerCode;
+import asgn2Containers.FreightContainer;
+import asgn2Exceptions.CargoException;
+import asgn2Exceptions.ManifestException;
+
+/**
+ * A cargo manifest kept in a directory on disk, so that it survives the
+ * program stopping or crashing.  The directory holds a
+ * {@link ManifestSnapshot} of the manifest and a {@link ManifestJournal}
+ * of every change made since the snapshot was taken.  Opening the
+ * directory restores the snapshot and replays the journal over it.
+ * <p>
+ * Each change is made to the manifest and recorded in the journal while
+ * holding the manifest's lock, then synced outside it, so a change has
+ * reached the disk by the time its method returns while other threads
+ * go on changing the manifest.  With group commit, threads changing the
+ * manifest at the same time share their syncs.  A {@link #checkpoint()}
+ * saves a new snapshot and empties the journal, so it does not grow
+ * without limit.
+ *
+ * @author Leandro Rodrigues & Brendan Rothwell n8540683
+ * @version 1.0
+ */
+public class DurableManifest implements Closeable {
+	/**
+	 * The name of the snapshot file in the directory
+	 */
+	public static final String SNAPSHOT_FILE = "manifest.snapshot";
+	/**
+	 * The name of the journal file in the directory
+	 */
+	public static final String JOURNAL_FILE = "manifest.journal";
+
+	private final CargoManifest cargo;
+	private final ManifestJournal journal;
+	private final Path snapshotFile;
+
+	/*
+	 * Wraps a restored manifest and its journal, which is not listening yet
+	 */
+	private DurableManifest(CargoManifest cargo, ManifestJournal journal, Path snapshotFile) {
+		this.cargo = cargo;
+		this.journal = journal;
+		this.snapshotFile = snapshotFile;
+		cargo.addManifestListener(journal);
+	}
+
+	/**
+	 * Opens the manifest kept in a directory, restoring it from its snapshot
+	 * and journal.  If the directory holds no snapshot yet, a new empty
+	 * manifest is created with the given parameters and saved there.
+	 *
+	 * @param directory the directory holding the manifest
+	 * @param numStacks the number of stacks of a new manifest
+	 * @param maxHeight the maximum stack height of a new manifest
+	 * @param maxWeight the weight limit of a new manifest
+	 * @param groupCommit whether threads changing the manifest at the same
+	 * time share their syncs
+	 * @return the restored manifest
+	 * @throws IOException if the directory cannot be read or written, or
+	 * holds a damaged snapshot or a journal which does not follow it
+	 * @throws CargoException if the snapshot or journal holds changes which
+	 * break the captain's rules, or the parameters of a new manifest are
+	 * invalid
+	 */
+	public static DurableManifest open(Path directory, Integer numStacks, Integer maxHeight, Integer maxWeight,
+			boolean groupCommit) throws IOException, CargoException {
+		Files.createDirectories(directory);
+		Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+		CargoManifest cargo;
+		long sequence;
+		if(Files.exists(snapshotFile)) {
+			cargo = ManifestSnapshot.load(snapshotFile);
+			sequence = ManifestSnapshot.readSequence(snapshotFile);
+		}
+		else {
+			// Saves the new manifest at once, so its parameters are kept even if nothing is ever loaded
+			cargo = new CargoManifest(numStacks, maxHeight, maxWeight);
+			sequence = 0;
+			ManifestSnapshot.save(cargo, snapshotFile, sequence);
+		}
+
+		ManifestJournal journal = ManifestJournal.open(directory.resolve(JOURNAL_FILE), groupCommit);
+		try {
+			// A journal which ends before the snapshot was emptied by a checkpoint, or lost
+			if(journal.getLastSequence() <= sequence)
+				journal.truncate(sequence);
+			else
+				journal.replay(cargo, sequence);
+		} catch (IOException | CargoException e) {
+			journal.close();
+			throw e;
+		}
+		return new DurableManifest(cargo, journal, snapshotFile);
+	}
+
+	/**
+	 * Returns the manifest itself, for reading.  Readers must hold the
+	 * manifest's lock.  Changes made to it directly are journaled too, but
+	 * are only synced along with the next change made through this class.
+	 *
+	 * @return the manifest
+	 */
+	public CargoManifest getManifest() {
+		return cargo;
+	}
+
+	/**
+	 * Returns the journal the manifest's changes are recorded in.
+	 *
+	 * @return the journal
+	 */
+	public ManifestJournal getJournal() {
+		return journal;
+	}
+
+	/**
+	 * Loads a container as {@link CargoManifest#loadContainer(FreightContainer)}
+	 * does, returning once the change is on disk.
+	 *
+	 * @param newContainer the new freight container to be loaded
+	 * @throws ManifestException if the container cannot be loaded
+	 * @throws IOException if the change cannot be written to the journal
+	 */
+	public void loadContainer(FreightContainer newContainer) throws ManifestException, IOException {
+		long sequence;
+		synchronized (cargo) {
+			cargo.loadContainer(newContainer);
+			sequence = journal.getLastSequence();
+		}
+		journal.sync(sequence);
+	}
+
+	/**
+	 * Loads a container as {@link CargoManifest#tryLoadContainer(FreightContainer)}
+	 * does, returning once any change is on disk.
+	 *
+	 * @param newContainer the new freight container to be loaded
+	 * @return {@link ManifestResult#OK} if the container was loaded, or the
+	 * reason it was rejected
+	 * @throws IOException if the change cannot be written to the journal
+	 */
+	public ManifestResult tryLoadContainer(FreightContainer newContainer) throws IOException {
+		ManifestResult result;
+		long sequence;
+		synchronized (cargo) {
+			result = cargo.tryLoadContainer(newContainer);
+			sequence = journal.getLastSequence();
+		}
+		if(result == ManifestResult.OK)
+			journal.sync(sequence);
+		return result;
+	}
+
+	/**
+	 * Loads a batch of containers as
+	 * {@link CargoManifest#tryLoadContainers(Collection)} does, returning once
+	 * every change is on disk with a single sync.
+	 *
+	 * @param batch the containers to be loaded, in order
+	 * @return the outcome for each container, in the same order as the batch
+	 * @throws IOException if the changes cannot be written to the journal
+	 */
+	public ManifestResult[] tryLoadContainers(Collection<FreightContainer> batch) throws IOException {
+		ManifestResult[] results;
+		long sequence;
+		synchronized (cargo) {
+			results = cargo.tryLoadContainers(batch);
+			sequence = journal.getLastSequence();
+		}
+		journal.sync(sequence);
+		return results;
+	}
+
+	/**
+	 * Unloads a container as {@link CargoManifest#unloadContainer(ContainerCode)}
+	 * does, returning once the change is on disk.
+	 *
+	 * @param containerId the code of the container to be unloaded
+	 * @throws ManifestException if the container is not on top of a stack
+	 * @throws IOException if the change cannot be written to the journal
+	 */
+	public void unloadContainer(ContainerCode containerId) throws ManifestException, IOException {
+		long sequence;
+		synchronized (cargo) {
+			cargo.unloadContainer(containerId);
+			sequence = journal.getLastSequence();
+		}
+		journal.sync(sequence);
+	}
+
+	/**
+	 * Unloads a container as
+	 * {@link CargoManifest#tryUnloadContainer(ContainerCode)} does, returning
+	 * once any change is on disk.
+	 *
+	 * @param containerId the code of the container to be unloaded
+	 * @return {@link ManifestResult#OK} if the container was unloaded, or
+	 * {@link ManifestResult#NOT_ACCESSIBLE} if it is not on top of a stack
+	 * @throws IOException if the change cannot be written to the journal
+	 */
+	public ManifestResult tryUnloadContainer(ContainerCode containerId) throws IOException {
+		ManifestResult result;
+		long sequence;
+		synchronized (cargo) {
+			result = cargo.tryUnloadContainer(containerId);
+			sequence = journal.getLastSequence();
+		}
+		if(result == ManifestResult.OK)
+			journal.sync(sequence);
+		return result;
+	}
+
+	/**
+	 * Unloads every container as {@link CargoManifest#clear()} does,
+	 * returning once the change is on disk.
+	 *
+	 * @throws IOException if the change cannot be written to the journal
+	 */
+	public void clear() throws IOException {
+		long sequence;
+		synchronized (cargo) {
+			cargo.clear();
+			sequence = journal.getLastSequence();
+		}
+		journal.sync(sequence);
+	}
+
+	/**
+	 * Saves a snapshot of the manifest and empties the journal.  The
+	 * manifest cannot be changed while the snapshot is written.
+	 *
+	 * @throws IOException if the snapshot or journal cannot be written
+	 */
+	public void checkpoint() throws IOException {
+		synchronized (cargo) {
+			long sequence = journal.getLastSequence();
+			journal.sync(sequence);
+			// The journal is only emptied once the snapshot holding its changes, and its name, are on disk
+			ManifestSnapshot.save(cargo, snapshotFile, sequence);
+			journal.truncate(sequence);
+		}
+	}
+
+	/**
+	 * Syncs any changes not yet on disk and closes the journal.  The
+	 * manifest can still be read afterwards, but changes to it are no
+	 * longer recorded.
+	 *
+	 * @throws IOException if the journal cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (cargo) {
+			cargo.removeManifestListener(journal);
+		}
+		journal.close();
+	}
+}
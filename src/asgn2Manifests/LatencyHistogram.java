@@ -0,0 +1,93 @@
+package asgn2Manifests;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of operation times, in buckets of powers of two nanoseconds,
+ * so recording a time is a few instructions and the histogram never grows.
+ * Bucket <i>i</i> counts times from 2<sup>i</sup> up to 2<sup>i+1</sup>
+ * nanoseconds, with times of zero or one nanosecond in bucket 0.
+ * <p>
+ * Times are recorded by one thread at a time, the one changing the
+ * manifest, while any thread may read them.  Each count is therefore
+ * written with an ordered store rather than an atomic increment, which
+ * would cost far more than the time being recorded.
+ *
+ * @author Leandro Rodrigues & Brendan Rothwell n8540683
+ * @version 1.0
+ */
+final class LatencyHistogram {
+	// One bucket per bit of a long, then the number of times recorded, their sum and the largest
+	private static final int BUCKETS = 64;
+	private static final int COUNT = BUCKETS;
+	private static final int SUM = BUCKETS + 1;
+	private static final int MAX = BUCKETS + 2;
+
+	private final AtomicLongArray counts;
+
+	LatencyHistogram() {
+		counts = new AtomicLongArray(BUCKETS + 3);
+	}
+
+	/*
+	 * Records an operation which took the given number of nanoseconds
+	 */
+	void record(long nanos) {
+		if(nanos < 0)
+			nanos = 0;
+		int bucket = nanos < 2 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+		counts.lazySet(bucket, counts.get(bucket) + 1);
+		counts.lazySet(COUNT, counts.get(COUNT) + 1);
+		counts.lazySet(SUM, counts.get(SUM) + nanos);
+		if(nanos > counts.get(MAX))
+			counts.lazySet(MAX, nanos);
+	}
+
+	/*
+	 * Returns the number of times recorded
+	 */
+	long getCount() {
+		return counts.get(COUNT);
+	}
+
+	/*
+	 * Returns the mean time recorded in nanoseconds, or zero if there are none
+	 */
+	long getMean() {
+		long count = counts.get(COUNT);
+		return count == 0 ? 0 : counts.get(SUM) / count;
+	}
+
+	/*
+	 * Returns the longest time recorded in nanoseconds
+	 */
+	long getMax() {
+		return counts.get(MAX);
+	}
+
+	/*
+	 * Returns the time in nanoseconds which the given fraction of operations took no longer than, to within a power
+	 * of two. The upper end of the bucket holding that fraction is returned, but never more than the longest time
+	 */
+	long getPercentile(double fraction) {
+		long count = counts.get(COUNT);
+		if(count == 0)
+			return 0;
+		long wanted = (long) Math.ceil(count * fraction);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if(seen >= wanted && seen > 0)
+				return i == BUCKETS - 1 ? getMax() : Math.min((2L << i) - 1, getMax());
+		}
+		return getMax();
+	}
+
+	/*
+	 * Forgets every time recorded
+	 */
+	void reset() {
+		for (int i = 0; i < counts.length(); i++)
+			counts.lazySet(i, 0);
+	}
+}
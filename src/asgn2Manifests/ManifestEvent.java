@@ -0,0 +1,99 @@
+package asgn2Manifests;
+
+import asgn2Containers.FreightContainer;
+
+/**
+ * A single change to a cargo manifest, as delivered to a
+ * {@link ManifestListener}.  A loaded or unloaded event carries the
+ * container together with the stack and tier it was loaded into or
+ * unloaded from.  A cleared event means every container was removed from
+ * the ship at once, and carries no container.
+ * 
+ * @author Leandro Rodrigues & Brendan Rothwell n8540683
+ * @version 1.0
+ */
+public final class ManifestEvent {
+	/**
+	 * The kinds of change to a manifest
+	 */
+	public enum Type {
+		/**
+		 * A container was loaded onto the top of a stack
+		 */
+		LOADED,
+		/**
+		 * A container was unloaded from the top of a stack
+		 */
+		UNLOADED,
+		/**
+		 * Every container was removed from the ship
+		 */
+		CLEARED
+	}
+
+	private final Type type;
+	private final FreightContainer container;
+	private final int stackNo;
+	private final int tier;
+
+	/**
+	 * Constructs a new event.
+	 * 
+	 * @param type the kind of change
+	 * @param container the container loaded or unloaded, or <code>null</code> for a cleared event
+	 * @param stackNo the stack of the container, or -1 for a cleared event
+	 * @param tier the tier of the container (0 is the bottom of the stack), or -1 for a cleared event
+	 */
+	public ManifestEvent(Type type, FreightContainer container, int stackNo, int tier) {
+		this.type = type;
+		this.container = container;
+		this.stackNo = stackNo;
+		this.tier = tier;
+	}
+
+	/**
+	 * Returns the kind of change.
+	 * 
+	 * @return the type of this event
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the container which was loaded or unloaded.
+	 * 
+	 * @return the container, or <code>null</code> for a cleared event
+	 */
+	public FreightContainer getContainer() {
+		return container;
+	}
+
+	/**
+	 * Returns the stack the container was loaded into or unloaded from.
+	 * 
+	 * @return the stack number, or -1 for a cleared event
+	 */
+	public int getStackNo() {
+		return stackNo;
+	}
+
+	/**
+	 * Returns the tier the container occupied in its stack.
+	 * 
+	 * @return the tier (0 is the bottom of the stack), or -1 for a cleared event
+	 */
+	public int getTier() {
+		return tier;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		if (type == Type.CLEARED)
+			return type.toString();
+		return type + " " + container.getCode() + " at stack " + stackNo + ", tier " + tier;
+	}
+}
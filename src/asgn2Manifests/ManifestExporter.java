@@ -0,0 +1,254 @@
+package asgn2Manifests;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+import asgn2Containers.ContainerType;
+import asgn2Containers.FreightContainer;
+
+/**
+ * Writes every container on board a cargo manifest to another system, one
+ * record per container, stack by stack from the bottom up.  Each record
+ * holds the container code, type, gross weight, temperature or category,
+ * stack and tier, in one of two formats:
+ * <ul>
+ * <li>
+ * {@link Format#CSV}: a header line, then one line per container with the
+ * fields separated by commas, for example
+ * <code>INKU2633836,R,20,-5,1,0</code>.  The type is a letter, as in the
+ * files read by {@link StowagePlanImporter}, and the temperature or
+ * category is left empty for a general goods container.
+ * </li>
+ * <li>
+ * {@link Format#JSON}: an object holding the ship's parameters and an array
+ * of containers, one object per line, for example
+ * <code>{"code":"INKU2633836","type":"REFRIGERATED","weight":20,"temperature":-5,"stack":1,"tier":0}</code>.
+ * </li>
+ * </ul>
+ * Records are formatted straight into a buffer, without creating any
+ * strings or lists, and the buffer is written out whenever it fills, so a
+ * manifest of any size is exported in a fixed amount of memory.
+ * The manifest must not change while it is exported; a manifest shared
+ * between threads should be exported while holding its lock.
+ *
+ * @author Leandro Rodrigues & Brendan Rothwell n8540683
+ * @version 1.0
+ */
+public final class ManifestExporter {
+	/**
+	 * The layouts a manifest can be exported in
+	 */
+	public enum Format {
+		/**
+		 * Fields separated by commas
+		 */
+		CSV,
+		/**
+		 * A JSON document
+		 */
+		JSON
+	}
+
+	// Size of the buffer records are formatted into, and the most one record can take
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int MAX_RECORD_SIZE = 256;
+	private static final String CSV_HEADER = "code,type,weight,detail,stack,tier\n";
+	// The letter of each type in CSV, and its name in JSON, by ordinal
+	private static final char[] TYPE_LETTERS = { 'G', 'R', 'D' };
+	private static final String[] TYPE_NAMES = { ContainerType.GENERAL.name(), ContainerType.REFRIGERATED.name(),
+			ContainerType.DANGEROUS_GOODS.name() };
+
+	private final Format format;
+	private final OutputStream out;
+	private final Writer writer;
+	private final byte[] buffer;
+	// Where the next byte goes in the buffer, and the bytes written out so far
+	private int position;
+	private long written;
+	// Copy of the buffer as characters, only needed when writing to a Writer
+	private char[] chars;
+
+	/*
+	 * Creates an exporter writing to either a stream or a writer
+	 */
+	private ManifestExporter(Format format, OutputStream out, Writer writer) {
+		this.format = format;
+		this.out = out;
+		this.writer = writer;
+		buffer = new byte[BUFFER_SIZE];
+		position = 0;
+		written = 0;
+		if(writer != null)
+			chars = new char[BUFFER_SIZE];
+	}
+
+	/**
+	 * Writes every container on board a manifest to a stream, as ASCII
+	 * text.  The stream is not flushed or closed.
+	 *
+	 * @param cargo the manifest to export
+	 * @param format the layout to write
+	 * @param out the stream to write to
+	 * @return the number of bytes written
+	 * @throws IOException if the stream cannot be written
+	 */
+	public static long export(CargoManifest cargo, Format format, OutputStream out) throws IOException {
+		return new ManifestExporter(format, out, null).write(cargo);
+	}
+
+	/**
+	 * Writes every container on board a manifest to a writer.  The writer is
+	 * not flushed or closed.
+	 *
+	 * @param cargo the manifest to export
+	 * @param format the layout to write
+	 * @param writer the writer to write to
+	 * @return the number of characters written
+	 * @throws IOException if the writer cannot be written
+	 */
+	public static long export(CargoManifest cargo, Format format, Writer writer) throws IOException {
+		return new ManifestExporter(format, null, writer).write(cargo);
+	}
+
+	/*
+	 * Helper Function to write the whole document, returning its length
+	 */
+	private long write(CargoManifest cargo) throws IOException {
+		int numStacks = cargo.getNumStacks();
+		boolean first = true;
+		if(format == Format.CSV)
+			putString(CSV_HEADER);
+		else {
+			putString("{\"numStacks\":");
+			putInt(numStacks);
+			putString(",\"maxHeight\":");
+			putInt(cargo.getMaxHeight());
+			putString(",\"maxWeight\":");
+			putInt(cargo.getMaxWeight());
+			putString(",\"containers\":[");
+		}
+		for (int i = 0; i < numStacks; i++) {
+			int height = cargo.heightOf(i);
+			for (int j = 0; j < height; j++) {
+				if(BUFFER_SIZE - position < MAX_RECORD_SIZE)
+					flush();
+				FreightContainer container = cargo.containerAt(i, j);
+				if(format == Format.CSV)
+					putCsv(container, i, j);
+				else {
+					if(!first)
+						put(',');
+					putJson(container, i, j);
+				}
+				first = false;
+			}
+		}
+		if(format == Format.JSON)
+			putString("\n]}\n");
+		flush();
+		return written;
+	}
+
+	/*
+	 * Helper Function to format a container as a line of CSV
+	 */
+	private void putCsv(FreightContainer container, int stackNo, int tier) {
+		putString(container.getCode().toString());
+		put(',');
+		put(TYPE_LETTERS[container.getType().ordinal()]);
+		put(',');
+		putInt(container.getGrossWeight());
+		put(',');
+		if(container.getType() != ContainerType.GENERAL)
+			putInt(ManifestSnapshot.detailOf(container));
+		put(',');
+		putInt(stackNo);
+		put(',');
+		putInt(tier);
+		put('\n');
+	}
+
+	/*
+	 * Helper Function to format a container as a JSON object on a line of its own
+	 */
+	private void putJson(FreightContainer container, int stackNo, int tier) {
+		putString("\n{\"code\":\"");
+		putString(container.getCode().toString());
+		putString("\",\"type\":\"");
+		putString(TYPE_NAMES[container.getType().ordinal()]);
+		putString("\",\"weight\":");
+		putInt(container.getGrossWeight());
+		if(container.getType() == ContainerType.REFRIGERATED) {
+			putString(",\"temperature\":");
+			putInt(ManifestSnapshot.detailOf(container));
+		}
+		else if(container.getType() == ContainerType.DANGEROUS_GOODS) {
+			putString(",\"category\":");
+			putInt(ManifestSnapshot.detailOf(container));
+		}
+		putString(",\"stack\":");
+		putInt(stackNo);
+		putString(",\"tier\":");
+		putInt(tier);
+		put('}');
+	}
+
+	/*
+	 * Helper Function to add a character to the buffer, every character written being ASCII
+	 */
+	private void put(char c) {
+		buffer[position++] = (byte) c;
+	}
+
+	/*
+	 * Helper Function to add the characters of a string to the buffer, without copying it
+	 */
+	private void putString(String s) {
+		for (int i = 0; i < s.length(); i++)
+			buffer[position++] = (byte) s.charAt(i);
+	}
+
+	/*
+	 * Helper Function to add the decimal digits of a number to the buffer, without creating a string
+	 */
+	private void putInt(int value) {
+		// Works on the negative of the number, as the most negative int has no positive counterpart
+		if(value < 0)
+			put('-');
+		else
+			value = -value;
+		int start = position;
+		do {
+			buffer[position++] = (byte) ('0' - value % 10);
+			value /= 10;
+		} while(value != 0);
+		reverse(start, position - 1);
+	}
+
+	/*
+	 * Helper Function to reverse part of the buffer, as digits come out least significant first
+	 */
+	private void reverse(int from, int to) {
+		while(from < to) {
+			byte b = buffer[from];
+			buffer[from++] = buffer[to];
+			buffer[to--] = b;
+		}
+	}
+
+	/*
+	 * Helper Function to write out and empty the buffer
+	 */
+	private void flush() throws IOException {
+		if(writer != null) {
+			for (int i = 0; i < position; i++)
+				chars[i] = (char) buffer[i];
+			writer.write(chars, 0, position);
+		}
+		else
+			out.write(buffer, 0, position);
+		written += position;
+		position = 0;
+	}
+}
@@ -0,0 +1,483 @@
+package asgn2Manifests;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+import asgn2Codes.ContainerCode;
+import asgn2Containers.FreightContainer;
+import asgn2Exceptions.CargoException;
+
+/**
+ * An append-only journal of the changes made to a cargo manifest, so that
+ * the changes made since the last {@link ManifestSnapshot} survive a crash.
+ * The journal listens to the manifest, numbering each load, unload and
+ * clearing with the next sequence number and recording it in memory.
+ * Nothing reaches the disk until {@link #sync(long)} is called.
+ * <p>
+ * With group commit, callers which sync at the same time share a single
+ * write and force of the file: the first becomes the leader and writes
+ * out every record waiting at that moment, while the others wait for it
+ * and return without touching the disk if their records were included.
+ * A commit window can be set to make the leader wait a little for more
+ * records to join its batch.  Without group commit every call to
+ * {@link #sync(long)} forces the file itself.
+ * <p>
+ * A journal consists of the following, all numbers big-endian:
+ * <ul>
+ * <li>
+ * A 16-byte header: the magic number <code>0x434A4E4C</code> ("CJNL"),
+ * the format version as a short, a short of flags (zero), and the sequence
+ * number of the last operation before the first record as a long.
+ * </li>
+ * <li>
+ * One 32-byte record per operation: the sequence number as a long, the
+ * operation as a byte, the container type (its ordinal) and gross weight
+ * as a byte each, a byte of padding, the temperature or category of the
+ * container as an int, the packed container code as a long, the stack
+ * number as an int, and a CRC-32 of the preceding 28 bytes as an int.
+ * A cleared record describes no container.
+ * </li>
+ * </ul>
+ * When a journal is opened the records are checked in order, and the
+ * first one with a wrong checksum or sequence number, or which is cut
+ * short, is taken to be a write torn by a crash.  It and everything after
+ * it are cut off.
+ *
+ * @author Leandro Rodrigues & Brendan Rothwell n8540683
+ * @version 1.0
+ */
+public final class ManifestJournal implements ManifestListener, Closeable {
+	/**
+	 * The number at the start of every journal, "CJNL" in ASCII
+	 */
+	public static final int MAGIC = 0x434A4E4C;
+	/**
+	 * The format version written by this class
+	 */
+	public static final short VERSION = 1;
+
+	// Sizes of the parts of a journal, in bytes
+	static final int HEADER_SIZE = 16;
+	static final int RECORD_SIZE = 32;
+	// The operations a record can hold
+	private static final byte LOAD = 1;
+	private static final byte UNLOAD = 2;
+	private static final byte CLEAR = 3;
+	// Initial size of the buffers records wait in, and of the buffer the journal is read through
+	private static final int BLOCK_SIZE = 64 * 1024;
+
+	private final FileChannel channel;
+	private final boolean groupCommit;
+	private long commitWindowNanos;
+	// Sequence number before the first record in the file, of the last record recorded, and of the last one forced
+	private long baseSequence;
+	private long lastSequence;
+	private long durableSequence;
+	// Where the next write goes in the file
+	private long writePosition;
+	// Records waiting to be written, and the spare buffer the next batch goes in while the leader writes
+	private ByteBuffer pending;
+	private ByteBuffer spare;
+	// The record being built, and the checksum over it
+	private final byte[] record;
+	private final ByteBuffer recordFields;
+	private final CRC32 checksum;
+	// Whether a leader is writing at the moment, and the failure which stopped the journal, if any
+	private boolean syncing;
+	private IOException failure;
+	private boolean closed;
+	private long syncCount;
+
+	/*
+	 * Creates a journal over a channel already checked by open
+	 */
+	private ManifestJournal(FileChannel channel, boolean groupCommit) {
+		this.channel = channel;
+		this.groupCommit = groupCommit;
+		commitWindowNanos = 0;
+		pending = ByteBuffer.allocateDirect(BLOCK_SIZE);
+		spare = ByteBuffer.allocateDirect(BLOCK_SIZE);
+		record = new byte[RECORD_SIZE];
+		recordFields = ByteBuffer.wrap(record);
+		checksum = new CRC32();
+		syncing = false;
+		closed = false;
+		syncCount = 0;
+	}
+
+	/**
+	 * Opens a journal file, creating it if it does not exist.  Any torn
+	 * write at the end of the file is cut off.
+	 *
+	 * @param file the file holding the journal
+	 * @param groupCommit whether callers syncing at the same time share one
+	 * force of the file
+	 * @return the journal, positioned after its last complete record
+	 * @throws IOException if the file cannot be read or written, or is not a
+	 * journal
+	 */
+	public static ManifestJournal open(Path file, boolean groupCommit) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE);
+		ManifestJournal journal = new ManifestJournal(channel, groupCommit);
+		try {
+			if(channel.size() == 0)
+				journal.writeHeader(0);
+			else
+				journal.readHeader();
+			// Keeps the complete records, and cuts off whatever follows them
+			long count;
+			try {
+				count = journal.scan(null, 0);
+			} catch (CargoException e) {
+				// Only a manifest being replayed into can refuse a record
+				throw new IllegalStateException(e);
+			}
+			journal.lastSequence = journal.baseSequence + count;
+			journal.durableSequence = journal.lastSequence;
+			journal.writePosition = HEADER_SIZE + count * RECORD_SIZE;
+			if(channel.size() > journal.writePosition) {
+				channel.truncate(journal.writePosition);
+				channel.force(true);
+			}
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		return journal;
+	}
+
+	/**
+	 * Sets how long the leader of a group commit waits for more records
+	 * before writing its batch.  Zero, the default, writes at once; records
+	 * arriving while a write is in progress still join the next batch.
+	 *
+	 * @param micros the commit window in microseconds
+	 */
+	public synchronized void setCommitWindow(long micros) {
+		commitWindowNanos = TimeUnit.MICROSECONDS.toNanos(micros);
+	}
+
+	/**
+	 * Returns the sequence number of the last operation recorded, whether
+	 * or not it has been synced yet.
+	 *
+	 * @return the last sequence number
+	 */
+	public synchronized long getLastSequence() {
+		return lastSequence;
+	}
+
+	/**
+	 * Returns the sequence number of the last operation known to be on disk.
+	 *
+	 * @return the last durable sequence number
+	 */
+	public synchronized long getDurableSequence() {
+		return durableSequence;
+	}
+
+	/**
+	 * Returns the number of times the file has been forced to disk since the
+	 * journal was opened.
+	 *
+	 * @return the number of syncs
+	 */
+	public synchronized long getSyncCount() {
+		return syncCount;
+	}
+
+	/**
+	 * Records the changes to the manifest in memory, one record per event.
+	 * The manifest must be changed by one thread at a time, so the records
+	 * are in the order the changes were made.
+	 *
+	 * @param events the changes, in order
+	 */
+	@Override
+	public synchronized void manifestChanged(List<ManifestEvent> events) {
+		if(closed)
+			throw new IllegalStateException("Journal is closed");
+		for (ManifestEvent event : events) {
+			byte op = LOAD;
+			if(event.getType() == ManifestEvent.Type.UNLOADED)
+				op = UNLOAD;
+			else if(event.getType() == ManifestEvent.Type.CLEARED)
+				op = CLEAR;
+			putRecord(++lastSequence, op, event.getContainer(), event.getStackNo());
+		}
+	}
+
+	/**
+	 * Makes sure every operation up to the given one is on disk.  With group
+	 * commit this returns without writing if another caller has already
+	 * forced the operation, or waits for a write in progress and then leads
+	 * the next one if still needed.  Without group commit the file is
+	 * forced on every call.
+	 *
+	 * @param sequence the sequence number of the operation which must be
+	 * durable, usually {@link #getLastSequence()} just after making a change
+	 * @throws IOException if the journal cannot be written, now or on an
+	 * earlier sync, in which case no later operation will be made durable
+	 */
+	public void sync(long sequence) throws IOException {
+		long window;
+		synchronized (this) {
+			while(true) {
+				if(failure != null)
+					throw new IOException("Journal failed on an earlier write", failure);
+				if(closed)
+					throw new IOException("Journal is closed");
+				if(groupCommit && durableSequence >= sequence)
+					return;
+				if(!syncing)
+					break;
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting for the journal");
+				}
+			}
+			// Becomes the leader, later callers wait for this write
+			syncing = true;
+			window = groupCommit ? commitWindowNanos : 0;
+		}
+		if(window > 0)
+			LockSupport.parkNanos(window);
+
+		// Takes every record waiting so far, new records go to the spare buffer meanwhile
+		ByteBuffer batch;
+		long target;
+		long position;
+		synchronized (this) {
+			batch = pending;
+			pending = spare;
+			spare = null;
+			target = lastSequence;
+			position = writePosition;
+		}
+		batch.flip();
+		int written = batch.remaining();
+		try {
+			while(batch.hasRemaining())
+				position += channel.write(batch, position);
+			channel.force(false);
+		} catch (IOException e) {
+			synchronized (this) {
+				failure = e;
+				syncing = false;
+				notifyAll();
+			}
+			throw e;
+		}
+		synchronized (this) {
+			writePosition += written;
+			durableSequence = target;
+			batch.clear();
+			spare = batch;
+			syncing = false;
+			syncCount++;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Applies the operations in the journal after a given one to a manifest,
+	 * normally one just restored from the snapshot taken at that operation.
+	 * The manifest should not have this journal listening to it yet.
+	 *
+	 * @param cargo the manifest to apply the operations to
+	 * @param afterSequence the sequence number of the last operation already
+	 * reflected in the manifest
+	 * @return the number of operations applied
+	 * @throws IOException if the journal cannot be read, or does not go back
+	 * as far as the given operation
+	 * @throws CargoException if an operation cannot be applied to the
+	 * manifest, meaning the journal does not belong with it
+	 */
+	public long replay(CargoManifest cargo, long afterSequence) throws IOException, CargoException {
+		synchronized (this) {
+			if(afterSequence < baseSequence)
+				throw new IOException("Journal starts after operation " + baseSequence
+						+ ", operations since " + afterSequence + " are missing");
+		}
+		return scan(cargo, afterSequence);
+	}
+
+	/**
+	 * Drops every record, once a snapshot including them all has been saved,
+	 * so the journal starts again after the given operation.  Every
+	 * operation recorded must have been synced.
+	 *
+	 * @param sequence the sequence number of the last operation in the
+	 * snapshot, which the next operation will follow
+	 * @throws IOException if the journal cannot be written
+	 */
+	public synchronized void truncate(long sequence) throws IOException {
+		while(syncing)
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for the journal");
+			}
+		if(durableSequence != lastSequence)
+			throw new IllegalStateException("Journal has operations which are not synced");
+		// Rewrites the header first, so that a crash before the records are cut off leaves them out of sequence
+		writeHeader(sequence);
+		channel.truncate(HEADER_SIZE);
+		channel.force(true);
+		writePosition = HEADER_SIZE;
+		lastSequence = sequence;
+		durableSequence = sequence;
+	}
+
+	/**
+	 * Syncs any operations not yet on disk and closes the file.
+	 *
+	 * @throws IOException if the journal cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		long last;
+		synchronized (this) {
+			if(closed)
+				return;
+			last = failure == null ? lastSequence : -1;
+		}
+		try {
+			if(last >= 0)
+				sync(last);
+		} finally {
+			synchronized (this) {
+				closed = true;
+				channel.close();
+			}
+		}
+	}
+
+	/*
+	 * Helper Function to build a record, then add it to the records waiting to be written, growing the buffer if
+	 * it is full
+	 */
+	private void putRecord(long sequence, byte op, FreightContainer container, int stackNo) {
+		recordFields.clear();
+		recordFields.putLong(sequence).put(op);
+		if(container == null)
+			recordFields.put((byte) 0).put((byte) 0).put((byte) 0).putInt(0).putLong(0);
+		else
+			recordFields.put((byte) container.getType().ordinal()).put((byte) (int) container.getGrossWeight())
+					.put((byte) 0).putInt(ManifestSnapshot.detailOf(container)).putLong(container.getCode().toKey());
+		recordFields.putInt(stackNo);
+		checksum.reset();
+		checksum.update(record, 0, RECORD_SIZE - 4);
+		recordFields.putInt((int) checksum.getValue());
+		if(pending.remaining() < RECORD_SIZE) {
+			ByteBuffer larger = ByteBuffer.allocateDirect(pending.capacity() * 2);
+			pending.flip();
+			larger.put(pending);
+			pending = larger;
+		}
+		pending.put(record);
+	}
+
+	/*
+	 * Helper Function to write the header at the start of the file, with the given sequence number before the
+	 * first record
+	 */
+	private void writeHeader(long sequence) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putLong(sequence);
+		header.flip();
+		long position = 0;
+		while(header.hasRemaining())
+			position += channel.write(header, position);
+		channel.force(true);
+		baseSequence = sequence;
+	}
+
+	/*
+	 * Helper Function to check the header at the start of the file and read the sequence number before the first
+	 * record
+	 */
+	private void readHeader() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		int read = 0;
+		while(header.hasRemaining() && read >= 0)
+			read = channel.read(header, header.position());
+		header.flip();
+		if(header.remaining() < HEADER_SIZE)
+			throw new IOException("Journal is truncated");
+		if(header.getInt() != MAGIC)
+			throw new IOException("Not a cargo manifest journal");
+		short version = header.getShort();
+		if(version != VERSION)
+			throw new IOException("Unsupported journal version " + version);
+		header.getShort();
+		baseSequence = header.getLong();
+	}
+
+	/*
+	 * Helper Function to read the records in order up to the first which is damaged, out of sequence or cut short,
+	 * applying those after the given operation to the manifest if there is one. Returns the number of good records
+	 */
+	private long scan(CargoManifest cargo, long afterSequence) throws IOException, CargoException {
+		ByteBuffer block = ByteBuffer.allocateDirect(BLOCK_SIZE);
+		byte[] fields = new byte[RECORD_SIZE];
+		ByteBuffer wrapped = ByteBuffer.wrap(fields);
+		CRC32 crc = new CRC32();
+		long position = HEADER_SIZE;
+		long count = 0;
+		block.flip();
+		while(true) {
+			if(block.remaining() < RECORD_SIZE) {
+				block.compact();
+				int read = 0;
+				while(block.hasRemaining() && read >= 0) {
+					read = channel.read(block, position);
+					if(read > 0)
+						position += read;
+				}
+				block.flip();
+				if(block.remaining() < RECORD_SIZE)
+					return count;
+			}
+			block.get(fields);
+			crc.reset();
+			crc.update(fields, 0, RECORD_SIZE - 4);
+			long sequence = wrapped.getLong(0);
+			if(wrapped.getInt(RECORD_SIZE - 4) != (int) crc.getValue() || sequence != baseSequence + count + 1)
+				return count;
+			count++;
+			if(cargo != null && sequence > afterSequence)
+				apply(cargo, wrapped);
+		}
+	}
+
+	/*
+	 * Helper Function to make the change described by a record to a manifest
+	 */
+	private static void apply(CargoManifest cargo, ByteBuffer fields) throws IOException, CargoException {
+		byte op = fields.get(8);
+		long key = fields.getLong(16);
+		if(op == LOAD)
+			cargo.restoreContainer(fields.getInt(24),
+					ManifestSnapshot.createContainer(key, fields.get(9), fields.get(10), fields.getInt(12)));
+		else if(op == UNLOAD)
+			cargo.unloadContainer(ContainerCode.fromKey(key));
+		else if(op == CLEAR)
+			cargo.clear();
+		else
+			throw new IOException("Unknown journal operation " + op);
+	}
+}
@@ -0,0 +1,22 @@
+package asgn2Manifests;
+
+import java.util.List;
+
+/**
+ * Receives notice of changes to a {@link CargoManifest}, so that views
+ * and other consumers can update only what changed instead of rereading
+ * the whole manifest.
+ * 
+ * @author Leandro Rodrigues & Brendan Rothwell n8540683
+ * @version 1.0
+ */
+public interface ManifestListener {
+	/**
+	 * Called after the manifest has changed.  A single load or unload
+	 * delivers one event; a bulk operation delivers all of its events
+	 * together, in the order they happened, once it has finished.
+	 * 
+	 * @param events the changes, in order; the list must not be modified
+	 */
+	void manifestChanged(List<ManifestEvent> events);
+}
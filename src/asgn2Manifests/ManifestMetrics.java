@@ -0,0 +1,336 @@
+package asgn2Manifests;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counts and timings of the operations on a cargo manifest, kept while
+ * the manifest's metrics are enabled with
+ * {@link CargoManifest#enableMetrics()}.  Loads and unloads are counted by
+ * outcome, so rejections can be told apart by reason, along with clears
+ * and lookups.  A bulk load refused as a whole counts as one rejection.
+ * The time of one operation in every {@link #getSampleInterval()} is
+ * recorded in a {@link LatencyHistogram} for loads, unloads and lookups,
+ * since reading the clock costs more than the count itself.  The time of
+ * a load or unload is that of the change alone, not of telling the
+ * manifest's listeners about it.  The occupancy of the ship is read from
+ * the manifest when asked for.
+ * <p>
+ * The manifest is changed by one thread at a time, which is the only one
+ * to update the counts, so they are kept with ordered stores rather than
+ * atomic increments and cost about a nanosecond each.  Any thread may read
+ * them, and {@link #register(String)} publishes them to the platform
+ * MBean server, where JMX consoles and exporters can read them.
+ *
+ * @author Leandro Rodrigues & Brendan Rothwell n8540683
+ * @version 1.0
+ */
+public final class ManifestMetrics implements ManifestMetricsMBean {
+	/**
+	 * The domain of the names the metrics are registered under
+	 */
+	public static final String DOMAIN = "asgn2Manifests";
+	/**
+	 * How many operations there are for each one timed, unless set otherwise
+	 */
+	public static final int DEFAULT_SAMPLE_INTERVAL = 256;
+
+	// Positions of the counts which are not by outcome
+	private static final int CLEARS = 0;
+	private static final int LOOKUPS = 1;
+
+	private final CargoManifest cargo;
+	// Loads and unloads by outcome, indexed by ManifestResult ordinal, and the other counts
+	private final AtomicLongArray loads;
+	private final AtomicLongArray unloads;
+	private final AtomicLongArray others;
+	private final LatencyHistogram loadLatency;
+	private final LatencyHistogram unloadLatency;
+	private final LatencyHistogram lookupLatency;
+	// Operations are timed when the count of operations has none of the bits of the mask set
+	private volatile int sampleMask;
+	private int ticks;
+	private ObjectName registeredName;
+
+	/*
+	 * Creates the metrics of a manifest, which calls them as it is changed
+	 */
+	ManifestMetrics(CargoManifest cargo) {
+		this.cargo = cargo;
+		loads = new AtomicLongArray(ManifestResult.values().length);
+		unloads = new AtomicLongArray(ManifestResult.values().length);
+		others = new AtomicLongArray(2);
+		loadLatency = new LatencyHistogram();
+		unloadLatency = new LatencyHistogram();
+		lookupLatency = new LatencyHistogram();
+		sampleMask = DEFAULT_SAMPLE_INTERVAL - 1;
+		ticks = 0;
+	}
+
+	/**
+	 * Publishes the metrics to the platform MBean server, under the name
+	 * <code>asgn2Manifests:type=CargoManifest,name=</code><i>name</i>.
+	 * They stay published until {@link #unregister()} is called or the
+	 * manifest's metrics are disabled.
+	 *
+	 * @param name the name of the manifest, such as the ship's name
+	 * @return the name the metrics are registered under
+	 * @throws JMException if the metrics cannot be registered, for example
+	 * if another manifest has the same name
+	 */
+	public synchronized ObjectName register(String name) throws JMException {
+		if(registeredName != null)
+			throw new IllegalStateException("Metrics are already registered as " + registeredName);
+		ObjectName objectName = new ObjectName(DOMAIN + ":type=CargoManifest,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		registeredName = objectName;
+		return objectName;
+	}
+
+	/**
+	 * Removes the metrics from the platform MBean server, if registered.
+	 *
+	 * @throws JMException if the metrics cannot be unregistered
+	 */
+	public synchronized void unregister() throws JMException {
+		if(registeredName == null)
+			return;
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		if(server.isRegistered(registeredName))
+			server.unregisterMBean(registeredName);
+		registeredName = null;
+	}
+
+	/*
+	 * Counts an operation towards the sample, returning the clock reading to time it from, or zero if it is not timed
+	 */
+	long startTiming() {
+		return (++ticks & sampleMask) == 0 ? System.nanoTime() : 0;
+	}
+
+	/*
+	 * Counts a load by its outcome, and records its time if it was timed
+	 */
+	void loadDone(ManifestResult result, long started) {
+		increment(loads, result.ordinal(), 1);
+		if(started != 0)
+			loadLatency.record(System.nanoTime() - started);
+	}
+
+	/*
+	 * Counts the containers of a bulk load which succeeded
+	 */
+	void batchLoaded(int count) {
+		increment(loads, ManifestResult.OK.ordinal(), count);
+	}
+
+	/*
+	 * Counts an unload by its outcome, and records its time if it was timed
+	 */
+	void unloadDone(ManifestResult result, long started) {
+		increment(unloads, result.ordinal(), 1);
+		if(started != 0)
+			unloadLatency.record(System.nanoTime() - started);
+	}
+
+	/*
+	 * Counts a lookup, and records its time if it was timed
+	 */
+	void lookupDone(long started) {
+		increment(others, LOOKUPS, 1);
+		if(started != 0)
+			lookupLatency.record(System.nanoTime() - started);
+	}
+
+	/*
+	 * Counts a clearing of the ship
+	 */
+	void cleared() {
+		increment(others, CLEARS, 1);
+	}
+
+	/*
+	 * Helper Function to add to a count which only the thread changing the manifest updates
+	 */
+	private static void increment(AtomicLongArray counts, int index, long amount) {
+		counts.lazySet(index, counts.get(index) + amount);
+	}
+
+	@Override
+	public long getLoads() {
+		return loads.get(ManifestResult.OK.ordinal());
+	}
+
+	@Override
+	public long getUnloads() {
+		return unloads.get(ManifestResult.OK.ordinal());
+	}
+
+	@Override
+	public long getClears() {
+		return others.get(CLEARS);
+	}
+
+	@Override
+	public long getLookups() {
+		return others.get(LOOKUPS);
+	}
+
+	@Override
+	public long getRejectedDuplicate() {
+		return loads.get(ManifestResult.DUPLICATE.ordinal());
+	}
+
+	@Override
+	public long getRejectedOverweight() {
+		return loads.get(ManifestResult.OVERWEIGHT.ordinal());
+	}
+
+	@Override
+	public long getRejectedNoSpace() {
+		return loads.get(ManifestResult.NO_SPACE.ordinal());
+	}
+
+	@Override
+	public long getRejectedNotAccessible() {
+		return unloads.get(ManifestResult.NOT_ACCESSIBLE.ordinal());
+	}
+
+	@Override
+	public long getLoadLatencyMean() {
+		return loadLatency.getMean();
+	}
+
+	@Override
+	public long getLoadLatencyP50() {
+		return loadLatency.getPercentile(0.5);
+	}
+
+	@Override
+	public long getLoadLatencyP99() {
+		return loadLatency.getPercentile(0.99);
+	}
+
+	@Override
+	public long getLoadLatencyMax() {
+		return loadLatency.getMax();
+	}
+
+	@Override
+	public long getUnloadLatencyMean() {
+		return unloadLatency.getMean();
+	}
+
+	@Override
+	public long getUnloadLatencyP50() {
+		return unloadLatency.getPercentile(0.5);
+	}
+
+	@Override
+	public long getUnloadLatencyP99() {
+		return unloadLatency.getPercentile(0.99);
+	}
+
+	@Override
+	public long getUnloadLatencyMax() {
+		return unloadLatency.getMax();
+	}
+
+	@Override
+	public long getLookupLatencyMean() {
+		return lookupLatency.getMean();
+	}
+
+	@Override
+	public long getLookupLatencyP50() {
+		return lookupLatency.getPercentile(0.5);
+	}
+
+	@Override
+	public long getLookupLatencyP99() {
+		return lookupLatency.getPercentile(0.99);
+	}
+
+	@Override
+	public long getLookupLatencyMax() {
+		return lookupLatency.getMax();
+	}
+
+	/**
+	 * Returns the number of loads timed, out of all those counted.
+	 *
+	 * @return the number of loads timed
+	 */
+	public long getLoadsTimed() {
+		return loadLatency.getCount();
+	}
+
+	@Override
+	public int getContainerCount() {
+		synchronized (cargo) {
+			return cargo.containerCount();
+		}
+	}
+
+	@Override
+	public int getTotalWeight() {
+		synchronized (cargo) {
+			return cargo.getTotalWeight();
+		}
+	}
+
+	@Override
+	public int getRemainingCapacity() {
+		synchronized (cargo) {
+			return cargo.getRemainingCapacity();
+		}
+	}
+
+	@Override
+	public int getEmptyStacks() {
+		synchronized (cargo) {
+			return cargo.emptyStackCount();
+		}
+	}
+
+	@Override
+	public double getSlotUtilisation() {
+		synchronized (cargo) {
+			long slots = (long) cargo.getNumStacks() * cargo.getMaxHeight();
+			return slots == 0 ? 0 : 100.0 * cargo.containerCount() / slots;
+		}
+	}
+
+	@Override
+	public int getSampleInterval() {
+		return sampleMask + 1;
+	}
+
+	@Override
+	public void setSampleInterval(int interval) {
+		if(interval < 1 || Integer.bitCount(interval) != 1)
+			throw new IllegalArgumentException("Sampling interval must be a power of two");
+		sampleMask = interval - 1;
+	}
+
+	/**
+	 * Sets every count and timing back to zero.  Operations made while the
+	 * counts are reset may be lost from them.
+	 */
+	@Override
+	public void reset() {
+		for (int i = 0; i < loads.length(); i++) {
+			loads.set(i, 0);
+			unloads.set(i, 0);
+		}
+		for (int i = 0; i < others.length(); i++)
+			others.set(i, 0);
+		loadLatency.reset();
+		unloadLatency.reset();
+		lookupLatency.reset();
+	}
+}
@@ -0,0 +1,208 @@
+package asgn2Manifests;
+
+/**
+ * The management interface of {@link ManifestMetrics}, through which JMX
+ * consoles and exporters read the counts, timings and occupancy of a
+ * cargo manifest.  Times are in nanoseconds, and are measured on a sample
+ * of the operations.
+ *
+ * @author Leandro Rodrigues & Brendan Rothwell n8540683
+ * @version 1.0
+ */
+public interface ManifestMetricsMBean {
+	/**
+	 * Returns the number of containers loaded.
+	 *
+	 * @return the number of loads
+	 */
+	long getLoads();
+
+	/**
+	 * Returns the number of containers unloaded one at a time.
+	 *
+	 * @return the number of unloads
+	 */
+	long getUnloads();
+
+	/**
+	 * Returns the number of times the ship was cleared.
+	 *
+	 * @return the number of clears
+	 */
+	long getClears();
+
+	/**
+	 * Returns the number of lookups of which stack a container is in or how
+	 * high it is.
+	 *
+	 * @return the number of lookups
+	 */
+	long getLookups();
+
+	/**
+	 * Returns the number of loads refused because the code was already on board.
+	 *
+	 * @return the number of rejections
+	 */
+	long getRejectedDuplicate();
+
+	/**
+	 * Returns the number of loads refused because of the ship's weight limit.
+	 *
+	 * @return the number of rejections
+	 */
+	long getRejectedOverweight();
+
+	/**
+	 * Returns the number of loads refused because no stack had room.
+	 *
+	 * @return the number of rejections
+	 */
+	long getRejectedNoSpace();
+
+	/**
+	 * Returns the number of unloads refused because the container was not on
+	 * top of a stack.
+	 *
+	 * @return the number of rejections
+	 */
+	long getRejectedNotAccessible();
+
+	/**
+	 * Returns the mean time of a load.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	long getLoadLatencyMean();
+
+	/**
+	 * Returns the median time of a load, to within a power of two.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	long getLoadLatencyP50();
+
+	/**
+	 * Returns the time 99% of loads take no longer than, to within a power of two.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	long getLoadLatencyP99();
+
+	/**
+	 * Returns the longest time of a load.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	long getLoadLatencyMax();
+
+	/**
+	 * Returns the mean time of an unload.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	long getUnloadLatencyMean();
+
+	/**
+	 * Returns the median time of an unload, to within a power of two.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	long getUnloadLatencyP50();
+
+	/**
+	 * Returns the time 99% of unloads take no longer than, to within a power of two.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	long getUnloadLatencyP99();
+
+	/**
+	 * Returns the longest time of an unload.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	long getUnloadLatencyMax();
+
+	/**
+	 * Returns the mean time of a lookup.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	long getLookupLatencyMean();
+
+	/**
+	 * Returns the median time of a lookup, to within a power of two.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	long getLookupLatencyP50();
+
+	/**
+	 * Returns the time 99% of lookups take no longer than, to within a power of two.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	long getLookupLatencyP99();
+
+	/**
+	 * Returns the longest time of a lookup.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	long getLookupLatencyMax();
+
+	/**
+	 * Returns the number of containers on board.
+	 *
+	 * @return the number of containers
+	 */
+	int getContainerCount();
+
+	/**
+	 * Returns the total weight of the containers on board.
+	 *
+	 * @return the weight in tonnes
+	 */
+	int getTotalWeight();
+
+	/**
+	 * Returns the weight which can still be loaded.
+	 *
+	 * @return the weight in tonnes
+	 */
+	int getRemainingCapacity();
+
+	/**
+	 * Returns the number of stacks with no containers in them.
+	 *
+	 * @return the number of empty stacks
+	 */
+	int getEmptyStacks();
+
+	/**
+	 * Returns the share of the ship's slots holding a container.
+	 *
+	 * @return the percentage of slots in use
+	 */
+	double getSlotUtilisation();
+
+	/**
+	 * Returns how many operations there are for each one timed.
+	 *
+	 * @return the sampling interval
+	 */
+	int getSampleInterval();
+
+	/**
+	 * Sets how many operations there are for each one timed.
+	 *
+	 * @param interval the sampling interval, a power of two
+	 */
+	void setSampleInterval(int interval);
+
+	/**
+	 * Sets every count and timing back to zero.
+	 */
+	void reset();
+}
@@ -0,0 +1,49 @@
+package asgn2Manifests;
+
+/**
+ * The outcome of an attempt to load or unload a container.  Returned by
+ * the non-throwing operations of {@link CargoManifest} so that routine
+ * rejections (such as a full ship) can be handled without the cost of
+ * creating an exception.
+ * 
+ * @author Leandro Rodrigues & Brendan Rothwell n8540683
+ * @version 1.0
+ */
+public enum ManifestResult {
+	/**
+	 * The operation was carried out
+	 */
+	OK("Operation completed"),
+	/**
+	 * A container with the same code is already on board
+	 */
+	DUPLICATE("Container with same code is aready on board"),
+	/**
+	 * Loading the container would exceed the ship's weight limit
+	 */
+	OVERWEIGHT("Adding this container would exceed the ship's weight limit"),
+	/**
+	 * No suitable space can be found for the container
+	 */
+	NO_SPACE("No suitable space can be found for this container"),
+	/**
+	 * The container is not on top of a stack, or is not on board at all
+	 */
+	NOT_ACCESSIBLE("Container Code not on the top of any container stack or is not on board");
+
+	private final String message;
+
+	private ManifestResult(String message) {
+		this.message = message;
+	}
+
+	/**
+	 * Returns a message describing this outcome, as used by the exceptions
+	 * thrown by {@link CargoManifest}.
+	 * 
+	 * @return the message
+	 */
+	public String getMessage() {
+		return this.message;
+	}
+}
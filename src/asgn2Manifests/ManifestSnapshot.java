@@ -0,0 +1,384 @@
+package asgn2Manifests;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import asgn2Codes.ContainerCode;
+import asgn2Containers.ContainerType;
+import asgn2Containers.DangerousGoodsContainer;
+import asgn2Containers.FreightContainer;
+import asgn2Containers.GeneralGoodsContainer;
+import asgn2Containers.RefrigeratedContainer;
+import asgn2Exceptions.CargoException;
+
+/**
+ * Saves a cargo manifest to a compact binary snapshot and restores it again,
+ * with every container in the same stack and tier.
+ * <p>
+ * A snapshot consists of the following, all numbers big-endian:
+ * <ul>
+ * <li>
+ * A 32-byte header: the magic number <code>0x43415247</code> ("CARG"),
+ * the format version as a short, a short of flags (zero), then the number
+ * of stacks, the maximum stack height, the weight limit and the number of
+ * containers, each an int, and finally the sequence number of the last
+ * {@link ManifestJournal} operation included in the snapshot as a long.
+ * Version 1 snapshots, which are still read, end the header before the
+ * sequence number, which is taken to be zero.
+ * </li>
+ * <li>
+ * A directory holding the height of each stack as an int, in stack order.
+ * </li>
+ * <li>
+ * One 16-byte record per container, stack by stack from the bottom up: the
+ * packed container code as a long, the type as a byte (its
+ * {@link ContainerType} ordinal), the gross weight as a byte, a short of
+ * flags (zero), and the temperature of a refrigerated container or the
+ * category of a dangerous goods container as an int (zero otherwise).
+ * </li>
+ * </ul>
+ * Snapshots are read and written through a direct buffer a block at a time,
+ * so a ship of any size is handled in a fixed amount of memory and without
+ * creating any objects besides the containers themselves.
+ *
+ * @author Leandro Rodrigues & Brendan Rothwell n8540683
+ * @version 1.0
+ */
+public final class ManifestSnapshot {
+	/**
+	 * The number at the start of every snapshot, "CARG" in ASCII
+	 */
+	public static final int MAGIC = 0x43415247;
+	/**
+	 * The format version written by this class
+	 */
+	public static final short VERSION = 2;
+
+	// Sizes of the parts of a snapshot, in bytes. Version 1 headers have no sequence number
+	static final int HEADER_SIZE = 32;
+	static final int V1_HEADER_SIZE = 24;
+	static final int RECORD_SIZE = 16;
+	// Size of the direct buffer the snapshot passes through
+	private static final int BLOCK_SIZE = 64 * 1024;
+
+	private ManifestSnapshot() {
+	}
+
+	/**
+	 * Saves a manifest to a file, replacing any earlier snapshot in the file.
+	 * The snapshot is written to a temporary file next to it first and only
+	 * moved into place once complete, so the earlier snapshot survives a
+	 * failed save.
+	 *
+	 * @param cargo the manifest to save
+	 * @param file the file to save to
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void save(CargoManifest cargo, Path file) throws IOException {
+		save(cargo, file, 0);
+	}
+
+	/**
+	 * Saves a manifest to a file as at a given journal operation, replacing
+	 * any earlier snapshot in the file as {@link #save(CargoManifest, Path)}
+	 * does.  The snapshot and the directory entry naming it are both on disk
+	 * when this returns, so the journal operations it holds may then be
+	 * discarded.
+	 *
+	 * @param cargo the manifest to save
+	 * @param file the file to save to
+	 * @param sequence the sequence number of the last journal operation
+	 * reflected in the manifest
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void save(CargoManifest cargo, Path file, long sequence) throws IOException {
+		Path partial = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			write(cargo, channel, sequence);
+			channel.force(true);
+		}
+		Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		// The new name is only durable once the directory holding it is, and a journal must not be emptied before
+		forceDirectory(file.toAbsolutePath().getParent());
+	}
+
+	/*
+	 * Helper Function to force a directory's entries to disk, on platforms which allow a directory to be opened
+	 */
+	private static void forceDirectory(Path directory) throws IOException {
+		FileChannel channel;
+		try {
+			channel = FileChannel.open(directory, StandardOpenOption.READ);
+		} catch (IOException e) {
+			// Windows cannot open a directory, and makes a rename durable by itself
+			return;
+		}
+		try (FileChannel opened = channel) {
+			opened.force(true);
+		}
+	}
+
+	/**
+	 * Restores a manifest from a file.
+	 *
+	 * @param file the file holding the snapshot
+	 * @return a new manifest with the same parameters and containers as the
+	 * one saved
+	 * @throws IOException if the file cannot be read or is not a complete
+	 * snapshot
+	 * @throws CargoException if the snapshot holds an invalid container, or
+	 * containers which break the captain's rules
+	 */
+	public static CargoManifest load(Path file) throws IOException, CargoException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return read(channel);
+		}
+	}
+
+	/**
+	 * Returns the sequence number of the last journal operation included in
+	 * a snapshot file, reading only its header.
+	 *
+	 * @param file the file holding the snapshot
+	 * @return the sequence number, zero for a version 1 snapshot
+	 * @throws IOException if the file cannot be read or is not a snapshot
+	 */
+	public static long readSequence(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			int read = 0;
+			while(header.hasRemaining() && read >= 0)
+				read = channel.read(header);
+			header.flip();
+			if(header.remaining() < V1_HEADER_SIZE)
+				throw new IOException("Snapshot is truncated");
+			if(checkHeader(header) < 2)
+				return 0;
+			if(header.limit() < HEADER_SIZE)
+				throw new IOException("Snapshot is truncated");
+			return header.getLong(V1_HEADER_SIZE);
+		}
+	}
+
+	/**
+	 * Writes a snapshot of a manifest to a channel.
+	 *
+	 * @param cargo the manifest to write
+	 * @param channel the channel to write to
+	 * @throws IOException if the channel cannot be written
+	 */
+	public static void write(CargoManifest cargo, WritableByteChannel channel) throws IOException {
+		write(cargo, channel, 0);
+	}
+
+	/**
+	 * Writes a snapshot of a manifest as at a given journal operation to a
+	 * channel.
+	 *
+	 * @param cargo the manifest to write
+	 * @param channel the channel to write to
+	 * @param sequence the sequence number of the last journal operation
+	 * reflected in the manifest
+	 * @throws IOException if the channel cannot be written
+	 */
+	public static void write(CargoManifest cargo, WritableByteChannel channel, long sequence) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BLOCK_SIZE);
+		int numStacks = cargo.getNumStacks();
+		buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0);
+		buffer.putInt(numStacks).putInt(cargo.getMaxHeight()).putInt(cargo.getMaxWeight());
+		try {
+			// Counts the containers, and lists the height of each stack
+			int count = 0;
+			for (int i = 0; i < numStacks; i++)
+				count += cargo.getStackHeight(i);
+			buffer.putInt(count);
+			buffer.putLong(sequence);
+			for (int i = 0; i < numStacks; i++) {
+				ensureRoom(buffer, channel, 4);
+				buffer.putInt(cargo.getStackHeight(i));
+			}
+			// Then the containers, stack by stack from the bottom up
+			for (int i = 0; i < numStacks; i++)
+				for (FreightContainer container : cargo.toArray(i)) {
+					ensureRoom(buffer, channel, RECORD_SIZE);
+					putRecord(buffer, container);
+				}
+		} catch (CargoException e) {
+			// Only the stacks on the ship are visited
+			throw new IllegalStateException(e);
+		}
+		buffer.flip();
+		writeFully(buffer, channel);
+	}
+
+	/**
+	 * Reads a snapshot of a manifest from a channel.
+	 *
+	 * @param channel the channel to read from
+	 * @return a new manifest with the same parameters and containers as the
+	 * one written
+	 * @throws IOException if the channel cannot be read or does not hold a
+	 * complete snapshot, including one whose header is damaged
+	 * @throws CargoException if the snapshot holds an invalid container, or
+	 * containers which break the captain's rules
+	 */
+	public static CargoManifest read(ReadableByteChannel channel) throws IOException, CargoException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BLOCK_SIZE);
+		buffer.flip();
+		require(buffer, channel, V1_HEADER_SIZE);
+		int version = checkHeader(buffer);
+		int numStacks = buffer.getInt();
+		int maxHeight = buffer.getInt();
+		int maxWeight = buffer.getInt();
+		int count = buffer.getInt();
+		// Only the journal needs the sequence number
+		if(version >= 2) {
+			require(buffer, channel, 8);
+			buffer.getLong();
+		}
+		// Nothing is allocated from the header until it has been checked
+		if(numStacks < 0 || maxHeight < 0 || maxWeight < 0 || count < 0)
+			throw new IOException("Snapshot has negative parameters");
+		if((long) numStacks * maxHeight > Integer.MAX_VALUE - 8 || count > (long) numStacks * maxHeight)
+			throw new IOException("Snapshot has more containers than the ship has slots");
+
+		// Reads the height of every stack, which must add up to the number of containers. The directory grows as it
+		// is read, so a damaged header claiming a huge ship runs out of data rather than memory
+		int[] heights = new int[Math.min(numStacks, BLOCK_SIZE)];
+		long total = 0;
+		for (int i = 0; i < numStacks; i++) {
+			require(buffer, channel, 4);
+			if(i == heights.length)
+				heights = Arrays.copyOf(heights, (int) Math.min(numStacks, 2L * heights.length));
+			heights[i] = buffer.getInt();
+			if(heights[i] < 0 || heights[i] > maxHeight)
+				throw new IOException("Stack " + i + " has an impossible height of " + heights[i]);
+			total += heights[i];
+		}
+		if(total != count)
+			throw new IOException("Stack heights do not add up to " + count + " containers");
+
+		// Puts each container back where it was
+		CargoManifest cargo = new CargoManifest(numStacks, maxHeight, maxWeight);
+		cargo.reserve(count);
+		for (int i = 0; i < numStacks; i++)
+			for (int j = 0; j < heights[i]; j++) {
+				require(buffer, channel, RECORD_SIZE);
+				cargo.restoreContainer(i, getRecord(buffer));
+			}
+		return cargo;
+	}
+
+	/*
+	 * Helper Function to write a container as a record at the buffer's position
+	 */
+	private static void putRecord(ByteBuffer buffer, FreightContainer container) {
+		buffer.putLong(container.getCode().toKey());
+		buffer.put((byte) container.getType().ordinal());
+		buffer.put((byte) (int) container.getGrossWeight());
+		buffer.putShort((short) 0);
+		buffer.putInt(detailOf(container));
+	}
+
+	/*
+	 * Returns the temperature of a refrigerated container or the category of a dangerous goods container, or zero
+	 * for any other container
+	 */
+	static int detailOf(FreightContainer container) {
+		if(container instanceof RefrigeratedContainer)
+			return ((RefrigeratedContainer) container).getTemperature();
+		if(container instanceof DangerousGoodsContainer)
+			return ((DangerousGoodsContainer) container).getCategory();
+		return 0;
+	}
+
+	/*
+	 * Helper Function to create the container described by the record at the buffer's position
+	 */
+	private static FreightContainer getRecord(ByteBuffer buffer) throws IOException, CargoException {
+		long key = buffer.getLong();
+		int type = buffer.get();
+		int weight = buffer.get();
+		buffer.getShort();
+		int detail = buffer.getInt();
+		return createContainer(key, type, weight, detail);
+	}
+
+	/*
+	 * Creates the container described by the fields of a record
+	 */
+	static FreightContainer createContainer(long key, int type, int weight, int detail)
+			throws IOException, CargoException {
+		ContainerCode code = ContainerCode.fromKey(key);
+		if(type == ContainerType.GENERAL.ordinal())
+			return new GeneralGoodsContainer(code, weight);
+		if(type == ContainerType.REFRIGERATED.ordinal())
+			return new RefrigeratedContainer(code, weight, detail);
+		if(type == ContainerType.DANGEROUS_GOODS.ordinal())
+			return new DangerousGoodsContainer(code, weight, detail);
+		throw new IOException("Unknown container type " + type);
+	}
+
+	/*
+	 * Checks the magic number, version and flags at the buffer's position, leaving it at the number of stacks.
+	 * Returns the version
+	 */
+	static int checkHeader(ByteBuffer buffer) throws IOException {
+		if(buffer.getInt() != MAGIC)
+			throw new IOException("Not a cargo manifest snapshot");
+		short version = buffer.getShort();
+		if(version < 1 || version > VERSION)
+			throw new IOException("Unsupported snapshot version " + version);
+		buffer.getShort();
+		return version;
+	}
+
+	/*
+	 * Returns the size of the header of a snapshot of the given version
+	 */
+	static int headerSize(int version) {
+		return version < 2 ? V1_HEADER_SIZE : HEADER_SIZE;
+	}
+
+	/*
+	 * Helper Function to write out the buffer's contents if fewer than the given number of bytes are left in it
+	 */
+	private static void ensureRoom(ByteBuffer buffer, WritableByteChannel channel, int bytes) throws IOException {
+		if(buffer.remaining() >= bytes)
+			return;
+		buffer.flip();
+		writeFully(buffer, channel);
+		buffer.clear();
+	}
+
+	/*
+	 * Helper Function to write everything between the buffer's position and limit, however many writes it takes
+	 */
+	private static void writeFully(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+		while(buffer.hasRemaining())
+			channel.write(buffer);
+	}
+
+	/*
+	 * Helper Function to read more of the channel into the buffer until at least the given number of bytes are
+	 * waiting in it. The buffer is kept ready for reading
+	 */
+	private static void require(ByteBuffer buffer, ReadableByteChannel channel, int bytes) throws IOException {
+		if(buffer.remaining() >= bytes)
+			return;
+		buffer.compact();
+		while(buffer.position() < bytes)
+			if(channel.read(buffer) < 0)
+				throw new IOException("Snapshot is truncated");
+		buffer.flip();
+	}
+}
@@ -0,0 +1,379 @@
+package asgn2Manifests;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import asgn2Codes.ContainerCode;
+import asgn2Containers.FreightContainer;
+import asgn2Exceptions.CargoException;
+import asgn2Exceptions.ManifestException;
+
+/**
+ * A read-only cargo manifest which works directly on a
+ * {@link ManifestSnapshot} file mapped into memory, for archived and very
+ * large manifests.
+ * <p>
+ * Opening a snapshot only reads its header and stack directory, so it takes
+ * about the same time however many containers the file holds.  The
+ * containers stay in the file until they are asked for: stack heights,
+ * weights and codes are read straight from the mapped records, and
+ * {@link FreightContainer} objects are only created by
+ * {@link #getContainer(Integer, Integer)} and {@link #toArray(Integer)},
+ * for the containers requested.  {@link #whichStack(ContainerCode)} and
+ * {@link #howHigh(ContainerCode)} build an index of the codes from the
+ * records on their first use, without creating any containers.
+ * <p>
+ * The records are mapped in segments of at most 1 GiB, so snapshots larger
+ * than a single buffer can address are supported.  The mapping stays valid
+ * after the file is closed, until the manifest is no longer used.  A
+ * mapped manifest may be read by several threads at once.
+ *
+ * @author Leandro Rodrigues & Brendan Rothwell n8540683
+ * @version 1.0
+ */
+public final class MappedManifest {
+	// Number of records in each mapped segment, a power of two
+	private static final int SEGMENT_SHIFT = 26;
+	private static final long SEGMENT_RECORDS = 1L << SEGMENT_SHIFT;
+	// Offsets of the fields within a record
+	private static final int TYPE_OFFSET = 8;
+	private static final int WEIGHT_OFFSET = 9;
+	private static final int DETAIL_OFFSET = 12;
+
+	private final int numStacks;
+	private final int maxHeight;
+	private final int maxWeight;
+	private final long count;
+	// Number of the first record of each stack, with the number of records at the end
+	private final long[] stackStarts;
+	private final MappedByteBuffer[] segments;
+	// Index of the codes on board, built on first use. Guarded by this manifest
+	private CodeIndex locations;
+	// Total weight on board, worked out on first use (-1 until then)
+	private volatile long totalWeight = -1;
+
+	/*
+	 * Constructs a mapped manifest from the parts of a snapshot which have been read already
+	 */
+	private MappedManifest(int numStacks, int maxHeight, int maxWeight, long[] stackStarts,
+			MappedByteBuffer[] segments) {
+		this.numStacks = numStacks;
+		this.maxHeight = maxHeight;
+		this.maxWeight = maxWeight;
+		this.count = stackStarts[numStacks];
+		this.stackStarts = stackStarts;
+		this.segments = segments;
+	}
+
+	/**
+	 * Opens a snapshot file, reading only its header and stack directory.
+	 *
+	 * @param file the file holding the snapshot
+	 * @return a manifest reading from the file
+	 * @throws IOException if the file cannot be read or mapped, or is not a
+	 * complete snapshot
+	 */
+	public static MappedManifest open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if(channel.size() < ManifestSnapshot.V1_HEADER_SIZE)
+				throw new IOException("Snapshot is truncated");
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, ManifestSnapshot.V1_HEADER_SIZE);
+			int headerSize = ManifestSnapshot.headerSize(ManifestSnapshot.checkHeader(header));
+			int numStacks = header.getInt();
+			int maxHeight = header.getInt();
+			int maxWeight = header.getInt();
+			long count = header.getInt() & 0xFFFFFFFFL;
+			if(numStacks < 0 || maxHeight < 0 || maxWeight < 0)
+				throw new IOException("Snapshot has negative parameters");
+
+			// Works out where each stack's records start from the directory of heights
+			long recordsStart = headerSize + 4L * numStacks;
+			if(channel.size() < recordsStart + count * ManifestSnapshot.RECORD_SIZE)
+				throw new IOException("Snapshot is truncated");
+			ByteBuffer directory = channel.map(FileChannel.MapMode.READ_ONLY, headerSize, recordsStart - headerSize);
+			long[] stackStarts = new long[numStacks + 1];
+			for (int i = 0; i < numStacks; i++) {
+				int height = directory.getInt();
+				if(height < 0 || height > maxHeight)
+					throw new IOException("Stack " + i + " has an impossible height of " + height);
+				stackStarts[i + 1] = stackStarts[i] + height;
+			}
+			if(stackStarts[numStacks] != count)
+				throw new IOException("Stack heights do not add up to " + count + " containers");
+
+			// Maps the records a segment at a time
+			MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((count + SEGMENT_RECORDS - 1) >>> SEGMENT_SHIFT)];
+			for (int i = 0; i < segments.length; i++) {
+				long first = (long) i << SEGMENT_SHIFT;
+				long records = Math.min(SEGMENT_RECORDS, count - first);
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+						recordsStart + first * ManifestSnapshot.RECORD_SIZE, records * ManifestSnapshot.RECORD_SIZE);
+			}
+			return new MappedManifest(numStacks, maxHeight, maxWeight, stackStarts, segments);
+		}
+	}
+
+	/**
+	 * Returns the number of stacks on deck.
+	 *
+	 * @return the number of stacks
+	 */
+	public Integer getNumStacks() {
+		return numStacks;
+	}
+
+	/**
+	 * Returns the maximum allowable height of any stack.
+	 *
+	 * @return the maximum stack height
+	 */
+	public Integer getMaxHeight() {
+		return maxHeight;
+	}
+
+	/**
+	 * Returns the maximum weight of containers allowed on board.
+	 *
+	 * @return the weight limit (in tonnes)
+	 */
+	public Integer getMaxWeight() {
+		return maxWeight;
+	}
+
+	/**
+	 * Returns the number of containers on board.
+	 *
+	 * @return the number of containers
+	 */
+	public long getContainerCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the total weight of all containers on board.  The first call
+	 * reads the weight of every record.
+	 *
+	 * @return the weight on board (in tonnes)
+	 */
+	public Integer getTotalWeight() {
+		long total = totalWeight;
+		if(total < 0) {
+			total = 0;
+			for (long i = 0; i < count; i++)
+				total += weightOf(i);
+			totalWeight = total;
+		}
+		return (int) total;
+	}
+
+	/**
+	 * Returns the number of containers in a particular stack.
+	 *
+	 * @param stackNo the stack number
+	 * @return the number of containers in the stack
+	 * @throws ManifestException if the stack does not exist
+	 */
+	public Integer getStackHeight(Integer stackNo) throws ManifestException {
+		checkStack(stackNo);
+		return (int) (stackStarts[stackNo + 1] - stackStarts[stackNo]);
+	}
+
+	/**
+	 * Returns the total weight of the containers in a particular stack,
+	 * read from the records without creating the containers.
+	 *
+	 * @param stackNo the stack number
+	 * @return the weight of the stack (in tonnes)
+	 * @throws ManifestException if the stack does not exist
+	 */
+	public Integer getStackWeight(Integer stackNo) throws ManifestException {
+		checkStack(stackNo);
+		int weight = 0;
+		for (long i = stackStarts[stackNo]; i < stackStarts[stackNo + 1]; i++)
+			weight += weightOf(i);
+		return weight;
+	}
+
+	/**
+	 * Returns the code of the container at a particular position, without
+	 * creating the container.
+	 *
+	 * @param stackNo the stack number
+	 * @param tier the position in the stack, zero being the bottom
+	 * @return the container's code
+	 * @throws ManifestException if there is no container at this position,
+	 * or its record is damaged
+	 */
+	public ContainerCode getCode(Integer stackNo, Integer tier) throws ManifestException {
+		long record = recordOf(stackNo, tier);
+		try {
+			return ContainerCode.fromKey(segmentOf(record).getLong(offsetOf(record)));
+		} catch (CargoException e) {
+			throw new ManifestException("Snapshot holds a damaged record: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Returns the container at a particular position, created from its
+	 * record.
+	 *
+	 * @param stackNo the stack number
+	 * @param tier the position in the stack, zero being the bottom
+	 * @return the container
+	 * @throws ManifestException if there is no container at this position,
+	 * or its record is damaged
+	 */
+	public FreightContainer getContainer(Integer stackNo, Integer tier) throws ManifestException {
+		return containerAt(recordOf(stackNo, tier));
+	}
+
+	/**
+	 * Returns the contents of a particular stack as an array,
+	 * starting with the bottommost container at position zero in the array.
+	 * Only the containers of this stack are created.
+	 *
+	 * @param stackNo the number of the stack of interest
+	 * @return the stack's freight containers as an array
+	 * @throws ManifestException if there is no such stack on the ship,
+	 * or one of its records is damaged
+	 */
+	public FreightContainer[] toArray(Integer stackNo) throws ManifestException {
+		checkStack(stackNo);
+		long first = stackStarts[stackNo];
+		FreightContainer[] stack = new FreightContainer[(int) (stackStarts[stackNo + 1] - first)];
+		for (int i = 0; i < stack.length; i++)
+			stack[i] = containerAt(first + i);
+		return stack;
+	}
+
+	/**
+	 * Given a container's code, returns the number of the stack it is in,
+	 * if any.  The first lookup indexes every code in the snapshot.
+	 *
+	 * @param queryContainer the container code for the container of interest
+	 * @return the number of the stack the container is in, or <code>null</code>
+	 * if the container is not on board
+	 */
+	public Integer whichStack(ContainerCode queryContainer) {
+		// A null code is never on board, as with CargoManifest
+		if(queryContainer == null)
+			return null;
+		CodeIndex index = index();
+		int slot = index.find(queryContainer.toKey());
+		if(slot < 0)
+			return null;
+		return index.stackAt(slot);
+	}
+
+	/**
+	 * Given a container's code, returns its position in the stack it is in,
+	 * if any, zero being the bottom.  The first lookup indexes every code in
+	 * the snapshot.
+	 *
+	 * @param queryContainer the container code for the container of interest
+	 * @return the container's height in the stack, or <code>null</code> if
+	 * the container is not on board
+	 */
+	public Integer howHigh(ContainerCode queryContainer) {
+		// A null code is never on board, as with CargoManifest
+		if(queryContainer == null)
+			return null;
+		CodeIndex index = index();
+		int slot = index.find(queryContainer.toKey());
+		if(slot < 0)
+			return null;
+		return index.tierAt(slot);
+	}
+
+	/**
+	 * Creates an ordinary manifest holding every container of this one in
+	 * the same place, for when the manifest needs changing.
+	 *
+	 * @return a new manifest which may be loaded and unloaded
+	 * @throws ManifestException if the snapshot holds a damaged record, or
+	 * containers which break the captain's rules
+	 */
+	public CargoManifest toManifest() throws ManifestException {
+		CargoManifest cargo = new CargoManifest(numStacks, maxHeight, maxWeight);
+		cargo.reserve((int) count);
+		for (int i = 0; i < numStacks; i++)
+			for (long j = stackStarts[i]; j < stackStarts[i + 1]; j++)
+				cargo.restoreContainer(i, containerAt(j));
+		return cargo;
+	}
+
+	/*
+	 * Returns the index of the codes on board, reading every record's code the first time
+	 */
+	private synchronized CodeIndex index() {
+		if(locations == null) {
+			CodeIndex index = new CodeIndex((int) Math.min(count, Integer.MAX_VALUE));
+			for (int i = 0; i < numStacks; i++)
+				for (long j = stackStarts[i]; j < stackStarts[i + 1]; j++) {
+					long key = segmentOf(j).getLong(offsetOf(j));
+					// A damaged snapshot may repeat a code, the lowest one is the one found
+					if(index.find(key) < 0)
+						index.put(key, i, (int) (j - stackStarts[i]));
+				}
+			locations = index;
+		}
+		return locations;
+	}
+
+	/*
+	 * Helper Function to check that a stack exists
+	 */
+	private void checkStack(Integer stackNo) throws ManifestException {
+		if(stackNo == null || stackNo < 0 || stackNo >= numStacks)
+			throw new ManifestException("There is no such stack on this ship");
+	}
+
+	/*
+	 * Helper Function to find the record of the container at a position
+	 */
+	private long recordOf(Integer stackNo, Integer tier) throws ManifestException {
+		if(stackNo == null || tier == null || stackNo < 0 || stackNo >= numStacks || tier < 0
+				|| tier >= stackStarts[stackNo + 1] - stackStarts[stackNo])
+			throw new ManifestException("There is no container at this position");
+		return stackStarts[stackNo] + tier;
+	}
+
+	/*
+	 * Helper Function to get the mapped segment holding a record
+	 */
+	private MappedByteBuffer segmentOf(long record) {
+		return segments[(int) (record >>> SEGMENT_SHIFT)];
+	}
+
+	/*
+	 * Helper Function to get the offset of a record within its segment
+	 */
+	private static int offsetOf(long record) {
+		return (int) (record & (SEGMENT_RECORDS - 1)) * ManifestSnapshot.RECORD_SIZE;
+	}
+
+	/*
+	 * Helper Function to read the gross weight of a record
+	 */
+	private int weightOf(long record) {
+		return segmentOf(record).get(offsetOf(record) + WEIGHT_OFFSET);
+	}
+
+	/*
+	 * Helper Function to create the container described by a record
+	 */
+	private FreightContainer containerAt(long record) throws ManifestException {
+		MappedByteBuffer segment = segmentOf(record);
+		int offset = offsetOf(record);
+		try {
+			return ManifestSnapshot.createContainer(segment.getLong(offset), segment.get(offset + TYPE_OFFSET),
+					segment.get(offset + WEIGHT_OFFSET), segment.getInt(offset + DETAIL_OFFSET));
+		} catch (IOException | CargoException e) {
+			throw new ManifestException("Snapshot holds a damaged record: " + e.getMessage());
+		}
+	}
+}
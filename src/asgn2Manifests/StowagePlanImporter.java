@@ -0,0 +1,450 @@
+package asgn2Manifests;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import asgn2Codes.ContainerCode;
+import asgn2Containers.DangerousGoodsContainer;
+import asgn2Containers.FreightContainer;
+import asgn2Containers.GeneralGoodsContainer;
+import asgn2Containers.RefrigeratedContainer;
+import asgn2Exceptions.CargoException;
+
+/**
+ * Loads the containers listed in a stowage plan file onto a cargo
+ * manifest.  The file is read a block at a time through a channel, one
+ * line per container, and the containers are loaded in batches as by
+ * {@link CargoManifest#tryLoadContainers(java.util.Collection)}, so a file
+ * of any size is imported in a fixed amount of memory.
+ * <p>
+ * Each line gives a container code, a type letter (<code>G</code> for
+ * general goods, <code>R</code> for refrigerated or <code>D</code> for
+ * dangerous goods), a gross weight and, for refrigerated and dangerous
+ * goods containers, the temperature or category, in one of two formats:
+ * <ul>
+ * <li>
+ * {@link Format#CSV}: the fields separated by commas, for example
+ * <code>INKU2633836,R,20,-5</code>.
+ * </li>
+ * <li>
+ * {@link Format#FIXED_WIDTH}: the fields in fixed columns, as in a
+ * BAPLIE-style plan.  Columns 1 to 11 hold the code, column 12 the type,
+ * columns 13 and 14 the weight and columns 15 to 17 the temperature or
+ * category, numbers padded with spaces, for example
+ * <code>INKU2633836R20 -5</code>.
+ * </li>
+ * </ul>
+ * Blank lines and lines starting with <code>#</code> are skipped.  Lines
+ * which cannot be read, and containers the manifest refuses, are written
+ * to a report of rejects, one per line: the line number, a tab, the reason,
+ * a tab, and the line as read (or the container code, for a container the
+ * manifest refused).
+ * <p>
+ * An importer reads one file at a time, and the counts it keeps describe
+ * the last file imported.
+ *
+ * @author Leandro Rodrigues & Brendan Rothwell n8540683
+ * @version 1.0
+ */
+public final class StowagePlanImporter {
+	/**
+	 * The layouts a stowage plan file can have
+	 */
+	public enum Format {
+		/**
+		 * Fields separated by commas
+		 */
+		CSV,
+		/**
+		 * Fields in fixed columns
+		 */
+		FIXED_WIDTH
+	}
+
+	/**
+	 * The number of containers loaded at a time, unless another is given
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 1024;
+	/**
+	 * The longest line read, longer lines are rejected
+	 */
+	public static final int MAX_LINE_LENGTH = 256;
+
+	// Size of the buffer the file is read through
+	private static final int BLOCK_SIZE = 64 * 1024;
+	// Columns of each field in the fixed width format, from the first to one past the last
+	private static final int CODE_END = 11;
+	private static final int TYPE_END = 12;
+	private static final int WEIGHT_END = 14;
+	private static final int DETAIL_END = 17;
+	// Returned by parseInt when a field is not a number
+	private static final int NOT_A_NUMBER = Integer.MIN_VALUE;
+
+	private final Format format;
+	private final int batchSize;
+	// The line being read, reused for every line, and the fields found in it
+	private final byte[] line;
+	private int length;
+	private boolean tooLong;
+	private final Field field;
+	private final int[] starts;
+	private final int[] ends;
+	// Containers waiting to be loaded, and the line each came from
+	private final List<FreightContainer> batch;
+	private final long[] batchLines;
+	// Counts for the file being imported
+	private long linesRead;
+	private long loaded;
+	private long rejected;
+	private Appendable rejects;
+
+	/**
+	 * Constructs an importer for files of the given format, loading
+	 * {@link #DEFAULT_BATCH_SIZE} containers at a time.
+	 *
+	 * @param format the layout of the files to import
+	 */
+	public StowagePlanImporter(Format format) {
+		this(format, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Constructs an importer for files of the given format.
+	 *
+	 * @param format the layout of the files to import
+	 * @param batchSize the number of containers to load at a time
+	 */
+	public StowagePlanImporter(Format format, int batchSize) {
+		if(batchSize < 1)
+			throw new IllegalArgumentException("Batch size must be at least 1");
+		this.format = format;
+		this.batchSize = batchSize;
+		line = new byte[MAX_LINE_LENGTH];
+		field = new Field(line);
+		starts = new int[4];
+		ends = new int[4];
+		batch = new ArrayList<FreightContainer>(batchSize);
+		batchLines = new long[batchSize];
+	}
+
+	/**
+	 * Imports a stowage plan file onto a manifest.
+	 *
+	 * @param file the file to import
+	 * @param cargo the manifest to load the containers onto
+	 * @param rejects where to report the lines and containers rejected, or
+	 * <code>null</code> to only count them
+	 * @return the number of containers loaded
+	 * @throws IOException if the file cannot be read, or the report written
+	 */
+	public long importFile(Path file, CargoManifest cargo, Appendable rejects) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return importFrom(channel, cargo, rejects);
+		}
+	}
+
+	/**
+	 * Imports a stowage plan from a channel onto a manifest.  Each batch is
+	 * loaded while holding the manifest's lock, so other threads may read
+	 * the manifest between batches.
+	 *
+	 * @param channel the channel to read the plan from
+	 * @param cargo the manifest to load the containers onto
+	 * @param rejects where to report the lines and containers rejected, or
+	 * <code>null</code> to only count them
+	 * @return the number of containers loaded
+	 * @throws IOException if the channel cannot be read, or the report written
+	 */
+	public long importFrom(ReadableByteChannel channel, CargoManifest cargo, Appendable rejects) throws IOException {
+		this.rejects = rejects;
+		linesRead = 0;
+		loaded = 0;
+		rejected = 0;
+		length = 0;
+		tooLong = false;
+		batch.clear();
+		ByteBuffer block = ByteBuffer.allocateDirect(BLOCK_SIZE);
+		boolean finished = false;
+		while(!finished) {
+			block.clear();
+			finished = channel.read(block) < 0;
+			// Splits the block into lines, a line may carry on into the next block
+			for (int i = 0; i < block.position(); i++) {
+				byte b = block.get(i);
+				if(b == '\n') {
+					endLine(cargo);
+				}
+				else if(length < line.length)
+					line[length++] = b;
+				else
+					tooLong = true;
+			}
+		}
+		// The last line need not end with a new line
+		if(length > 0 || tooLong)
+			endLine(cargo);
+		loadBatch(cargo);
+		this.rejects = null;
+		return loaded;
+	}
+
+	/**
+	 * Returns the number of lines read from the last file, including blank
+	 * lines and comments.
+	 *
+	 * @return the number of lines
+	 */
+	public long getLinesRead() {
+		return linesRead;
+	}
+
+	/**
+	 * Returns the number of containers loaded from the last file.
+	 *
+	 * @return the number of containers loaded
+	 */
+	public long getLoaded() {
+		return loaded;
+	}
+
+	/**
+	 * Returns the number of lines and containers rejected from the last file.
+	 *
+	 * @return the number rejected
+	 */
+	public long getRejected() {
+		return rejected;
+	}
+
+	/*
+	 * Helper Function to handle the complete line held in the line buffer, then empty the buffer for the next
+	 */
+	private void endLine(CargoManifest cargo) throws IOException {
+		linesRead++;
+		// Drops the carriage return of a Windows line ending
+		if(length > 0 && line[length - 1] == '\r')
+			length--;
+		try {
+			if(tooLong)
+				reject(linesRead, "Line is longer than " + MAX_LINE_LENGTH + " characters", null);
+			else if(length > 0 && line[0] != '#') {
+				String problem = format == Format.CSV ? splitCsv() : splitFixed();
+				if(problem == null)
+					problem = addContainer();
+				if(problem != null)
+					reject(linesRead, problem, null);
+				else if(batch.size() >= batchSize)
+					loadBatch(cargo);
+			}
+		} finally {
+			length = 0;
+			tooLong = false;
+		}
+	}
+
+	/*
+	 * Helper Function to find the comma separated fields of the line, without the spaces around them. Returns the
+	 * problem found, or null
+	 */
+	private String splitCsv() {
+		int count = 0;
+		int start = 0;
+		for (int i = 0; i <= length; i++)
+			if(i == length || line[i] == ',') {
+				if(count == starts.length)
+					return "Too many fields";
+				starts[count] = start;
+				ends[count] = i;
+				count++;
+				start = i + 1;
+			}
+		if(count < 3)
+			return "Too few fields";
+		// A missing temperature or category is left empty
+		for (int i = count; i < starts.length; i++) {
+			starts[i] = length;
+			ends[i] = length;
+		}
+		trimFields();
+		return null;
+	}
+
+	/*
+	 * Helper Function to find the fields of the line in their fixed columns, without the spaces around them.
+	 * Returns the problem found, or null
+	 */
+	private String splitFixed() {
+		if(length < WEIGHT_END)
+			return "Line is too short";
+		if(length > DETAIL_END)
+			return "Line is too long";
+		starts[0] = 0;
+		ends[0] = CODE_END;
+		starts[1] = CODE_END;
+		ends[1] = TYPE_END;
+		starts[2] = TYPE_END;
+		ends[2] = WEIGHT_END;
+		starts[3] = WEIGHT_END;
+		ends[3] = length;
+		trimFields();
+		return null;
+	}
+
+	/*
+	 * Helper Function to move the start and end of each field past any spaces around it
+	 */
+	private void trimFields() {
+		for (int i = 0; i < starts.length; i++) {
+			while(starts[i] < ends[i] && line[starts[i]] == ' ')
+				starts[i]++;
+			while(ends[i] > starts[i] && line[ends[i] - 1] == ' ')
+				ends[i]--;
+		}
+	}
+
+	/*
+	 * Helper Function to create the container described by the fields of the line and add it to the batch.
+	 * Returns the problem found, or null
+	 */
+	private String addContainer() {
+		long key = ContainerCode.keyOf(field.of(starts[0], ends[0]));
+		if(key < 0)
+			return "Invalid container code";
+		if(ends[1] - starts[1] != 1)
+			return "Unknown container type";
+		byte type = line[starts[1]];
+		int weight = parseInt(starts[2], ends[2]);
+		if(weight < FreightContainer.MIN_GROSS_WEIGHT || weight > FreightContainer.MAX_GROSS_WEIGHT)
+			return "Invalid gross weight";
+		boolean hasDetail = ends[3] > starts[3];
+		int detail = parseInt(starts[3], ends[3]);
+		if(hasDetail && detail == NOT_A_NUMBER)
+			return "Invalid temperature or category";
+		try {
+			ContainerCode code = ContainerCode.fromKey(key);
+			if(type == 'G') {
+				if(hasDetail)
+					return "General goods containers have no temperature or category";
+				batch.add(new GeneralGoodsContainer(code, weight));
+			}
+			else if(type == 'R') {
+				if(!hasDetail)
+					return "Missing temperature";
+				batch.add(new RefrigeratedContainer(code, weight, detail));
+			}
+			else if(type == 'D') {
+				if(!hasDetail || detail < 1 || detail > 9)
+					return "Invalid category";
+				batch.add(new DangerousGoodsContainer(code, weight, detail));
+			}
+			else
+				return "Unknown container type";
+		} catch (CargoException e) {
+			// The code and weight were checked above
+			return e.getMessage();
+		}
+		batchLines[batch.size() - 1] = linesRead;
+		return null;
+	}
+
+	/*
+	 * Helper Function to load the waiting containers onto the manifest, reporting any it refuses
+	 */
+	private void loadBatch(CargoManifest cargo) throws IOException {
+		if(batch.isEmpty())
+			return;
+		ManifestResult[] results;
+		synchronized (cargo) {
+			results = cargo.tryLoadContainers(batch);
+		}
+		for (int i = 0; i < results.length; i++)
+			if(results[i] == ManifestResult.OK)
+				loaded++;
+			else
+				reject(batchLines[i], results[i].getMessage(), batch.get(i).getCode().toString());
+		batch.clear();
+	}
+
+	/*
+	 * Helper Function to count a rejection and report it, with either the given text or the current line
+	 */
+	private void reject(long lineNo, String reason, String text) throws IOException {
+		rejected++;
+		if(rejects == null)
+			return;
+		rejects.append(Long.toString(lineNo)).append('\t').append(reason).append('\t');
+		if(text != null)
+			rejects.append(text);
+		else
+			rejects.append(field.of(0, length));
+		rejects.append('\n');
+	}
+
+	/*
+	 * Helper Function to read a whole number, possibly negative, from part of the line. Returns NOT_A_NUMBER if it
+	 * is empty, not a number or too long
+	 */
+	private int parseInt(int start, int end) {
+		boolean negative = start < end && line[start] == '-';
+		if(negative)
+			start++;
+		if(start == end || end - start > 9)
+			return NOT_A_NUMBER;
+		int value = 0;
+		for (int i = start; i < end; i++) {
+			if(line[i] < '0' || line[i] > '9')
+				return NOT_A_NUMBER;
+			value = value * 10 + (line[i] - '0');
+		}
+		return negative ? -value : value;
+	}
+
+	/*
+	 * A view of part of the line as characters, so a code can be checked without creating a string
+	 */
+	private static final class Field implements CharSequence {
+		private final byte[] bytes;
+		private int start;
+		private int end;
+
+		Field(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		/*
+		 * Points the view at part of the line and returns it
+		 */
+		Field of(int start, int end) {
+			this.start = start;
+			this.end = end;
+			return this;
+		}
+
+		@Override
+		public int length() {
+			return end - start;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return (char) (bytes[start + index] & 0xFF);
+		}
+
+		@Override
+		public CharSequence subSequence(int from, int to) {
+			return toString().substring(from, to);
+		}
+
+		@Override
+		public String toString() {
+			return new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+		}
+	}
+}
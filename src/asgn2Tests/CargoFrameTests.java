@@ -12,6 +12,7 @@ import org.fest.swing.edt.GuiActionRunner;
 import org.fest.swing.edt.GuiQuery;
 import org.fest.swing.fixture.DialogFixture;
 import org.fest.swing.fixture.FrameFixture;
+import org.fest.swing.timing.Timeout;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -325,6 +326,15 @@ public class CargoFrameTests {
             containerDialog.textBox(TEMPERATURE2).enterText(temperature);
         }
         containerDialog.button("OK").click();
+        waitForOperation();
+    }
+
+    /*
+     * Helper - Waits for an operation on the manifest to finish in the background, the buttons
+     * are enabled again once it has.
+     */
+    private void waitForOperation() {
+        testFrame.button(NEW_MANIFEST).requireEnabled(Timeout.timeout(LONG_PAUSE));
     }
 
     /**
@@ -409,6 +419,7 @@ public class CargoFrameTests {
         DialogFixture containerDialog = testFrame.dialog("Container Dialog");
         containerDialog.textBox(CONTAINER_CODE).enterText(code);
         containerDialog.button("OK").click();
+        waitForOperation();
     }
 
     /**
@@ -437,6 +448,7 @@ public class CargoFrameTests {
         DialogFixture containerDialog = testFrame.dialog("Container Dialog");
         containerDialog.textBox(CONTAINER_CODE).enterText(code);
         containerDialog.button("OK").click();
+        waitForOperation();
     }
 
     /**
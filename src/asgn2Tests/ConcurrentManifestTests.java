@@ -0,0 +1,258 @@
+package asgn2Tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import asgn2Codes.ContainerCode;
+import asgn2Containers.ContainerType;
+import asgn2Containers.DangerousGoodsContainer;
+import asgn2Containers.FreightContainer;
+import asgn2Containers.GeneralGoodsContainer;
+import asgn2Containers.RefrigeratedContainer;
+import asgn2Exceptions.CargoException;
+import asgn2Exceptions.ManifestException;
+import asgn2Manifests.ConcurrentCargoManifest;
+import asgn2Manifests.ManifestResult;
+
+/**
+ * Test class for the ConcurrentCargoManifest class.  Besides the single
+ * threaded behaviour, several threads load and unload containers at once
+ * while the captain's rules are checked.
+ * 
+ * @author Leandro Rodrigues n9382909
+ * @version 1.0
+ */
+public class ConcurrentManifestTests {
+	private static final String CODE1 = "INKU2633836";
+	private static final int NUM_STACKS = 40;
+	private static final int MAX_HEIGHT = 6;
+	private static final int MAX_WEIGHT = 2500;
+	private static final int THREADS = 8;
+	private static final int OPERATIONS_PER_THREAD = 20000;
+	// Codes are shared between threads so that duplicate loads really happen
+	private static final int DIFFERENT_CODES = 600;
+	private static final int TIMEOUT = 60000;
+
+	private ContainerCode[] codes;
+	private ConcurrentCargoManifest manifest;
+
+	@Before
+	public void setUpBefore() throws CargoException {
+		codes = new ContainerCode[DIFFERENT_CODES];
+		long firstKey = new ContainerCode(CODE1).toKey();
+		for (int i = 0; i < codes.length; i++)
+			codes[i] = ContainerCode.fromKey(firstKey + i);
+		manifest = new ConcurrentCargoManifest(NUM_STACKS, MAX_HEIGHT, MAX_WEIGHT);
+	}
+
+	/*
+	 * Helper - Creates a container of a type and weight that depend on its code, so every thread builds the same one
+	 */
+	private FreightContainer createContainer(int codeNo) throws CargoException {
+		int weight = 4 + codeNo % 27;
+		switch (codeNo % 3) {
+		case 0:
+			return new GeneralGoodsContainer(codes[codeNo], weight);
+		case 1:
+			return new RefrigeratedContainer(codes[codeNo], weight, -codeNo % 20);
+		default:
+			return new DangerousGoodsContainer(codes[codeNo], weight, 1 + codeNo % 9);
+		}
+	}
+
+	/*
+	 * Helper - Checks every rule that can be seen in the current state of the ship, failing the test if one is broken
+	 */
+	private void checkRules() throws ManifestException {
+		HashSet<ContainerCode> onBoard = new HashSet<ContainerCode>();
+		int totalWeight = 0;
+		for (int i = 0; i < NUM_STACKS; i++) {
+			FreightContainer[] stack = manifest.toArray(i);
+			// Rule 3: maximum stack height
+			assertTrue(stack.length <= MAX_HEIGHT);
+			ContainerType type = stack.length == 0 ? null : stack[0].getType();
+			for (int j = 0; j < stack.length; j++) {
+				// Rule 5: homogeneous stacks, and no holes in a stack
+				assertEquals(type, stack[j].getType());
+				// Rule 4: one container per code
+				assertTrue(onBoard.add(stack[j].getCode()));
+				totalWeight += stack[j].getGrossWeight();
+			}
+		}
+		// Rule 1: weight limit
+		assertTrue(totalWeight <= MAX_WEIGHT);
+		assertTrue(manifest.getTotalWeight() <= MAX_WEIGHT);
+	}
+
+	/*
+	 *  Tests if the single threaded behaviour matches the ordinary cargo manifest
+	 */
+	@Test
+	public void loadAndUnloadSingleThread() throws CargoException {
+		manifest = new ConcurrentCargoManifest(2, 2, 50);
+		assertEquals(ManifestResult.OK, manifest.tryLoadContainer(new GeneralGoodsContainer(codes[0], 10)));
+		assertEquals(ManifestResult.OK, manifest.tryLoadContainer(new RefrigeratedContainer(codes[1], 10, 0)));
+		assertEquals(ManifestResult.OK, manifest.tryLoadContainer(new GeneralGoodsContainer(codes[2], 10)));
+		assertEquals(ManifestResult.DUPLICATE, manifest.tryLoadContainer(new GeneralGoodsContainer(codes[2], 10)));
+		assertEquals(ManifestResult.NO_SPACE, manifest.tryLoadContainer(new GeneralGoodsContainer(codes[3], 10)));
+		assertEquals(ManifestResult.OVERWEIGHT, manifest.tryLoadContainer(new RefrigeratedContainer(codes[4], 30, 0)));
+		
+		assertEquals(Integer.valueOf(0), manifest.whichStack(codes[2]));
+		assertEquals(Integer.valueOf(1), manifest.howHigh(codes[2]));
+		assertEquals(ManifestResult.NOT_ACCESSIBLE, manifest.tryUnloadContainer(codes[0]));
+		assertEquals(ManifestResult.OK, manifest.tryUnloadContainer(codes[2]));
+		assertNull(manifest.whichStack(codes[2]));
+		assertEquals(Integer.valueOf(20), manifest.getTotalWeight());
+		assertEquals(1, manifest.toArray(0).length);
+	}
+
+	/*
+	 *  Tests if the constructor throws an exception when a parameter is negative
+	 */
+	@Test(expected=ManifestException.class)
+	public void constructorNegativeParameter() throws ManifestException {
+		new ConcurrentCargoManifest(NUM_STACKS, -1, MAX_WEIGHT);
+	}
+
+	/*
+	 *  Tests if the captain's rules hold while several threads load and unload the same codes and another thread reads
+	 */
+	@Test(timeout=TIMEOUT)
+	public void rulesHoldUnderContention() throws Exception {
+		final FreightContainer[] containers = new FreightContainer[DIFFERENT_CODES];
+		for (int i = 0; i < containers.length; i++)
+			containers[i] = createContainer(i);
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicBoolean running = new AtomicBoolean(true);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		List<Thread> workers = new ArrayList<Thread>();
+		
+		// Workers load and unload randomly chosen containers
+		for (int t = 0; t < THREADS; t++) {
+			final long seed = t;
+			workers.add(new Thread(new Runnable() {
+				@Override
+				public void run() {
+					Random random = new Random(seed);
+					try {
+						start.await();
+						for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+							FreightContainer container = containers[random.nextInt(containers.length)];
+							if (random.nextInt(3) == 0)
+								manifest.tryUnloadContainer(container.getCode());
+							else
+								manifest.tryLoadContainer(container);
+							// Whatever happened, a container's recorded position must be within the ship
+							Integer stackNo = manifest.whichStack(container.getCode());
+							assertTrue(stackNo == null || (stackNo >= 0 && stackNo < NUM_STACKS));
+						}
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e);
+					}
+				}
+			}));
+		}
+		// A reader checks the rules on every stack while the workers run
+		Thread reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					start.await();
+					while (running.get()) {
+						for (int i = 0; i < NUM_STACKS; i++) {
+							FreightContainer[] stack = manifest.toArray(i);
+							assertTrue(stack.length <= MAX_HEIGHT);
+							for (int j = 1; j < stack.length; j++)
+								assertEquals(stack[0].getType(), stack[j].getType());
+						}
+						assertTrue(manifest.getTotalWeight() <= MAX_WEIGHT);
+					}
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			}
+		});
+		
+		for (Thread worker : workers)
+			worker.start();
+		reader.start();
+		start.countDown();
+		for (Thread worker : workers)
+			worker.join();
+		running.set(false);
+		reader.join();
+		if (failure.get() != null)
+			throw new AssertionError(failure.get());
+		
+		// Once quiet, the whole ship must obey the rules and every index must agree with the stacks
+		checkRules();
+		int totalWeight = 0;
+		for (int i = 0; i < NUM_STACKS; i++) {
+			FreightContainer[] stack = manifest.toArray(i);
+			assertEquals(Integer.valueOf(stack.length), manifest.getStackHeight(i));
+			int stackWeight = 0;
+			for (int j = 0; j < stack.length; j++) {
+				assertEquals(Integer.valueOf(i), manifest.whichStack(stack[j].getCode()));
+				assertEquals(Integer.valueOf(j), manifest.howHigh(stack[j].getCode()));
+				stackWeight += stack[j].getGrossWeight();
+			}
+			assertEquals(Integer.valueOf(stackWeight), manifest.getStackWeight(i));
+			totalWeight += stackWeight;
+		}
+		assertEquals(Integer.valueOf(totalWeight), manifest.getTotalWeight());
+	}
+
+	/*
+	 *  Tests if containers loaded by several threads at once still go as close to the bridge as possible
+	 */
+	@Test(timeout=TIMEOUT)
+	public void concurrentLoadsFillStacksInOrder() throws Exception {
+		manifest = new ConcurrentCargoManifest(NUM_STACKS, MAX_HEIGHT, DIFFERENT_CODES * 30);
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		List<Thread> workers = new ArrayList<Thread>();
+		final int loadsPerThread = NUM_STACKS * MAX_HEIGHT / 2 / THREADS;
+		for (int t = 0; t < THREADS; t++) {
+			final int firstCode = t * loadsPerThread;
+			workers.add(new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						for (int i = firstCode; i < firstCode + loadsPerThread; i++)
+							assertEquals(ManifestResult.OK, manifest.tryLoadContainer(new GeneralGoodsContainer(codes[i], 10)));
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e);
+					}
+				}
+			}));
+		}
+		for (Thread worker : workers)
+			worker.start();
+		start.countDown();
+		for (Thread worker : workers)
+			worker.join();
+		if (failure.get() != null)
+			throw new AssertionError(failure.get());
+		
+		// Rule 2: full stacks first, then at most one partly filled stack, then empty stacks
+		checkRules();
+		int loaded = loadsPerThread * THREADS;
+		for (int i = 0; i < NUM_STACKS; i++)
+			assertEquals(Integer.valueOf(Math.max(0, Math.min(MAX_HEIGHT, loaded - i * MAX_HEIGHT))), manifest.getStackHeight(i));
+		assertFalse(manifest.getTotalWeight() > DIFFERENT_CODES * 30);
+	}
+}
@@ -9,6 +9,7 @@ package asgn2Tests;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Before;
@@ -249,6 +250,75 @@ public class ContainerTests {
 		new ContainerCode(SYMBOLCHECKDIGIT);
 	}
 
+	// Testing tryParse(CharSequence) and isValid(CharSequence) methods
+
+	/**
+	 * Test method for {@link asgn2Codes.ContainerCode#tryParse(CharSequence)}.
+	 */
+	@Test
+	public final void tryParseValidCodeCC() {
+		assertEquals(cc, ContainerCode.tryParse(new StringBuilder(CODE1)));
+	}
+
+	/**
+	 * Test method for {@link asgn2Codes.ContainerCode#tryParse(CharSequence)}.
+	 */
+	@Test
+	public final void tryParseInvalidCodesCC() {
+		assertNull(ContainerCode.tryParse(null));
+		assertNull(ContainerCode.tryParse(""));
+		assertNull(ContainerCode.tryParse(NOTENOUGHNUMBERS));
+		assertNull(ContainerCode.tryParse(SOMELOWERCASE));
+		assertNull(ContainerCode.tryParse(NUMBEROWNERCODE));
+		assertNull(ContainerCode.tryParse(WRONGCATIDLETTER));
+		assertNull(ContainerCode.tryParse(SERIALSYMBOLS));
+		assertNull(ContainerCode.tryParse(WRONGCHECKDIGIT));
+		assertNull(ContainerCode.tryParse(SYMBOLCHECKDIGIT));
+	}
+
+	/**
+	 * Test method for {@link asgn2Codes.ContainerCode#isValid(CharSequence)}.
+	 */
+	@Test
+	public final void isValidCC() {
+		assertTrue(ContainerCode.isValid(CODE1));
+		assertTrue(ContainerCode.isValid(CODE2));
+		assertTrue(ContainerCode.isValid("MSCU6639871"));
+		assertFalse(ContainerCode.isValid(TOOMANYNUMBERS));
+		assertFalse(ContainerCode.isValid(SERIALLETTERS));
+		assertFalse(ContainerCode.isValid(LASTLOWERCASE));
+	}
+
+	// Testing toKey() and fromKey(long) methods
+
+	/**
+	 * Test method for {@link asgn2Codes.ContainerCode#fromKey(long)}.
+	 */
+	@Test
+	public final void keyRoundTripCC() throws InvalidCodeException {
+		assertEquals(CODE1, ContainerCode.fromKey(cc.toKey()).toString());
+		assertEquals(cc2, ContainerCode.fromKey(cc2.toKey()));
+		assertEquals(cc.toKey(), ContainerCode.keyOf(CODE1));
+	}
+
+	/**
+	 * Test method for {@link asgn2Codes.ContainerCode#toKey()}.
+	 */
+	@Test
+	public final void keyOrderMatchesCodeOrderCC() {
+		assertTrue(cc.toKey() < cc2.toKey());
+		assertTrue(cc.compareTo(cc2) < 0);
+		assertTrue(CODE1.compareTo(CODE2) < 0);
+	}
+
+	/**
+	 * Test method for {@link asgn2Codes.ContainerCode#fromKey(long)}.
+	 */
+	@Test(expected = InvalidCodeException.class)
+	public final void negativeKeyCC() throws InvalidCodeException {
+		ContainerCode.fromKey(-1);
+	}
+
 	// Testing toString() method
 
 	/**
@@ -277,6 +347,16 @@ public class ContainerTests {
 		assertFalse(cc.equals(cc2));
 	}
 
+	// Testing hashCode() method
+
+	/**
+	 * Test method for {@link asgn2Codes.ContainerCode#hashCode()}.
+	 */
+	@Test
+	public final void equalCodesSameHashCodeCC() throws InvalidCodeException {
+		assertEquals(cc.hashCode(), new ContainerCode(CODE1).hashCode());
+	}
+
 	/* FreightContainer Tests */
 
 	// Testing Exceptions
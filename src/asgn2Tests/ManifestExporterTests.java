@@ -0,0 +1,126 @@
+package asgn2Tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import asgn2Codes.ContainerCode;
+import asgn2Containers.DangerousGoodsContainer;
+import asgn2Containers.GeneralGoodsContainer;
+import asgn2Containers.RefrigeratedContainer;
+import asgn2Exceptions.CargoException;
+import asgn2Manifests.CargoManifest;
+import asgn2Manifests.ManifestExporter;
+import asgn2Manifests.ManifestExporter.Format;
+
+/**
+ * Test class for the ManifestExporter class.  A small manifest must be
+ * exported exactly as expected in each format, and a large one must come
+ * out whole however many times the buffer fills.
+ *
+ * @author Leandro Rodrigues n9382909
+ * @version 1.0
+ */
+public class ManifestExporterTests {
+	private static final String CODE1 = "INKU2633836";
+	private static final String CODE2 = "KOCU8090115";
+	private static final String CODE3 = "MSCU6639871";
+	private static final String CODE4 = "ASPU9139465";
+
+	private CargoManifest cargoManifest;
+
+	/*
+	 * Helper - Loads one container of each type, the general goods container ending up on the second tier
+	 */
+	@Before
+	public void setUp() throws CargoException {
+		cargoManifest = new CargoManifest(3, 2, 100);
+		cargoManifest.loadContainer(new GeneralGoodsContainer(new ContainerCode(CODE2), 4));
+		cargoManifest.loadContainer(new RefrigeratedContainer(new ContainerCode(CODE1), 20, -5));
+		cargoManifest.loadContainer(new GeneralGoodsContainer(new ContainerCode(CODE3), 30));
+		cargoManifest.loadContainer(new DangerousGoodsContainer(new ContainerCode(CODE4), 12, 3));
+	}
+
+	/*
+	 * Helper - Exports the manifest to a stream and returns the text
+	 */
+	private String exportToStream(Format format) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long written = ManifestExporter.export(cargoManifest, format, out);
+		assertEquals(out.size(), written);
+		return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+	}
+
+	/*
+	 * Tests if the CSV export has a header and one line per container, stack by stack
+	 */
+	@Test
+	public void csv() throws Exception {
+		assertEquals("code,type,weight,detail,stack,tier\n"
+				+ CODE2 + ",G,4,,0,0\n"
+				+ CODE3 + ",G,30,,0,1\n"
+				+ CODE1 + ",R,20,-5,1,0\n"
+				+ CODE4 + ",D,12,3,2,0\n", exportToStream(Format.CSV));
+	}
+
+	/*
+	 * Tests if the JSON export holds the ship's parameters and one object per container
+	 */
+	@Test
+	public void json() throws Exception {
+		assertEquals("{\"numStacks\":3,\"maxHeight\":2,\"maxWeight\":100,\"containers\":["
+				+ "\n{\"code\":\"" + CODE2 + "\",\"type\":\"GENERAL\",\"weight\":4,\"stack\":0,\"tier\":0},"
+				+ "\n{\"code\":\"" + CODE3 + "\",\"type\":\"GENERAL\",\"weight\":30,\"stack\":0,\"tier\":1},"
+				+ "\n{\"code\":\"" + CODE1 + "\",\"type\":\"REFRIGERATED\",\"weight\":20,\"temperature\":-5,"
+				+ "\"stack\":1,\"tier\":0},"
+				+ "\n{\"code\":\"" + CODE4 + "\",\"type\":\"DANGEROUS_GOODS\",\"weight\":12,\"category\":3,"
+				+ "\"stack\":2,\"tier\":0}"
+				+ "\n]}\n", exportToStream(Format.JSON));
+	}
+
+	/*
+	 * Tests if an empty manifest exports as an empty document
+	 */
+	@Test
+	public void empty() throws Exception {
+		cargoManifest = new CargoManifest(0, 0, 0);
+		assertEquals("code,type,weight,detail,stack,tier\n", exportToStream(Format.CSV));
+		assertEquals("{\"numStacks\":0,\"maxHeight\":0,\"maxWeight\":0,\"containers\":[\n]}\n",
+				exportToStream(Format.JSON));
+	}
+
+	/*
+	 * Tests if a writer receives the same text as a stream
+	 */
+	@Test
+	public void writer() throws Exception {
+		for (Format format : Format.values()) {
+			StringWriter writer = new StringWriter();
+			long written = ManifestExporter.export(cargoManifest, format, writer);
+			assertEquals(exportToStream(format), writer.toString());
+			assertEquals(writer.toString().length(), written);
+		}
+	}
+
+	/*
+	 * Tests if a manifest larger than the buffer is exported whole, with very negative temperatures intact
+	 */
+	@Test
+	public void large() throws Exception {
+		cargoManifest = new CargoManifest(1000, 10, Integer.MAX_VALUE);
+		long firstKey = new ContainerCode(CODE1).toKey();
+		for (int i = 0; i < 10000; i++)
+			cargoManifest.loadContainer(new RefrigeratedContainer(ContainerCode.fromKey(firstKey + i), 4,
+					Integer.MIN_VALUE + i));
+		String[] lines = exportToStream(Format.CSV).split("\n");
+		assertEquals(10001, lines.length);
+		assertEquals(CODE1 + ",R,4," + Integer.MIN_VALUE + ",0,0", lines[1]);
+		assertEquals(ContainerCode.fromKey(firstKey + 9999) + ",R,4," + (Integer.MIN_VALUE + 9999) + ",999,9",
+				lines[10000]);
+	}
+}
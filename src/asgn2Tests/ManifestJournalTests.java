@@ -0,0 +1,304 @@
+package asgn2Tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import asgn2Codes.ContainerCode;
+import asgn2Containers.DangerousGoodsContainer;
+import asgn2Containers.FreightContainer;
+import asgn2Containers.GeneralGoodsContainer;
+import asgn2Containers.RefrigeratedContainer;
+import asgn2Exceptions.CargoException;
+import asgn2Manifests.CargoManifest;
+import asgn2Manifests.DurableManifest;
+import asgn2Manifests.ManifestJournal;
+import asgn2Manifests.ManifestResult;
+import asgn2Manifests.ManifestSnapshot;
+
+/**
+ * Test class for the ManifestJournal and DurableManifest classes.  Changes
+ * are made to a manifest kept in a temporary directory, which is then
+ * opened again as if after a crash, and must hold the same containers.
+ *
+ * @author Leandro Rodrigues n9382909
+ * @version 1.0
+ */
+public class ManifestJournalTests {
+	private static final String CODE1 = "INKU2633836";
+	private static final int NUM_STACKS = 10;
+	private static final int MAX_HEIGHT = 5;
+	private static final int MAX_WEIGHT = 2000;
+	// Sizes of the journal header and of each record
+	private static final int HEADER_SIZE = 16;
+	private static final int RECORD_SIZE = 32;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path directory;
+	private DurableManifest durable;
+	private long firstKey;
+
+	/*
+	 * Helper - Opens a new manifest in an empty directory
+	 */
+	@Before
+	public void setUp() throws CargoException, IOException {
+		directory = folder.getRoot().toPath().resolve("ship");
+		durable = DurableManifest.open(directory, NUM_STACKS, MAX_HEIGHT, MAX_WEIGHT, true);
+		firstKey = new ContainerCode(CODE1).toKey();
+	}
+
+	/*
+	 * Helper - Closes whichever manifest is open
+	 */
+	@After
+	public void tearDown() throws IOException {
+		durable.close();
+	}
+
+	/*
+	 * Helper - Creates the i-th container, taking turns between the three types
+	 */
+	private FreightContainer container(int i) throws CargoException {
+		ContainerCode code = ContainerCode.fromKey(firstKey + i);
+		if(i % 3 == 0)
+			return new GeneralGoodsContainer(code, 4 + i % 27);
+		if(i % 3 == 1)
+			return new RefrigeratedContainer(code, 4 + i % 27, -i);
+		return new DangerousGoodsContainer(code, 4 + i % 27, 1 + i % 9);
+	}
+
+	/*
+	 * Helper - Loads containers, then unloads the top of every third stack
+	 */
+	private void makeChanges(int count) throws CargoException, IOException {
+		for (int i = 0; i < count; i++)
+			durable.loadContainer(container(i));
+		CargoManifest cargo = durable.getManifest();
+		for (int i = 0; i < NUM_STACKS; i += 3) {
+			FreightContainer[] stack = cargo.toArray(i);
+			if(stack.length > 0)
+				durable.unloadContainer(stack[stack.length - 1].getCode());
+		}
+	}
+
+	/*
+	 * Helper - Opens the directory again, as after a crash, and returns the restored manifest
+	 */
+	private CargoManifest reopen() throws CargoException, IOException {
+		durable = DurableManifest.open(directory, 0, 0, 0, true);
+		return durable.getManifest();
+	}
+
+	/*
+	 * Helper - Returns the size of the journal file
+	 */
+	private long journalSize() throws IOException {
+		return Files.size(directory.resolve(DurableManifest.JOURNAL_FILE));
+	}
+
+	/*
+	 * Tests if changes made since the snapshot are replayed from the journal
+	 */
+	@Test
+	public void replayAfterReopen() throws Exception {
+		makeChanges(30);
+		String expected = durable.getManifest().toString();
+		long last = durable.getJournal().getLastSequence();
+		assertEquals(HEADER_SIZE + RECORD_SIZE * last, journalSize());
+		// Reopens without closing, the journal is all there is
+		CargoManifest restored = reopen();
+		assertEquals(expected, restored.toString());
+		assertEquals(MAX_WEIGHT, (int) restored.getMaxWeight());
+		assertEquals(last, durable.getJournal().getLastSequence());
+	}
+
+	/*
+	 * Tests if the restored manifest carries on journaling from where it was
+	 */
+	@Test
+	public void changesAfterReplay() throws Exception {
+		makeChanges(12);
+		CargoManifest restored = reopen();
+		durable.loadContainer(container(100));
+		String expected = restored.toString();
+		assertEquals(expected, reopen().toString());
+	}
+
+	/*
+	 * Tests if a checkpoint empties the journal, and the manifest is then restored from the snapshot
+	 */
+	@Test
+	public void checkpoint() throws Exception {
+		makeChanges(20);
+		durable.checkpoint();
+		assertEquals(HEADER_SIZE, journalSize());
+		durable.loadContainer(container(200));
+		String expected = durable.getManifest().toString();
+		long last = durable.getJournal().getLastSequence();
+		assertEquals(HEADER_SIZE + RECORD_SIZE, journalSize());
+		CargoManifest restored = reopen();
+		assertEquals(expected, restored.toString());
+		assertEquals(last, durable.getJournal().getLastSequence());
+	}
+
+	/*
+	 * Tests if the snapshot a checkpoint leaves on disk holds every operation the journal no longer has
+	 */
+	@Test
+	public void checkpointSnapshotDurable() throws Exception {
+		makeChanges(20);
+		durable.checkpoint();
+		Path snapshot = directory.resolve(DurableManifest.SNAPSHOT_FILE);
+		assertEquals(durable.getJournal().getLastSequence(), ManifestSnapshot.readSequence(snapshot));
+		assertFalse(Files.exists(directory.resolve(DurableManifest.SNAPSHOT_FILE + ".tmp")));
+	}
+
+	/*
+	 * Tests if an older snapshot left beside a journal emptied by a later checkpoint, as when the snapshot's new
+	 * name is lost in a crash, is refused rather than opened without the operations in between
+	 */
+	@Test(expected = IOException.class)
+	public void staleSnapshotRefused() throws Exception {
+		Path snapshot = directory.resolve(DurableManifest.SNAPSHOT_FILE);
+		Path older = folder.getRoot().toPath().resolve("older.snapshot");
+		Files.copy(snapshot, older);
+		makeChanges(20);
+		durable.checkpoint();
+		durable.loadContainer(container(300));
+		durable.close();
+		Files.copy(older, snapshot, StandardCopyOption.REPLACE_EXISTING);
+		reopen();
+	}
+
+	/*
+	 * Tests if a record cut short by a crash, and anything after it, is dropped
+	 */
+	@Test
+	public void tornWriteIgnored() throws Exception {
+		makeChanges(10);
+		String expected = durable.getManifest().toString();
+		durable.loadContainer(container(50));
+		long size = journalSize();
+		try (FileChannel channel = FileChannel.open(directory.resolve(DurableManifest.JOURNAL_FILE),
+				StandardOpenOption.WRITE)) {
+			channel.truncate(size - 5);
+		}
+		CargoManifest restored = reopen();
+		assertEquals(expected, restored.toString());
+		assertNull(restored.whichStack(container(50).getCode()));
+		assertEquals(size - RECORD_SIZE, journalSize());
+	}
+
+	/*
+	 * Tests if a damaged record, and anything after it, is dropped
+	 */
+	@Test
+	public void damagedRecordIgnored() throws Exception {
+		durable.loadContainer(container(0));
+		String expected = durable.getManifest().toString();
+		durable.loadContainer(container(1));
+		durable.loadContainer(container(2));
+		// Changes a byte of the container code of the second record
+		try (FileChannel channel = FileChannel.open(directory.resolve(DurableManifest.JOURNAL_FILE),
+				StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] { 1 }), HEADER_SIZE + RECORD_SIZE + 20);
+		}
+		assertEquals(expected, reopen().toString());
+		assertEquals(HEADER_SIZE + RECORD_SIZE, journalSize());
+	}
+
+	/*
+	 * Tests if clearing the ship is journaled
+	 */
+	@Test
+	public void clearJournaled() throws Exception {
+		makeChanges(15);
+		durable.clear();
+		durable.loadContainer(container(40));
+		String expected = durable.getManifest().toString();
+		assertEquals(expected, reopen().toString());
+		assertEquals(1, durable.getManifest().getStackHeight(0).intValue());
+	}
+
+	/*
+	 * Tests if rejected changes are not journaled
+	 */
+	@Test
+	public void rejectionsNotJournaled() throws Exception {
+		durable.loadContainer(container(0));
+		long last = durable.getJournal().getLastSequence();
+		assertEquals(ManifestResult.DUPLICATE, durable.tryLoadContainer(container(0)));
+		assertEquals(ManifestResult.NOT_ACCESSIBLE, durable.tryUnloadContainer(container(1).getCode()));
+		assertEquals(last, durable.getJournal().getLastSequence());
+	}
+
+	/*
+	 * Tests if a journal which does not follow on from the snapshot is refused
+	 */
+	@Test(expected = IOException.class)
+	public void missingOperations() throws Exception {
+		durable.close();
+		ManifestJournal journal = ManifestJournal.open(folder.getRoot().toPath().resolve("other.journal"), false);
+		try {
+			journal.truncate(10);
+			journal.replay(new CargoManifest(1, 1, 1), 5);
+		} finally {
+			journal.close();
+		}
+	}
+
+	/*
+	 * Tests if threads loading at the same time share syncs, and every change survives
+	 */
+	@Test
+	public void groupCommit() throws Exception {
+		final int threads = 4;
+		final int perThread = 10;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<Void>> done = new ArrayList<Future<Void>>();
+		long syncsBefore = durable.getJournal().getSyncCount();
+		for (int t = 0; t < threads; t++) {
+			final int first = t * perThread;
+			done.add(pool.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					for (int i = first; i < first + perThread; i++)
+						durable.loadContainer(container(i));
+					return null;
+				}
+			}));
+		}
+		for (Future<Void> future : done)
+			future.get();
+		pool.shutdown();
+		long syncs = durable.getJournal().getSyncCount() - syncsBefore;
+		assertTrue(syncs >= 1 && syncs <= threads * perThread);
+		assertEquals(threads * perThread, durable.getJournal().getDurableSequence());
+		String expected = durable.getManifest().toString();
+		assertEquals(expected, reopen().toString());
+	}
+}
@@ -0,0 +1,239 @@
+package asgn2Tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import asgn2Codes.ContainerCode;
+import asgn2Containers.FreightContainer;
+import asgn2Containers.GeneralGoodsContainer;
+import asgn2Containers.RefrigeratedContainer;
+import asgn2Exceptions.CargoException;
+import asgn2Exceptions.ManifestException;
+import asgn2Manifests.CargoManifest;
+import asgn2Manifests.ManifestEvent;
+import asgn2Manifests.ManifestListener;
+import asgn2Manifests.ManifestMetrics;
+
+/**
+ * Test class for the ManifestMetrics class.  Operations are made on a
+ * manifest with metrics enabled, and each must be counted under the right
+ * outcome, timed when sampled and visible through JMX.
+ *
+ * @author Leandro Rodrigues n9382909
+ * @version 1.0
+ */
+public class ManifestMetricsTests {
+	private static final String CODE1 = "INKU2633836";
+	private static final String CODE2 = "KOCU8090115";
+	private static final String CODE3 = "MSCU6639871";
+	private static final String CODE4 = "ASPU9139465";
+	private static final String CODE5 = "ESQU4642767";
+
+	private CargoManifest cargoManifest;
+	private ManifestMetrics metrics;
+
+	/*
+	 * Helper - Creates a small ship with metrics enabled, every operation being timed
+	 */
+	@Before
+	public void setUp() throws CargoException {
+		cargoManifest = new CargoManifest(2, 2, 50);
+		metrics = cargoManifest.enableMetrics();
+		metrics.setSampleInterval(1);
+	}
+
+	/*
+	 * Helper - Creates a general goods container
+	 */
+	private FreightContainer general(String code, int weight) throws CargoException {
+		return new GeneralGoodsContainer(new ContainerCode(code), weight);
+	}
+
+	/*
+	 * Tests if metrics are off until enabled, and enabling them twice gives the same metrics
+	 */
+	@Test
+	public void enableAndDisable() throws CargoException {
+		CargoManifest other = new CargoManifest(1, 1, 10);
+		assertNull(other.getMetrics());
+		assertSame(metrics, cargoManifest.enableMetrics());
+		cargoManifest.disableMetrics();
+		assertNull(cargoManifest.getMetrics());
+		cargoManifest.loadContainer(general(CODE1, 5));
+		assertEquals(0, metrics.getLoads());
+	}
+
+	/*
+	 * Tests if loads are counted, and refused loads counted by reason
+	 */
+	@Test
+	public void loadOutcomes() throws CargoException {
+		cargoManifest.loadContainer(general(CODE1, 25));
+		cargoManifest.tryLoadContainer(general(CODE1, 25));
+		cargoManifest.tryLoadContainer(general(CODE2, 26));
+		cargoManifest.loadContainer(new RefrigeratedContainer(new ContainerCode(CODE2), 5, -5));
+		cargoManifest.tryLoadContainer(general(CODE3, 5));
+		cargoManifest.tryLoadContainer(new RefrigeratedContainer(new ContainerCode(CODE4), 5, -5));
+		assertEquals(4, metrics.getLoads());
+		assertEquals(1, metrics.getRejectedDuplicate());
+		assertEquals(1, metrics.getRejectedOverweight());
+		assertEquals(0, metrics.getRejectedNoSpace());
+		// The ship is now full
+		cargoManifest.tryLoadContainer(general(CODE5, 4));
+		assertEquals(1, metrics.getRejectedNoSpace());
+		assertEquals(7, metrics.getLoadsTimed());
+		assertTrue(metrics.getLoadLatencyMax() > 0);
+		assertTrue(metrics.getLoadLatencyP50() <= metrics.getLoadLatencyP99());
+		assertTrue(metrics.getLoadLatencyP99() <= metrics.getLoadLatencyMax());
+	}
+
+	/*
+	 * Tests if unloads, refused unloads, clears and lookups are counted
+	 */
+	@Test
+	public void otherOperations() throws CargoException {
+		cargoManifest.loadContainer(general(CODE1, 5));
+		cargoManifest.loadContainer(general(CODE2, 5));
+		cargoManifest.tryUnloadContainer(new ContainerCode(CODE1));
+		cargoManifest.unloadContainer(new ContainerCode(CODE2));
+		cargoManifest.whichStack(new ContainerCode(CODE1));
+		cargoManifest.howHigh(new ContainerCode(CODE3));
+		cargoManifest.clear();
+		assertEquals(1, metrics.getUnloads());
+		assertEquals(1, metrics.getRejectedNotAccessible());
+		assertEquals(2, metrics.getLookups());
+		assertEquals(1, metrics.getClears());
+		assertTrue(metrics.getUnloadLatencyMean() > 0);
+		assertTrue(metrics.getLookupLatencyMax() > 0);
+	}
+
+	/*
+	 * Tests if a bulk load counts each container loaded, or one rejection if refused as a whole
+	 */
+	@Test
+	public void bulkLoads() throws CargoException {
+		cargoManifest.loadContainers(Arrays.asList(general(CODE1, 5), general(CODE2, 5)));
+		assertEquals(2, metrics.getLoads());
+		try {
+			cargoManifest.loadContainers(Arrays.asList(general(CODE3, 5), general(CODE3, 5)));
+		} catch (ManifestException e) {
+			// Expected, the batch holds the same code twice
+		}
+		assertEquals(2, metrics.getLoads());
+		assertEquals(1, metrics.getRejectedDuplicate());
+		assertEquals(0, metrics.getUnloads());
+		cargoManifest.tryLoadContainers(Arrays.asList(general(CODE3, 5), general(CODE1, 5)));
+		assertEquals(3, metrics.getLoads());
+		assertEquals(2, metrics.getRejectedDuplicate());
+	}
+
+	/*
+	 * Tests if only one operation in each sampling interval is timed
+	 */
+	@Test
+	public void sampling() throws CargoException {
+		metrics.setSampleInterval(4);
+		for (int i = 0; i < 8; i++)
+			cargoManifest.tryLoadContainer(general(CODE1, 5));
+		assertEquals(2, metrics.getLoadsTimed());
+	}
+
+	/*
+	 * Tests if a sampling interval which is not a power of two is refused
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void badSampleInterval() {
+		metrics.setSampleInterval(3);
+	}
+
+	/*
+	 * Tests if the occupancy is read from the manifest
+	 */
+	@Test
+	public void occupancy() throws CargoException {
+		assertEquals(2, metrics.getEmptyStacks());
+		cargoManifest.loadContainer(general(CODE1, 20));
+		assertEquals(1, metrics.getContainerCount());
+		assertEquals(20, metrics.getTotalWeight());
+		assertEquals(30, metrics.getRemainingCapacity());
+		assertEquals(1, metrics.getEmptyStacks());
+		assertEquals(25.0, metrics.getSlotUtilisation(), 1e-9);
+	}
+
+	/*
+	 * Tests if reset sets the counts back to zero
+	 */
+	@Test
+	public void reset() throws CargoException {
+		cargoManifest.loadContainer(general(CODE1, 5));
+		metrics.reset();
+		assertEquals(0, metrics.getLoads());
+		assertEquals(0, metrics.getLoadLatencyMax());
+		assertEquals(1, metrics.getContainerCount());
+	}
+
+	/*
+	 * Tests if the metrics can be read through the platform MBean server
+	 */
+	@Test
+	public void jmx() throws Exception {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = metrics.register("Test ship");
+		try {
+			cargoManifest.loadContainer(general(CODE1, 5));
+			assertEquals(1L, server.getAttribute(name, "Loads"));
+			assertEquals(1, server.getAttribute(name, "ContainerCount"));
+			server.invoke(name, "reset", null, null);
+			assertEquals(0L, server.getAttribute(name, "Loads"));
+		} finally {
+			metrics.unregister();
+		}
+		assertFalse(server.isRegistered(name));
+	}
+
+	/*
+	 * Tests if disabling the metrics removes them from the platform MBean server
+	 */
+	@Test
+	public void disableUnregisters() throws Exception {
+		ObjectName name = metrics.register("Disabled ship");
+		cargoManifest.disableMetrics();
+		assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+	}
+
+	/*
+	 * Tests if listeners are told of a load only after it has been counted, outside the time measured
+	 */
+	@Test
+	public void listenersAfterTiming() throws CargoException {
+		final long[] loadsSeen = new long[1];
+		cargoManifest.addManifestListener(new ManifestListener() {
+			@Override
+			public void manifestChanged(List<ManifestEvent> events) {
+				loadsSeen[0] = metrics.getLoads();
+				// Stands in for a slow listener, which must not show in the load's time
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		cargoManifest.loadContainer(general(CODE1, 5));
+		assertEquals(1, loadsSeen[0]);
+		assertTrue(metrics.getLoadLatencyMax() < 50000000L);
+	}
+}
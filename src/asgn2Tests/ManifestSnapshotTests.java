@@ -0,0 +1,283 @@
+package asgn2Tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import asgn2Codes.ContainerCode;
+import asgn2Containers.DangerousGoodsContainer;
+import asgn2Containers.FreightContainer;
+import asgn2Containers.GeneralGoodsContainer;
+import asgn2Containers.RefrigeratedContainer;
+import asgn2Exceptions.CargoException;
+import asgn2Exceptions.ManifestException;
+import asgn2Manifests.CargoManifest;
+import asgn2Manifests.ManifestSnapshot;
+
+/**
+ * Test class for the ManifestSnapshot class.  Manifests are written to
+ * memory or to a temporary file and read back, and damaged snapshots must
+ * be refused.
+ *
+ * @author Leandro Rodrigues n9382909
+ * @version 1.0
+ */
+public class ManifestSnapshotTests {
+	private static final String CODE1 = "INKU2633836";
+	private static final int NUM_STACKS = 30;
+	private static final int MAX_HEIGHT = 5;
+	private static final int MAX_WEIGHT = 3000;
+	// Offsets of the number of stacks and the number of containers in the header, header sizes of versions 2 and 1,
+	// and offset of the first record after a directory of NUM_STACKS
+	private static final int NUM_STACKS_OFFSET = 8;
+	private static final int COUNT_OFFSET = 20;
+	private static final int HEADER_SIZE = 32;
+	private static final int V1_HEADER_SIZE = 24;
+	private static final int FIRST_RECORD = HEADER_SIZE + 4 * NUM_STACKS;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private CargoManifest cargoManifest;
+
+	/*
+	 * Helper - Fills some stacks with containers of each type, then unloads a few so that not every stack is as
+	 * the captain's rules would fill it from scratch
+	 */
+	@Before
+	public void setUp() throws CargoException {
+		cargoManifest = new CargoManifest(NUM_STACKS, MAX_HEIGHT, MAX_WEIGHT);
+		long firstKey = new ContainerCode(CODE1).toKey();
+		for (int i = 0; i < 100; i++) {
+			ContainerCode code = ContainerCode.fromKey(firstKey + i);
+			int weight = 4 + i % 27;
+			if (i % 3 == 0)
+				cargoManifest.loadContainer(new GeneralGoodsContainer(code, weight));
+			else if (i % 3 == 1)
+				cargoManifest.loadContainer(new RefrigeratedContainer(code, weight, -i));
+			else
+				cargoManifest.loadContainer(new DangerousGoodsContainer(code, weight, 1 + i % 9));
+		}
+		for (int i = 0; i < NUM_STACKS; i += 4) {
+			FreightContainer[] stack = cargoManifest.toArray(i);
+			for (int j = stack.length - 1; j >= 0; j--)
+				cargoManifest.unloadContainer(stack[j].getCode());
+		}
+	}
+
+	/*
+	 * Helper - Writes a manifest's snapshot into memory
+	 */
+	private byte[] write(CargoManifest cargo) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ManifestSnapshot.write(cargo, Channels.newChannel(out));
+		return out.toByteArray();
+	}
+
+	/*
+	 * Helper - Reads a manifest back from a snapshot in memory
+	 */
+	private CargoManifest read(byte[] snapshot) throws IOException, CargoException {
+		return ManifestSnapshot.read(Channels.newChannel(new ByteArrayInputStream(snapshot)));
+	}
+
+	/*
+	 * Helper - Checks that two manifests have the same parameters and the same containers in the same places
+	 */
+	private void assertSameManifest(CargoManifest expected, CargoManifest actual) throws ManifestException {
+		assertEquals(expected.getNumStacks(), actual.getNumStacks());
+		assertEquals(expected.getMaxHeight(), actual.getMaxHeight());
+		assertEquals(expected.getMaxWeight(), actual.getMaxWeight());
+		assertEquals(expected.getTotalWeight(), actual.getTotalWeight());
+		assertEquals(expected.toString(), actual.toString());
+		for (int i = 0; i < expected.getNumStacks(); i++) {
+			FreightContainer[] expectedStack = expected.toArray(i);
+			FreightContainer[] actualStack = actual.toArray(i);
+			assertEquals(expectedStack.length, actualStack.length);
+			for (int j = 0; j < expectedStack.length; j++) {
+				assertEquals(expectedStack[j].getCode(), actualStack[j].getCode());
+				assertEquals(expectedStack[j].getType(), actualStack[j].getType());
+				assertEquals(expectedStack[j].getGrossWeight(), actualStack[j].getGrossWeight());
+				if (expectedStack[j] instanceof RefrigeratedContainer)
+					assertEquals(((RefrigeratedContainer) expectedStack[j]).getTemperature(),
+							((RefrigeratedContainer) actualStack[j]).getTemperature());
+				if (expectedStack[j] instanceof DangerousGoodsContainer)
+					assertEquals(((DangerousGoodsContainer) expectedStack[j]).getCategory(),
+							((DangerousGoodsContainer) actualStack[j]).getCategory());
+			}
+		}
+	}
+
+	/*
+	 * Tests if a manifest read back from its snapshot has every container in the same place
+	 */
+	@Test
+	public void roundTrip() throws Exception {
+		byte[] snapshot = write(cargoManifest);
+		int count = 0;
+		for (int i = 0; i < NUM_STACKS; i++)
+			count += cargoManifest.getStackHeight(i);
+		assertEquals(FIRST_RECORD + 16 * count, snapshot.length);
+		assertSameManifest(cargoManifest, read(snapshot));
+	}
+
+	/*
+	 * Tests if the restored manifest follows the captain's rules from then on
+	 */
+	@Test
+	public void restoredManifestKeepsRules() throws Exception {
+		CargoManifest restored = read(write(cargoManifest));
+		// Stack zero was emptied, so the next container goes there
+		ContainerCode code = ContainerCode.fromKey(0);
+		restored.loadContainer(new GeneralGoodsContainer(code, 4));
+		assertEquals(Integer.valueOf(0), restored.whichStack(code));
+	}
+
+	/*
+	 * Tests if an empty manifest round trips
+	 */
+	@Test
+	public void emptyRoundTrip() throws Exception {
+		CargoManifest empty = new CargoManifest(0, 0, 0);
+		byte[] snapshot = write(empty);
+		assertEquals(HEADER_SIZE, snapshot.length);
+		assertSameManifest(empty, read(snapshot));
+	}
+
+	/*
+	 * Tests if saving to a file and loading it again gives the same manifest, replacing an earlier save
+	 */
+	@Test
+	public void saveAndLoadFile() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("manifest.snapshot");
+		ManifestSnapshot.save(new CargoManifest(1, 1, 1), file);
+		ManifestSnapshot.save(cargoManifest, file);
+		assertSameManifest(cargoManifest, ManifestSnapshot.load(file));
+		// Nothing is left behind besides the snapshot itself
+		assertEquals(1, folder.getRoot().list().length);
+		assertEquals(write(cargoManifest).length, Files.size(file));
+	}
+
+	/*
+	 * Tests if a file which is not a snapshot is refused
+	 */
+	@Test(expected = IOException.class)
+	public void wrongMagic() throws Exception {
+		byte[] snapshot = write(cargoManifest);
+		snapshot[0] = 'X';
+		read(snapshot);
+	}
+
+	/*
+	 * Tests if a snapshot of a later version is refused
+	 */
+	@Test(expected = IOException.class)
+	public void unsupportedVersion() throws Exception {
+		byte[] snapshot = write(cargoManifest);
+		snapshot[5] = 99;
+		read(snapshot);
+	}
+
+	/*
+	 * Tests if a snapshot cut short is refused
+	 */
+	@Test(expected = IOException.class)
+	public void truncated() throws Exception {
+		byte[] snapshot = write(cargoManifest);
+		byte[] cut = new byte[snapshot.length - 1];
+		System.arraycopy(snapshot, 0, cut, 0, cut.length);
+		read(cut);
+	}
+
+	/*
+	 * Tests if a snapshot whose stack heights disagree with its number of containers is refused
+	 */
+	@Test(expected = IOException.class)
+	public void wrongCount() throws Exception {
+		byte[] snapshot = write(cargoManifest);
+		ByteBuffer.wrap(snapshot).putInt(COUNT_OFFSET, 1);
+		read(snapshot);
+	}
+
+	/*
+	 * Tests if a snapshot whose header claims a huge ship is refused as damaged, not read into memory
+	 */
+	@Test(expected = IOException.class)
+	public void hugeHeader() throws Exception {
+		byte[] snapshot = write(cargoManifest);
+		ByteBuffer.wrap(snapshot).putInt(NUM_STACKS_OFFSET, Integer.MAX_VALUE - 8).putInt(NUM_STACKS_OFFSET + 4, 1);
+		read(snapshot);
+	}
+
+	/*
+	 * Tests if a snapshot with negative parameters is refused as damaged
+	 */
+	@Test(expected = IOException.class)
+	public void negativeHeader() throws Exception {
+		byte[] snapshot = write(cargoManifest);
+		ByteBuffer.wrap(snapshot).putInt(NUM_STACKS_OFFSET, -1);
+		read(snapshot);
+	}
+
+	/*
+	 * Tests if a snapshot with more containers than the ship has slots is refused before its directory is read
+	 */
+	@Test(expected = IOException.class)
+	public void countAboveSlots() throws Exception {
+		byte[] snapshot = write(cargoManifest);
+		ByteBuffer.wrap(snapshot).putInt(COUNT_OFFSET, NUM_STACKS * MAX_HEIGHT + 1);
+		read(snapshot);
+	}
+
+	/*
+	 * Tests if a snapshot holding the same container twice is refused
+	 */
+	@Test(expected = ManifestException.class)
+	public void duplicateContainer() throws Exception {
+		byte[] snapshot = write(cargoManifest);
+		// Gives the second container the code of the first
+		ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+		buffer.putLong(FIRST_RECORD + 16, buffer.getLong(FIRST_RECORD));
+		read(snapshot);
+	}
+
+	/*
+	 * Tests if the journal sequence number saved with a snapshot is read back
+	 */
+	@Test
+	public void sequenceSaved() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("manifest.snapshot");
+		ManifestSnapshot.save(cargoManifest, file, 1234567890123L);
+		assertEquals(1234567890123L, ManifestSnapshot.readSequence(file));
+		assertSameManifest(cargoManifest, ManifestSnapshot.load(file));
+	}
+
+	/*
+	 * Tests if a version 1 snapshot, which has no sequence number, is still read
+	 */
+	@Test
+	public void versionOneRead() throws Exception {
+		byte[] snapshot = write(cargoManifest);
+		// Removes the sequence number from the header and marks it as version 1
+		byte[] old = new byte[snapshot.length - (HEADER_SIZE - V1_HEADER_SIZE)];
+		System.arraycopy(snapshot, 0, old, 0, V1_HEADER_SIZE);
+		System.arraycopy(snapshot, HEADER_SIZE, old, V1_HEADER_SIZE, snapshot.length - HEADER_SIZE);
+		old[5] = 1;
+		assertSameManifest(cargoManifest, read(old));
+		Path file = folder.getRoot().toPath().resolve("old.snapshot");
+		Files.write(file, old);
+		assertEquals(0, ManifestSnapshot.readSequence(file));
+		assertSameManifest(cargoManifest, ManifestSnapshot.load(file));
+	}
+}
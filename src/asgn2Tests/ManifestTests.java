@@ -16,6 +16,12 @@ package asgn2Tests;
  * @version 1.0
  */
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.Before;
 import org.junit.Test;
 import asgn2Codes.ContainerCode;
@@ -27,6 +33,9 @@ import asgn2Exceptions.InvalidCodeException;
 import asgn2Exceptions.InvalidContainerException;
 import asgn2Exceptions.ManifestException;
 import asgn2Manifests.CargoManifest;
+import asgn2Manifests.ManifestEvent;
+import asgn2Manifests.ManifestListener;
+import asgn2Manifests.ManifestResult;
 import static org.junit.Assert.*;
 
 public class ManifestTests {
@@ -133,6 +142,25 @@ public class ManifestTests {
 		cargoManifest1 = new CargoManifest(NUM_STACKS_3, MAXIMUM_HEIGHT_3, NEGATIVE);
 	}
 	
+	/*
+	 *  Tests if the constructor throws an exception when the ship has too many slots to keep track of
+	 */
+	@Test(expected=ManifestException.class)
+	public void constructorTooManySlots() throws ManifestException {
+		cargoManifest1 = new CargoManifest(100000, 100000, MAXIMUM_WEIGHT_50);
+	}
+	
+	/*
+	 *  Tests if a large ship can be constructed without room being set aside for stacks not yet used
+	 */
+	@Test
+	public void constructorLargeShip() throws ManifestException, InvalidCodeException, InvalidContainerException {
+		cargoManifest1 = new CargoManifest(10000, 100000, MAXIMUM_WEIGHT_50);
+		cargoManifest1.loadContainer(new GeneralGoodsContainer(new ContainerCode("INKU2633836"), 5));
+		assertEquals(1, cargoManifest1.toArray(0).length);
+		assertEquals(0, cargoManifest1.toArray(9999).length);
+	}
+	
 	/*
 	 *  Tests if a CargoManifest is instantiated properly when all parameters are positive
 	 */
@@ -414,6 +442,189 @@ public class ManifestTests {
 		cargoManifest1.loadContainer(generalContainer2);
 	}
 	
+	/*
+	 *  Tests if a container goes to an empty stack nearer the bridge rather than a stack of its own type further away
+	 */
+	@Test
+	public void loadContainerPrefersNearerEmptyStack() throws ManifestException, InvalidContainerException {
+		// Create and Load Containers, then empty the first stack
+		dangerousContainer1 = new DangerousGoodsContainer(containerCode1, WEIGHT_5, CATEGORY_1);
+		cargoManifest1.loadContainer(dangerousContainer1);
+		refrigeratedContainer1 = new RefrigeratedContainer(containerCode2, WEIGHT_5, TEMPERATURE_0);
+		cargoManifest1.loadContainer(refrigeratedContainer1);
+		cargoManifest1.unloadContainer(containerCode1);
+		
+		// Load another refrigerated container
+		refrigeratedContainer2 = new RefrigeratedContainer(containerCode3, WEIGHT_5, TEMPERATURE_0);
+		cargoManifest1.loadContainer(refrigeratedContainer2);
+		assertEquals(Integer.valueOf(STACK_NUM_0), cargoManifest1.whichStack(containerCode3));
+	}
+	
+	/*
+	 *  Tests if a full stack gets room again once its top container is unloaded
+	 */
+	@Test
+	public void loadContainerIntoStackAfterUnload() throws ManifestException, InvalidContainerException {
+		// Create a cargomanifest
+		cargoManifest1 = new CargoManifest(NUM_STACKS_2, MAXIMUM_HEIGHT_2, MAXIMUM_WEIGHT_50);
+		// Fill the first stack and start the second
+		generalContainer1 = new GeneralGoodsContainer(containerCode1, WEIGHT_5);
+		cargoManifest1.loadContainer(generalContainer1);
+		generalContainer2 = new GeneralGoodsContainer(containerCode2, WEIGHT_5);
+		cargoManifest1.loadContainer(generalContainer2);
+		dangerousContainer1 = new DangerousGoodsContainer(containerCode3, WEIGHT_5, CATEGORY_1);
+		cargoManifest1.loadContainer(dangerousContainer1);
+		
+		// Make room in the first stack and load another general container
+		cargoManifest1.unloadContainer(containerCode2);
+		generalContainer2 = new GeneralGoodsContainer(containerCode4, WEIGHT_5);
+		cargoManifest1.loadContainer(generalContainer2);
+		assertEquals(Integer.valueOf(STACK_NUM_0), cargoManifest1.whichStack(containerCode4));
+		assertEquals(Integer.valueOf(1), cargoManifest1.howHigh(containerCode4));
+	}
+	
+	/*
+	 *  Tests if the method throws an exception when the maximum stack height is zero
+	 */
+	@Test(expected=ManifestException.class)
+	public void loadContainerZeroMaxHeight() throws ManifestException, InvalidContainerException {
+		// Create a cargomanifest
+		cargoManifest1 = new CargoManifest(NUM_STACKS_3, MAXIMUM_HEIGHT_0, MAXIMUM_WEIGHT_50);
+		generalContainer1 = new GeneralGoodsContainer(containerCode1, WEIGHT_5);
+		cargoManifest1.loadContainer(generalContainer1);
+	}
+	
+	/*
+	 *  Tests if tryLoadContainer reports each kind of rejection without throwing
+	 */
+	@Test
+	public void tryLoadContainerResults() throws ManifestException, InvalidContainerException {
+		// Create a cargomanifest
+		cargoManifest1 = new CargoManifest(NUM_STACKS_2, MAXIMUM_HEIGHT_2, MAXIMUM_WEIGHT_50);
+		dangerousContainer1 = new DangerousGoodsContainer(containerCode1, WEIGHT_20, CATEGORY_1);
+		refrigeratedContainer1 = new RefrigeratedContainer(containerCode2, WEIGHT_20, TEMPERATURE_0);
+		assertEquals(ManifestResult.OK, cargoManifest1.tryLoadContainer(dangerousContainer1));
+		assertEquals(ManifestResult.OK, cargoManifest1.tryLoadContainer(refrigeratedContainer1));
+		
+		// Same code again
+		assertEquals(ManifestResult.DUPLICATE, cargoManifest1.tryLoadContainer(dangerousContainer1));
+		// Too heavy for what is left
+		dangerousContainer2 = new DangerousGoodsContainer(containerCode3, WEIGHT_20, CATEGORY_1);
+		assertEquals(ManifestResult.OVERWEIGHT, cargoManifest1.tryLoadContainer(dangerousContainer2));
+		// No stack for a third type
+		generalContainer1 = new GeneralGoodsContainer(containerCode4, WEIGHT_5);
+		assertEquals(ManifestResult.NO_SPACE, cargoManifest1.tryLoadContainer(generalContainer1));
+		
+		// Rejected containers are not on board
+		assertNull(cargoManifest1.whichStack(containerCode3));
+		assertNull(cargoManifest1.whichStack(containerCode4));
+		assertEquals(Integer.valueOf(WEIGHT_20 + WEIGHT_20), cargoManifest1.getTotalWeight());
+	}
+	
+	/*
+	 *  Tests if tryUnloadContainer reports containers that are buried or not on board without throwing
+	 */
+	@Test
+	public void tryUnloadContainerResults() throws ManifestException, InvalidContainerException {
+		dangerousContainer1 = new DangerousGoodsContainer(containerCode1, WEIGHT_10, CATEGORY_1);
+		cargoManifest1.loadContainer(dangerousContainer1);
+		dangerousContainer2 = new DangerousGoodsContainer(containerCode2, WEIGHT_10, CATEGORY_1);
+		cargoManifest1.loadContainer(dangerousContainer2);
+		
+		assertEquals(ManifestResult.NOT_ACCESSIBLE, cargoManifest1.tryUnloadContainer(containerCode1));
+		assertEquals(ManifestResult.NOT_ACCESSIBLE, cargoManifest1.tryUnloadContainer(containerCode3));
+		assertEquals(ManifestResult.OK, cargoManifest1.tryUnloadContainer(containerCode2));
+		assertEquals(ManifestResult.OK, cargoManifest1.tryUnloadContainer(containerCode1));
+	}
+	
+	/*
+	 *  Tests if loadContainers loads a whole batch in order
+	 */
+	@Test
+	public void loadContainersWholeBatch() throws ManifestException, InvalidContainerException {
+		dangerousContainer1 = new DangerousGoodsContainer(containerCode1, WEIGHT_10, CATEGORY_1);
+		refrigeratedContainer1 = new RefrigeratedContainer(containerCode2, WEIGHT_10, TEMPERATURE_0);
+		dangerousContainer2 = new DangerousGoodsContainer(containerCode3, WEIGHT_10, CATEGORY_5);
+		cargoManifest1.loadContainers(Arrays.<FreightContainer>asList(dangerousContainer1, refrigeratedContainer1, dangerousContainer2));
+		
+		assertEquals(Integer.valueOf(0), cargoManifest1.whichStack(containerCode3));
+		assertEquals(Integer.valueOf(1), cargoManifest1.howHigh(containerCode3));
+		assertEquals(Integer.valueOf(1), cargoManifest1.whichStack(containerCode2));
+		assertEquals(Integer.valueOf(WEIGHT_10 * 3), cargoManifest1.getTotalWeight());
+	}
+	
+	/*
+	 *  Tests if loadContainers rejects a batch holding the same code twice, loading nothing
+	 */
+	@Test
+	public void loadContainersDuplicateInBatch() throws ManifestException, InvalidContainerException {
+		generalContainer1 = new GeneralGoodsContainer(containerCode1, WEIGHT_10);
+		generalContainer2 = new GeneralGoodsContainer(containerCode1, WEIGHT_5);
+		try {
+			cargoManifest1.loadContainers(Arrays.<FreightContainer>asList(generalContainer1, generalContainer2));
+			fail("Batch with a repeated code was loaded");
+		} catch (ManifestException e) {
+			assertNull(cargoManifest1.whichStack(containerCode1));
+			assertEquals(Integer.valueOf(0), cargoManifest1.getTotalWeight());
+		}
+	}
+	
+	/*
+	 *  Tests if loadContainers rejects a batch which is too heavy altogether, loading nothing
+	 */
+	@Test(expected=ManifestException.class)
+	public void loadContainersOverweight() throws ManifestException, InvalidContainerException {
+		generalContainer1 = new GeneralGoodsContainer(containerCode1, WEIGHT_30);
+		generalContainer2 = new GeneralGoodsContainer(containerCode2, WEIGHT_30);
+		cargoManifest1.loadContainers(Arrays.<FreightContainer>asList(generalContainer1, generalContainer2));
+	}
+	
+	/*
+	 *  Tests if loadContainers puts the ship back as it was when a container of the batch does not fit
+	 */
+	@Test
+	public void loadContainersNoSpaceRollsBack() throws ManifestException, InvalidContainerException {
+		// Create a cargomanifest and load a container
+		cargoManifest1 = new CargoManifest(NUM_STACKS_2, MAXIMUM_HEIGHT_2, MAXIMUM_WEIGHT_50);
+		dangerousContainer1 = new DangerousGoodsContainer(containerCode1, WEIGHT_5, CATEGORY_1);
+		cargoManifest1.loadContainer(dangerousContainer1);
+		
+		// The general container fits in the empty stack, the refrigerated one then has nowhere to go
+		dangerousContainer2 = new DangerousGoodsContainer(containerCode2, WEIGHT_5, CATEGORY_1);
+		generalContainer1 = new GeneralGoodsContainer(containerCode3, WEIGHT_5);
+		refrigeratedContainer1 = new RefrigeratedContainer(containerCode4, WEIGHT_5, TEMPERATURE_0);
+		try {
+			cargoManifest1.loadContainers(Arrays.<FreightContainer>asList(dangerousContainer2, generalContainer1, refrigeratedContainer1));
+			fail("Batch without space was loaded");
+		} catch (ManifestException e) {
+			containersArray = new FreightContainer[] { dangerousContainer1 };
+			assertArrayEquals(containersArray, cargoManifest1.toArray(STACK_NUM_0));
+			assertArrayEquals(new FreightContainer[0], cargoManifest1.toArray(STACK_NUM_1));
+			assertNull(cargoManifest1.whichStack(containerCode2));
+			assertNull(cargoManifest1.whichStack(containerCode3));
+			assertEquals(Integer.valueOf(WEIGHT_5), cargoManifest1.getTotalWeight());
+		}
+		
+		// The ship can still take a refrigerated container in the empty stack
+		cargoManifest1.loadContainer(refrigeratedContainer1);
+		assertEquals(Integer.valueOf(STACK_NUM_1), cargoManifest1.whichStack(containerCode4));
+	}
+	
+	/*
+	 *  Tests if tryLoadContainers loads what it can and reports each container's outcome
+	 */
+	@Test
+	public void tryLoadContainersBestEffort() throws ManifestException, InvalidContainerException {
+		generalContainer1 = new GeneralGoodsContainer(containerCode1, WEIGHT_20);
+		generalContainer2 = new GeneralGoodsContainer(containerCode1, WEIGHT_5);
+		dangerousContainer1 = new DangerousGoodsContainer(containerCode2, WEIGHT_30, CATEGORY_1);
+		refrigeratedContainer1 = new RefrigeratedContainer(containerCode3, WEIGHT_20, TEMPERATURE_0);
+		ManifestResult[] expected = { ManifestResult.OK, ManifestResult.DUPLICATE, ManifestResult.OK, ManifestResult.OVERWEIGHT };
+		assertArrayEquals(expected, cargoManifest1.tryLoadContainers(
+				Arrays.<FreightContainer>asList(generalContainer1, generalContainer2, refrigeratedContainer1, dangerousContainer1)));
+		assertEquals(Integer.valueOf(WEIGHT_20 + WEIGHT_20), cargoManifest1.getTotalWeight());
+	}
+	
 	/*
 	 *  Tests if the method throws an exception when you try to unload a container when it's not on stack's top.
 	 *  Case 1: All stacks have different type
@@ -636,6 +847,70 @@ public class ManifestTests {
 		
 	}
 	
+	/*
+	 *  Tests if whichStack and howHigh stop finding a container once it has been unloaded
+	 */
+	@Test
+	public void whichStackAndHowHighAfterUnload() throws ManifestException, InvalidContainerException {
+		// Create and Load Containers
+		dangerousContainer1 = new DangerousGoodsContainer(containerCode1, WEIGHT_10, CATEGORY_9);
+		cargoManifest1.loadContainer(dangerousContainer1);
+		dangerousContainer2 = new DangerousGoodsContainer(containerCode2, WEIGHT_10, CATEGORY_9);
+		cargoManifest1.loadContainer(dangerousContainer2);
+		
+		cargoManifest1.unloadContainer(containerCode2);
+		assertNull(cargoManifest1.whichStack(containerCode2));
+		assertNull(cargoManifest1.howHigh(containerCode2));
+		assertEquals(Integer.valueOf(0), cargoManifest1.whichStack(containerCode1));
+		assertEquals(Integer.valueOf(0), cargoManifest1.howHigh(containerCode1));
+	}
+	
+	/*
+	 *  Tests if a container can be loaded again after being unloaded, using a freshly built code
+	 */
+	@Test
+	public void reloadContainerAfterUnload() throws ManifestException, InvalidContainerException, InvalidCodeException {
+		// Create and Load Container
+		generalContainer1 = new GeneralGoodsContainer(containerCode1, WEIGHT_10);
+		cargoManifest1.loadContainer(generalContainer1);
+		cargoManifest1.unloadContainer(new ContainerCode(CODE1));
+		
+		// Load it again, it must be found on the bottom of the first stack
+		cargoManifest1.loadContainer(generalContainer1);
+		assertEquals(Integer.valueOf(0), cargoManifest1.whichStack(new ContainerCode(CODE1)));
+		assertEquals(Integer.valueOf(0), cargoManifest1.howHigh(new ContainerCode(CODE1)));
+	}
+	
+	/*
+	 *  Tests if lookups stay right on a large ship as containers are loaded and unloaded
+	 */
+	@Test
+	public void lookupsOnLargeShip() throws ManifestException, InvalidContainerException, InvalidCodeException {
+		final int stacks = 200;
+		final int height = 5;
+		cargoManifest1 = new CargoManifest(stacks, height, stacks * height * WEIGHT_5);
+		// Fill the ship with general containers with consecutive codes
+		ContainerCode[] codes = new ContainerCode[stacks * height];
+		for (int i = 0; i < codes.length; i++) {
+			codes[i] = ContainerCode.fromKey(containerCode1.toKey() + i);
+			cargoManifest1.loadContainer(new GeneralGoodsContainer(codes[i], WEIGHT_5));
+		}
+		for (int i = 0; i < codes.length; i++) {
+			assertEquals(Integer.valueOf(i / height), cargoManifest1.whichStack(codes[i]));
+			assertEquals(Integer.valueOf(i % height), cargoManifest1.howHigh(codes[i]));
+		}
+		
+		// Unload the top of every other stack
+		for (int i = 0; i < stacks; i += 2)
+			cargoManifest1.unloadContainer(codes[i * height + height - 1]);
+		for (int i = 0; i < codes.length; i++) {
+			if ((i / height) % 2 == 0 && i % height == height - 1)
+				assertNull(cargoManifest1.whichStack(codes[i]));
+			else
+				assertEquals(Integer.valueOf(i % height), cargoManifest1.howHigh(codes[i]));
+		}
+	}
+	
 	/*
 	 *  Tests if the method howHigh return null when the container it's not on board
 	 */
@@ -711,6 +986,45 @@ public class ManifestTests {
 		
 	}
 	
+	/*
+	 *  Tests if the weight counters follow loads and unloads
+	 */
+	@Test
+	public void weightCountersAfterLoadAndUnload() throws ManifestException, InvalidContainerException {
+		// Empty ship
+		assertEquals(Integer.valueOf(0), cargoManifest1.getTotalWeight());
+		assertEquals(Integer.valueOf(MAXIMUM_WEIGHT_50), cargoManifest1.getRemainingCapacity());
+		
+		// Create and Load Containers
+		dangerousContainer1 = new DangerousGoodsContainer(containerCode1, WEIGHT_10, CATEGORY_9);
+		cargoManifest1.loadContainer(dangerousContainer1);
+		refrigeratedContainer1 = new RefrigeratedContainer(containerCode2, WEIGHT_5, TEMPERATURE_0);
+		cargoManifest1.loadContainer(refrigeratedContainer1);
+		dangerousContainer2 = new DangerousGoodsContainer(containerCode3, WEIGHT_20, CATEGORY_1);
+		cargoManifest1.loadContainer(dangerousContainer2);
+		
+		assertEquals(Integer.valueOf(WEIGHT_10 + WEIGHT_5 + WEIGHT_20), cargoManifest1.getTotalWeight());
+		assertEquals(Integer.valueOf(MAXIMUM_WEIGHT_50 - WEIGHT_10 - WEIGHT_5 - WEIGHT_20), cargoManifest1.getRemainingCapacity());
+		assertEquals(Integer.valueOf(WEIGHT_10 + WEIGHT_20), cargoManifest1.getStackWeight(STACK_NUM_0));
+		assertEquals(Integer.valueOf(WEIGHT_5), cargoManifest1.getStackWeight(STACK_NUM_1));
+		assertEquals(Integer.valueOf(0), cargoManifest1.getStackWeight(STACK_NUM_2));
+		assertEquals(Integer.valueOf(2), cargoManifest1.getStackHeight(STACK_NUM_0));
+		
+		// Unload a container
+		cargoManifest1.unloadContainer(containerCode3);
+		assertEquals(Integer.valueOf(WEIGHT_10 + WEIGHT_5), cargoManifest1.getTotalWeight());
+		assertEquals(Integer.valueOf(WEIGHT_10), cargoManifest1.getStackWeight(STACK_NUM_0));
+		assertEquals(Integer.valueOf(1), cargoManifest1.getStackHeight(STACK_NUM_0));
+	}
+	
+	/*
+	 *  Tests if the method getStackWeight throws an exception when the stack doesn't exist
+	 */
+	@Test(expected=ManifestException.class)
+	public void stackWeightNoSuchStack() throws ManifestException {
+		cargoManifest1.getStackWeight(NUM_STACKS_3);
+	}
+	
 	/*
 	 *  Tests if the method toArray throws an exception when the stack doesn't exist
 	 *	Case 1: no container on board
@@ -807,4 +1121,164 @@ public class ManifestTests {
 		containersArray2[0] = generalContainer1;
 		assertFalse(cargoManifest1.toArray(STACK_NUM_2).equals(containersArray2));
 	}
+	
+	/*
+	 *  Tests the text layout of the manifest, with and without a container to find
+	 */
+	@Test
+	public void toStringLayout() throws ManifestException, InvalidContainerException {
+		generalContainer1 = new GeneralGoodsContainer(containerCode1, WEIGHT_10);
+		generalContainer2 = new GeneralGoodsContainer(containerCode2, WEIGHT_10);
+		cargoManifest1.loadContainer(generalContainer1);
+		cargoManifest1.loadContainer(generalContainer2);
+		
+		assertEquals("|| " + CODE1 + " || " + CODE2 + " ||\n||  ||\n||  ||\n", cargoManifest1.toString());
+		assertEquals("|| " + CODE1 + " ||*" + CODE2 + "*||\n||  ||\n||  ||\n", cargoManifest1.toString(containerCode2));
+	}
+	
+	/*
+	 *  Tests if writeTo and writeStackTo stream the same text as toString
+	 */
+	@Test
+	public void writeToMatchesToString() throws ManifestException, InvalidContainerException, IOException {
+		generalContainer1 = new GeneralGoodsContainer(containerCode1, WEIGHT_10);
+		refrigeratedContainer1 = new RefrigeratedContainer(containerCode2, WEIGHT_10, TEMPERATURE_0);
+		cargoManifest1.loadContainer(generalContainer1);
+		cargoManifest1.loadContainer(refrigeratedContainer1);
+		
+		StringWriter out = new StringWriter();
+		cargoManifest1.writeTo(out, containerCode1);
+		assertEquals(cargoManifest1.toString(containerCode1), out.toString());
+		
+		StringBuilder line = new StringBuilder();
+		cargoManifest1.writeStackTo(line, STACK_NUM_1, null);
+		assertEquals("|| " + CODE2 + " ||\n", line.toString());
+	}
+	
+	/*
+	 *  Tests if writeStackTo throws an exception for a stack which does not exist
+	 */
+	@Test(expected=ManifestException.class)
+	public void writeStackToNoSuchStack() throws ManifestException, IOException {
+		cargoManifest1.writeStackTo(new StringBuilder(), NUM_STACKS_3, null);
+	}
+	
+	/*
+	 *  Tests if getContainer returns the container at each position
+	 */
+	@Test
+	public void getContainerByPosition() throws ManifestException, InvalidContainerException {
+		generalContainer1 = new GeneralGoodsContainer(containerCode1, WEIGHT_10);
+		generalContainer2 = new GeneralGoodsContainer(containerCode2, WEIGHT_10);
+		cargoManifest1.loadContainer(generalContainer1);
+		cargoManifest1.loadContainer(generalContainer2);
+		assertSame(generalContainer1, cargoManifest1.getContainer(STACK_NUM_0, 0));
+		assertSame(generalContainer2, cargoManifest1.getContainer(STACK_NUM_0, 1));
+	}
+	
+	/*
+	 *  Tests if getContainer throws an exception above the top of a stack
+	 */
+	@Test(expected=ManifestException.class)
+	public void getContainerEmptyPosition() throws ManifestException, InvalidContainerException {
+		generalContainer1 = new GeneralGoodsContainer(containerCode1, WEIGHT_10);
+		cargoManifest1.loadContainer(generalContainer1);
+		cargoManifest1.getContainer(STACK_NUM_0, 1);
+	}
+	
+	/*
+	 *  Listener which records every notification it receives
+	 */
+	private static class RecordingListener implements ManifestListener {
+		List<List<ManifestEvent>> notifications = new ArrayList<List<ManifestEvent>>();
+		
+		@Override
+		public void manifestChanged(List<ManifestEvent> events) {
+			notifications.add(events);
+		}
+	}
+	
+	/*
+	 *  Tests if single loads and unloads are each reported with their container, stack and tier
+	 */
+	@Test
+	public void listenerSingleChanges() throws ManifestException, InvalidContainerException {
+		RecordingListener listener = new RecordingListener();
+		cargoManifest1.addManifestListener(listener);
+		generalContainer1 = new GeneralGoodsContainer(containerCode1, WEIGHT_10);
+		generalContainer2 = new GeneralGoodsContainer(containerCode2, WEIGHT_10);
+		cargoManifest1.loadContainer(generalContainer1);
+		cargoManifest1.loadContainer(generalContainer2);
+		cargoManifest1.unloadContainer(containerCode2);
+		
+		assertEquals(3, listener.notifications.size());
+		ManifestEvent event = listener.notifications.get(1).get(0);
+		assertEquals(ManifestEvent.Type.LOADED, event.getType());
+		assertSame(generalContainer2, event.getContainer());
+		assertEquals(0, event.getStackNo());
+		assertEquals(1, event.getTier());
+		event = listener.notifications.get(2).get(0);
+		assertEquals(ManifestEvent.Type.UNLOADED, event.getType());
+		assertSame(generalContainer2, event.getContainer());
+		assertEquals(1, event.getTier());
+		
+		// Rejected operations and removed listeners are not told anything
+		cargoManifest1.tryUnloadContainer(containerCode5);
+		cargoManifest1.removeManifestListener(listener);
+		cargoManifest1.unloadContainer(containerCode1);
+		assertEquals(3, listener.notifications.size());
+	}
+	
+	/*
+	 *  Tests if a bulk load is reported in one notification, and a rolled back one not at all
+	 */
+	@Test
+	public void listenerBulkLoad() throws ManifestException, InvalidContainerException {
+		RecordingListener listener = new RecordingListener();
+		cargoManifest1.addManifestListener(listener);
+		generalContainer1 = new GeneralGoodsContainer(containerCode1, WEIGHT_10);
+		refrigeratedContainer1 = new RefrigeratedContainer(containerCode2, WEIGHT_10, TEMPERATURE_0);
+		cargoManifest1.loadContainers(Arrays.<FreightContainer>asList(generalContainer1, refrigeratedContainer1));
+		assertEquals(1, listener.notifications.size());
+		assertEquals(2, listener.notifications.get(0).size());
+		assertEquals(1, listener.notifications.get(0).get(1).getStackNo());
+		
+		// A two stack ship with one stack in use cannot take two more types, so nothing is loaded and nothing is reported
+		cargoManifest1 = new CargoManifest(NUM_STACKS_2, MAXIMUM_HEIGHT_2, MAXIMUM_WEIGHT_50);
+		cargoManifest1.loadContainer(generalContainer1);
+		listener = new RecordingListener();
+		cargoManifest1.addManifestListener(listener);
+		dangerousContainer1 = new DangerousGoodsContainer(containerCode3, WEIGHT_5, CATEGORY_1);
+		refrigeratedContainer2 = new RefrigeratedContainer(containerCode4, WEIGHT_5, TEMPERATURE_MINUS_1);
+		try {
+			cargoManifest1.loadContainers(Arrays.<FreightContainer>asList(dangerousContainer1, refrigeratedContainer2));
+			fail("Batch without space was loaded");
+		} catch (ManifestException e) {
+			assertEquals(0, listener.notifications.size());
+		}
+	}
+	
+	/*
+	 *  Tests if clear empties the ship, resets the counters and sends one cleared event
+	 */
+	@Test
+	public void clearManifest() throws ManifestException, InvalidContainerException {
+		generalContainer1 = new GeneralGoodsContainer(containerCode1, WEIGHT_10);
+		dangerousContainer1 = new DangerousGoodsContainer(containerCode2, WEIGHT_10, CATEGORY_1);
+		cargoManifest1.loadContainer(generalContainer1);
+		cargoManifest1.loadContainer(dangerousContainer1);
+		RecordingListener listener = new RecordingListener();
+		cargoManifest1.addManifestListener(listener);
+		cargoManifest1.clear();
+		
+		assertEquals(1, listener.notifications.size());
+		assertEquals(ManifestEvent.Type.CLEARED, listener.notifications.get(0).get(0).getType());
+		assertNull(cargoManifest1.whichStack(containerCode1));
+		assertEquals(Integer.valueOf(0), cargoManifest1.getTotalWeight());
+		assertEquals(Integer.valueOf(0), cargoManifest1.getStackHeight(STACK_NUM_1));
+		
+		// The ship can be loaded again from the first stack
+		cargoManifest1.loadContainer(dangerousContainer1);
+		assertEquals(Integer.valueOf(STACK_NUM_0), cargoManifest1.whichStack(containerCode2));
+	}
 }
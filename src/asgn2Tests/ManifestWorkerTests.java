@@ -0,0 +1,235 @@
+package asgn2Tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import asgn2Codes.ContainerCode;
+import asgn2Containers.FreightContainer;
+import asgn2Containers.GeneralGoodsContainer;
+import asgn2Exceptions.CargoException;
+import asgn2Exceptions.ManifestException;
+import asgn2GUI.ManifestWorker;
+import asgn2Manifests.CargoManifest;
+import asgn2Manifests.ManifestEvent;
+import asgn2Manifests.ManifestListener;
+import asgn2Manifests.ManifestResult;
+
+/**
+ * Test class for the ManifestWorker class.  Each test
+ * starts a worker and waits for its outcome to be handed over on the Swing
+ * event dispatch thread.
+ *
+ * @author Leandro Rodrigues n9382909
+ * @version 1.0
+ */
+public class ManifestWorkerTests {
+	private static final int NUM_STACKS = 100;
+	private static final int MAX_HEIGHT = 6;
+	private static final long TIMEOUT = 5000;
+	// Number of containers the chunked load loads each time it takes the manifest's lock
+	private static final int CHUNK_SIZE = 256;
+
+	private CargoManifest cargoManifest;
+	// What the worker handed over, whether it was on the event dispatch thread, and when it is done
+	private Object outcome;
+	private boolean onEventThread;
+	private CountDownLatch finished;
+
+	/*
+	 * A long operation which loads a batch a chunk at a time, reporting its progress and stopping if cancelled
+	 * between chunks, and records its outcome
+	 */
+	private class RecordingBulkLoad extends ManifestWorker<ManifestResult[]> {
+		private final List<FreightContainer> batch;
+
+		RecordingBulkLoad(List<FreightContainer> batch) {
+			super(cargoManifest);
+			this.batch = batch;
+		}
+
+		@Override
+		protected ManifestResult[] doInBackground() {
+			ManifestResult[] results = new ManifestResult[batch.size()];
+			for (int start = 0; start < batch.size() && !isCancelled(); start += CHUNK_SIZE) {
+				int end = Math.min(batch.size(), start + CHUNK_SIZE);
+				ManifestResult[] chunk;
+				synchronized (cargo) {
+					chunk = cargo.tryLoadContainers(batch.subList(start, end));
+				}
+				System.arraycopy(chunk, 0, results, start, chunk.length);
+				reportProgress(end, batch.size());
+			}
+			return results;
+		}
+
+		@Override
+		protected void succeeded(ManifestResult[] results) {
+			record(results);
+		}
+
+		@Override
+		protected void failed(Throwable cause) {
+			record(cause);
+		}
+
+		@Override
+		protected void cancelled() {
+			record("cancelled");
+		}
+	}
+
+	/*
+	 * Records the outcome of a worker
+	 */
+	private void record(Object result) {
+		outcome = result;
+		onEventThread = SwingUtilities.isEventDispatchThread();
+		finished.countDown();
+	}
+
+	/*
+	 * Waits for the worker to hand over its outcome
+	 */
+	private void awaitOutcome() throws InterruptedException {
+		assertTrue(finished.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		assertTrue(onEventThread);
+	}
+
+	/*
+	 * Creates general containers with consecutive codes
+	 */
+	private List<FreightContainer> createBatch(int count) throws CargoException {
+		List<FreightContainer> batch = new ArrayList<FreightContainer>();
+		for (int i = 0; i < count; i++)
+			batch.add(new GeneralGoodsContainer(ContainerCode.fromKey(i), 4));
+		return batch;
+	}
+
+	@Before
+	public void setUp() throws ManifestException {
+		cargoManifest = new CargoManifest(NUM_STACKS, MAX_HEIGHT, Integer.MAX_VALUE);
+		outcome = null;
+		onEventThread = false;
+		finished = new CountDownLatch(1);
+	}
+
+	/*
+	 * Tests if a long operation hands over its result and reports all of its progress
+	 */
+	@Test
+	public void bulkLoadResults() throws Exception {
+		int capacity = NUM_STACKS * MAX_HEIGHT;
+		RecordingBulkLoad worker = new RecordingBulkLoad(createBatch(capacity + 10));
+		worker.start();
+		awaitOutcome();
+		ManifestResult[] results = (ManifestResult[]) outcome;
+		assertEquals(capacity + 10, results.length);
+		for (int i = 0; i < capacity; i++)
+			assertEquals(ManifestResult.OK, results[i]);
+		for (int i = capacity; i < results.length; i++)
+			assertEquals(ManifestResult.NO_SPACE, results[i]);
+		assertEquals(Integer.valueOf(capacity * 4), cargoManifest.getTotalWeight());
+		assertEquals(100, worker.getProgress());
+	}
+
+	/*
+	 * Tests if a long operation cancelled part way stops after the chunk it is working on
+	 */
+	@Test
+	public void bulkLoadCancelled() throws Exception {
+		final RecordingBulkLoad worker = new RecordingBulkLoad(createBatch(NUM_STACKS * MAX_HEIGHT));
+		// Cancels the worker as soon as its first chunk has been loaded
+		cargoManifest.addManifestListener(new ManifestListener() {
+			@Override
+			public void manifestChanged(List<ManifestEvent> events) {
+				worker.cancel(false);
+			}
+		});
+		worker.start();
+		awaitOutcome();
+		assertEquals("cancelled", outcome);
+		// Lets the worker's thread finish the chunk it was on
+		final CountDownLatch idle = new CountDownLatch(1);
+		new ManifestWorker<Void>(cargoManifest) {
+			@Override
+			protected Void doInBackground() {
+				idle.countDown();
+				return null;
+			}
+
+			@Override
+			protected void succeeded(Void result) {
+			}
+		}.start();
+		assertTrue(idle.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		assertEquals(Integer.valueOf(CHUNK_SIZE * 4), cargoManifest.getTotalWeight());
+	}
+
+	/*
+	 * Tests if an exception thrown by an operation is handed to the worker on the event dispatch thread
+	 */
+	@Test
+	public void failureHandedOver() throws Exception {
+		final ContainerCode code = ContainerCode.fromKey(0);
+		new ManifestWorker<Void>(cargoManifest) {
+			@Override
+			protected Void doInBackground() throws ManifestException {
+				synchronized (cargo) {
+					cargo.unloadContainer(code);
+				}
+				return null;
+			}
+
+			@Override
+			protected void succeeded(Void result) {
+				record(result);
+			}
+
+			@Override
+			protected void failed(Throwable cause) {
+				record(cause);
+			}
+		}.start();
+		awaitOutcome();
+		assertTrue(outcome instanceof ManifestException);
+	}
+
+	/*
+	 * Tests if workers run one at a time, in the order they were started
+	 */
+	@Test
+	public void workersRunInOrder() throws Exception {
+		final List<Integer> order = new ArrayList<Integer>();
+		finished = new CountDownLatch(10);
+		for (int i = 0; i < 10; i++) {
+			final int number = i;
+			new ManifestWorker<Integer>(cargoManifest) {
+				@Override
+				protected Integer doInBackground() {
+					synchronized (order) {
+						order.add(number);
+					}
+					return number;
+				}
+
+				@Override
+				protected void succeeded(Integer result) {
+					record(result);
+				}
+			}.start();
+		}
+		awaitOutcome();
+		for (int i = 0; i < 10; i++)
+			assertEquals(Integer.valueOf(i), order.get(i));
+	}
+}
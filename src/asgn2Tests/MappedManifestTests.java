@@ -0,0 +1,172 @@
+package asgn2Tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import asgn2Codes.ContainerCode;
+import asgn2Containers.DangerousGoodsContainer;
+import asgn2Containers.FreightContainer;
+import asgn2Containers.GeneralGoodsContainer;
+import asgn2Containers.RefrigeratedContainer;
+import asgn2Exceptions.CargoException;
+import asgn2Exceptions.ManifestException;
+import asgn2Manifests.CargoManifest;
+import asgn2Manifests.ManifestSnapshot;
+import asgn2Manifests.MappedManifest;
+
+/**
+ * Test class for the MappedManifest class.  A manifest is saved as a
+ * snapshot, then every query on the mapped file must answer as the
+ * original manifest does.
+ *
+ * @author Leandro Rodrigues n9382909
+ * @version 1.0
+ */
+public class MappedManifestTests {
+	private static final String CODE1 = "INKU2633836";
+	private static final String CODE2 = "MSCU6639871";
+	private static final int NUM_STACKS = 20;
+	private static final int MAX_HEIGHT = 4;
+	private static final int MAX_WEIGHT = 2000;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private CargoManifest cargoManifest;
+	private Path file;
+	private MappedManifest mapped;
+
+	/*
+	 * Helper - Fills most of a manifest with containers of each type and saves it
+	 */
+	@Before
+	public void setUp() throws CargoException, IOException {
+		cargoManifest = new CargoManifest(NUM_STACKS, MAX_HEIGHT, MAX_WEIGHT);
+		long firstKey = new ContainerCode(CODE1).toKey();
+		for (int i = 0; i < 60; i++) {
+			ContainerCode code = ContainerCode.fromKey(firstKey + i);
+			int weight = 4 + i % 27;
+			if (i % 3 == 0)
+				cargoManifest.loadContainer(new GeneralGoodsContainer(code, weight));
+			else if (i % 3 == 1)
+				cargoManifest.loadContainer(new RefrigeratedContainer(code, weight, -i));
+			else
+				cargoManifest.loadContainer(new DangerousGoodsContainer(code, weight, 1 + i % 9));
+		}
+		file = folder.getRoot().toPath().resolve("manifest.snapshot");
+		ManifestSnapshot.save(cargoManifest, file);
+		mapped = MappedManifest.open(file);
+	}
+
+	/*
+	 * Tests if the parameters and weights are read from the file
+	 */
+	@Test
+	public void parameters() throws ManifestException {
+		assertEquals(cargoManifest.getNumStacks(), mapped.getNumStacks());
+		assertEquals(cargoManifest.getMaxHeight(), mapped.getMaxHeight());
+		assertEquals(cargoManifest.getMaxWeight(), mapped.getMaxWeight());
+		assertEquals(60, mapped.getContainerCount());
+		assertEquals(cargoManifest.getTotalWeight(), mapped.getTotalWeight());
+		for (int i = 0; i < NUM_STACKS; i++) {
+			assertEquals(cargoManifest.getStackHeight(i), mapped.getStackHeight(i));
+			assertEquals(cargoManifest.getStackWeight(i), mapped.getStackWeight(i));
+		}
+	}
+
+	/*
+	 * Tests if each stack's containers are created as they were saved
+	 */
+	@Test
+	public void stacksMatch() throws ManifestException {
+		for (int i = 0; i < NUM_STACKS; i++) {
+			FreightContainer[] expected = cargoManifest.toArray(i);
+			FreightContainer[] actual = mapped.toArray(i);
+			assertEquals(expected.length, actual.length);
+			for (int j = 0; j < expected.length; j++) {
+				assertEquals(expected[j].getCode(), actual[j].getCode());
+				assertEquals(expected[j].getType(), actual[j].getType());
+				assertEquals(expected[j].getGrossWeight(), actual[j].getGrossWeight());
+				assertEquals(expected[j].getCode(), mapped.getCode(i, j));
+				assertEquals(expected[j].getCode(), mapped.getContainer(i, j).getCode());
+			}
+		}
+	}
+
+	/*
+	 * Tests if codes are found in the same stack and tier as in the original manifest
+	 */
+	@Test
+	public void lookups() throws ManifestException {
+		for (int i = 0; i < NUM_STACKS; i++)
+			for (FreightContainer container : cargoManifest.toArray(i)) {
+				assertEquals(cargoManifest.whichStack(container.getCode()), mapped.whichStack(container.getCode()));
+				assertEquals(cargoManifest.howHigh(container.getCode()), mapped.howHigh(container.getCode()));
+			}
+	}
+
+	/*
+	 * Tests if a code which is not on board is not found
+	 */
+	@Test
+	public void notOnBoard() throws CargoException {
+		assertNull(mapped.whichStack(new ContainerCode(CODE2)));
+		assertNull(mapped.howHigh(new ContainerCode(CODE2)));
+	}
+
+	/*
+	 * Tests if a null code is not found, as with CargoManifest
+	 */
+	@Test
+	public void nullCode() {
+		assertNull(mapped.whichStack(null));
+		assertNull(mapped.howHigh(null));
+	}
+
+	/*
+	 * Tests if a stack which does not exist is refused
+	 */
+	@Test(expected = ManifestException.class)
+	public void noSuchStack() throws ManifestException {
+		mapped.toArray(NUM_STACKS);
+	}
+
+	/*
+	 * Tests if a position above the top of a stack is refused
+	 */
+	@Test(expected = ManifestException.class)
+	public void noSuchTier() throws ManifestException {
+		mapped.getContainer(0, cargoManifest.getStackHeight(0));
+	}
+
+	/*
+	 * Tests if the mapped manifest can be turned into one which can be changed
+	 */
+	@Test
+	public void toManifest() throws CargoException {
+		CargoManifest restored = mapped.toManifest();
+		assertEquals(cargoManifest.toString(), restored.toString());
+		restored.unloadContainer(restored.toArray(0)[restored.getStackHeight(0) - 1].getCode());
+	}
+
+	/*
+	 * Tests if a snapshot file cut short is refused when opened
+	 */
+	@Test(expected = IOException.class)
+	public void truncated() throws IOException {
+		try (RandomAccessFile cut = new RandomAccessFile(file.toFile(), "rw")) {
+			cut.setLength(Files.size(file) - 1);
+		}
+		MappedManifest.open(file);
+	}
+}
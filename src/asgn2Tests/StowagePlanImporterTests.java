@@ -0,0 +1,170 @@
+package asgn2Tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import asgn2Codes.ContainerCode;
+import asgn2Containers.DangerousGoodsContainer;
+import asgn2Containers.FreightContainer;
+import asgn2Containers.RefrigeratedContainer;
+import asgn2Exceptions.CargoException;
+import asgn2Manifests.CargoManifest;
+import asgn2Manifests.StowagePlanImporter;
+import asgn2Manifests.StowagePlanImporter.Format;
+
+/**
+ * Test class for the StowagePlanImporter class.  Stowage plans in each
+ * format are imported onto a manifest, and every bad line must end up in
+ * the report of rejects rather than on board.
+ *
+ * @author Leandro Rodrigues n9382909
+ * @version 1.0
+ */
+public class StowagePlanImporterTests {
+	private static final String CODE1 = "INKU2633836";
+	private static final String CODE2 = "KOCU8090115";
+	private static final String CODE3 = "MSCU6639871";
+	private static final String CODE4 = "ASPU9139465";
+	private static final String BAD_CODE = "INKU2633837";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private CargoManifest cargoManifest;
+	private StringBuilder rejects;
+
+	/*
+	 * Helper - Creates an empty ship with room to spare
+	 */
+	@Before
+	public void setUp() throws CargoException {
+		cargoManifest = new CargoManifest(5, 5, 1000);
+		rejects = new StringBuilder();
+	}
+
+	/*
+	 * Helper - Imports a plan held in a string
+	 */
+	private long importPlan(StowagePlanImporter importer, String plan) throws IOException {
+		byte[] bytes = plan.getBytes(StandardCharsets.ISO_8859_1);
+		return importer.importFrom(Channels.newChannel(new ByteArrayInputStream(bytes)), cargoManifest, rejects);
+	}
+
+	/*
+	 * Helper - Returns the container with the given code, which must be on board
+	 */
+	private FreightContainer onBoard(String code) throws CargoException {
+		ContainerCode containerCode = new ContainerCode(code);
+		Integer stackNo = cargoManifest.whichStack(containerCode);
+		return cargoManifest.getContainer(stackNo, cargoManifest.howHigh(containerCode));
+	}
+
+	/*
+	 * Tests if every type of container is read from a CSV plan
+	 */
+	@Test
+	public void csvTypes() throws Exception {
+		StowagePlanImporter importer = new StowagePlanImporter(Format.CSV);
+		long loaded = importPlan(importer, "# code,type,weight,detail\n" + CODE1 + ",G,20\n" + CODE2 + ",R,10,-5\r\n"
+				+ CODE3 + " , D , 5 , 3\n\n" + CODE4 + ",G,30,");
+		assertEquals(4, loaded);
+		assertEquals(6, importer.getLinesRead());
+		assertEquals(0, importer.getRejected());
+		assertEquals("", rejects.toString());
+		assertEquals(20, (int) onBoard(CODE1).getGrossWeight());
+		assertEquals(-5, (int) ((RefrigeratedContainer) onBoard(CODE2)).getTemperature());
+		assertEquals(3, (int) ((DangerousGoodsContainer) onBoard(CODE3)).getCategory());
+		assertEquals(30, (int) onBoard(CODE4).getGrossWeight());
+	}
+
+	/*
+	 * Tests if every type of container is read from a fixed width plan
+	 */
+	@Test
+	public void fixedWidthTypes() throws Exception {
+		StowagePlanImporter importer = new StowagePlanImporter(Format.FIXED_WIDTH);
+		long loaded = importPlan(importer, CODE1 + "G20\n" + CODE2 + "R10 -5\n" + CODE3 + "D 5  3\n");
+		assertEquals(3, loaded);
+		assertEquals(0, importer.getRejected());
+		assertEquals(20, (int) onBoard(CODE1).getGrossWeight());
+		assertEquals(-5, (int) ((RefrigeratedContainer) onBoard(CODE2)).getTemperature());
+		assertEquals(5, (int) onBoard(CODE3).getGrossWeight());
+		assertEquals(3, (int) ((DangerousGoodsContainer) onBoard(CODE3)).getCategory());
+	}
+
+	/*
+	 * Tests if bad lines are reported with their line numbers, and the good lines around them are loaded
+	 */
+	@Test
+	public void badLinesRejected() throws Exception {
+		StowagePlanImporter importer = new StowagePlanImporter(Format.CSV);
+		String plan = CODE1 + ",G,20\n" + BAD_CODE + ",G,20\n" + CODE2 + ",X,20\n" + CODE2 + ",G,31\n"
+				+ CODE2 + ",D,20,10\n" + CODE2 + ",R,20\n" + CODE2 + ",G\n" + CODE2 + ",G,20,1,2\n"
+				+ CODE2 + ",R,20,cold\n" + CODE3 + ",G,25\n";
+		assertEquals(2, importPlan(importer, plan));
+		assertEquals(8, importer.getRejected());
+		String[] lines = rejects.toString().split("\n");
+		assertEquals(8, lines.length);
+		assertEquals("2\tInvalid container code\t" + BAD_CODE + ",G,20", lines[0]);
+		for (int i = 0; i < lines.length; i++)
+			assertTrue(lines[i].startsWith((i + 2) + "\t"));
+		assertNull(cargoManifest.whichStack(new ContainerCode(CODE2)));
+	}
+
+	/*
+	 * Tests if containers the manifest refuses are reported with the line they came from
+	 */
+	@Test
+	public void manifestRejections() throws Exception {
+		StowagePlanImporter importer = new StowagePlanImporter(Format.CSV, 2);
+		String plan = CODE1 + ",G,20\n" + CODE1 + ",G,20\n" + CODE2 + ",G,20\n";
+		assertEquals(2, importPlan(importer, plan));
+		assertEquals("2\tContainer with same code is aready on board\t" + CODE1 + "\n", rejects.toString());
+	}
+
+	/*
+	 * Tests if a line too long for the line buffer is rejected without upsetting the lines after it
+	 */
+	@Test
+	public void overlongLine() throws Exception {
+		StringBuilder plan = new StringBuilder();
+		for (int i = 0; i < StowagePlanImporter.MAX_LINE_LENGTH + 10; i++)
+			plan.append('x');
+		plan.append('\n').append(CODE1).append(",G,20\n");
+		StowagePlanImporter importer = new StowagePlanImporter(Format.CSV);
+		assertEquals(1, importPlan(importer, plan.toString()));
+		assertEquals(1, importer.getRejected());
+		assertTrue(rejects.toString().startsWith("1\tLine is longer than"));
+	}
+
+	/*
+	 * Tests if a large file, spanning many blocks and batches, is imported in full
+	 */
+	@Test
+	public void largeFile() throws Exception {
+		cargoManifest = new CargoManifest(2000, 10, Integer.MAX_VALUE);
+		Path file = folder.getRoot().toPath().resolve("plan.csv");
+		StringBuilder plan = new StringBuilder();
+		long firstKey = new ContainerCode(CODE1).toKey();
+		for (int i = 0; i < 20000; i++)
+			plan.append(ContainerCode.fromKey(firstKey + i)).append(",G,").append(4 + i % 27).append('\n');
+		Files.write(file, plan.toString().getBytes(StandardCharsets.ISO_8859_1));
+		StowagePlanImporter importer = new StowagePlanImporter(Format.CSV, 300);
+		assertEquals(20000, importer.importFile(file, cargoManifest, null));
+		assertEquals(0, importer.getRejected());
+		assertEquals(10, (int) cargoManifest.getStackHeight(1999));
+	}
+}
@@ -0,0 +1,213 @@
+package asgn2Tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import asgn2Codes.ContainerCode;
+import asgn2Containers.GeneralGoodsContainer;
+import asgn2Exceptions.CargoException;
+import asgn2GUI.ViewUpdateScheduler;
+import asgn2Manifests.CargoManifest;
+import asgn2Manifests.ManifestEvent;
+import asgn2Manifests.ManifestListener;
+
+/**
+ * Test class for the ViewUpdateScheduler class.  The scheduler runs on the
+ * Swing event dispatch thread, so each step of a test is run there and the
+ * test thread waits between steps for held back changes to be delivered.
+ * 
+ * @author Leandro Rodrigues n9382909
+ * @version 1.0
+ */
+public class ViewUpdateSchedulerTests {
+	private static final int FRAME_INTERVAL = 50;
+	private static final int BURST = 100;
+
+	private CargoManifest cargoManifest;
+	private ViewUpdateScheduler scheduler;
+	// Every event the view has received, and how many updates it received them in
+	private List<ManifestEvent> received;
+	private int updates;
+
+	/*
+	 * Runs a step of a test on the event dispatch thread, passing on any failure
+	 */
+	private interface Step {
+		void run() throws CargoException;
+	}
+
+	private void onEventThread(final Step step) throws Exception {
+		final Exception[] failure = new Exception[1];
+		SwingUtilities.invokeAndWait(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					step.run();
+				} catch (CargoException e) {
+					failure[0] = e;
+				}
+			}
+		});
+		if (failure[0] != null)
+			throw failure[0];
+	}
+
+	/*
+	 * Loads a number of general containers with consecutive codes
+	 */
+	private void loadBurst(int first, int count) throws CargoException {
+		for (int i = first; i < first + count; i++)
+			cargoManifest.loadContainer(new GeneralGoodsContainer(ContainerCode.fromKey(i), 4));
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		received = new ArrayList<ManifestEvent>();
+		updates = 0;
+		onEventThread(new Step() {
+			@Override
+			public void run() throws CargoException {
+				cargoManifest = new CargoManifest(BURST, 2, Integer.MAX_VALUE);
+				scheduler = new ViewUpdateScheduler(new ManifestListener() {
+					@Override
+					public void manifestChanged(List<ManifestEvent> events) {
+						received.addAll(events);
+						updates++;
+					}
+				}, FRAME_INTERVAL);
+				cargoManifest.addManifestListener(scheduler);
+			}
+		});
+	}
+
+	/*
+	 * Tests if the first change reaches the view at once and the rest of a burst arrives in one later update
+	 */
+	@Test
+	public void burstCoalesced() throws Exception {
+		onEventThread(new Step() {
+			@Override
+			public void run() throws CargoException {
+				loadBurst(0, BURST);
+				assertEquals(1, updates);
+				assertEquals(1, received.size());
+			}
+		});
+		Thread.sleep(FRAME_INTERVAL * 4);
+		onEventThread(new Step() {
+			@Override
+			public void run() throws CargoException {
+				assertEquals(2, updates);
+				assertEquals(BURST, received.size());
+				// In the order they happened
+				for (int i = 0; i < BURST; i++)
+					assertEquals(i, received.get(i).getContainer().getCode().toKey());
+				assertEquals(2, scheduler.getFramesRendered());
+				assertEquals(BURST - 2, scheduler.getFramesDropped());
+			}
+		});
+	}
+
+	/*
+	 * Tests if flush delivers held back changes straight away
+	 */
+	@Test
+	public void flushDelivers() throws Exception {
+		onEventThread(new Step() {
+			@Override
+			public void run() throws CargoException {
+				loadBurst(0, 10);
+				scheduler.flush();
+				assertEquals(2, updates);
+				assertEquals(10, received.size());
+			}
+		});
+		Thread.sleep(FRAME_INTERVAL * 4);
+		onEventThread(new Step() {
+			@Override
+			public void run() throws CargoException {
+				// Nothing was left for the timer
+				assertEquals(2, updates);
+			}
+		});
+	}
+
+	/*
+	 * Tests if changes held back before a clearing are replaced by it
+	 */
+	@Test
+	public void clearingReplacesHeldBackChanges() throws Exception {
+		onEventThread(new Step() {
+			@Override
+			public void run() throws CargoException {
+				loadBurst(0, 10);
+				cargoManifest.clear();
+				scheduler.flush();
+				assertEquals(2, received.size());
+				assertEquals(ManifestEvent.Type.CLEARED, received.get(1).getType());
+			}
+		});
+	}
+
+	/*
+	 * Tests if a stopped scheduler delivers nothing more
+	 */
+	@Test
+	public void stopDropsChanges() throws Exception {
+		onEventThread(new Step() {
+			@Override
+			public void run() throws CargoException {
+				loadBurst(0, 10);
+				scheduler.stop();
+			}
+		});
+		Thread.sleep(FRAME_INTERVAL * 4);
+		onEventThread(new Step() {
+			@Override
+			public void run() throws CargoException {
+				assertEquals(1, updates);
+			}
+		});
+	}
+
+	/*
+	 * Tests if changes made on another thread are handed to the view on the event dispatch thread, in order
+	 */
+	@Test
+	public void otherThreadChangesHandedOver() throws Exception {
+		final boolean[] onEventThread = { true };
+		onEventThread(new Step() {
+			@Override
+			public void run() throws CargoException {
+				cargoManifest.removeManifestListener(scheduler);
+				scheduler = new ViewUpdateScheduler(new ManifestListener() {
+					@Override
+					public void manifestChanged(List<ManifestEvent> events) {
+						onEventThread[0] &= SwingUtilities.isEventDispatchThread();
+						received.addAll(events);
+					}
+				}, FRAME_INTERVAL);
+				cargoManifest.addManifestListener(scheduler);
+			}
+		});
+		// Loads from the test thread, as a background worker would
+		loadBurst(0, BURST);
+		Thread.sleep(FRAME_INTERVAL * 4);
+		onEventThread(new Step() {
+			@Override
+			public void run() throws CargoException {
+				assertEquals(true, onEventThread[0]);
+				assertEquals(BURST, received.size());
+				for (int i = 0; i < BURST; i++)
+					assertEquals(i, received.get(i).getContainer().getCode().toKey());
+			}
+		});
+	}
+}